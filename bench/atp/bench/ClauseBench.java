@@ -0,0 +1,130 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    Benchmarks for the clause level inferences: subsumption, binary
+    resolution and factoring. The corpus has clauses of a controlled
+    number of literals whose atoms have the given depth and width. For
+    subsumption, half of the pairs are a clause and an instance of it
+    with an additional literal, so that the subsumption test succeeds.
+    For resolution and factoring, every clause has a literal that
+    unifies with one of the preceding clause and one that can be
+    factored. Times are per clause or clause pair.
+*/
+
+package atp.bench;
+
+import atp.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClauseBench {
+
+    public static final int PAIRS = 128;
+
+    @Param({"2", "4"})
+    public int depth;
+
+    @Param({"2", "3"})
+    public int width;
+
+    @Param({"2", "4"})
+    public int literals;
+
+    public Clause[] subsumers = new Clause[PAIRS];
+    public Clause[] subsumed = new Clause[PAIRS];
+    public Clause[] clauses = new Clause[PAIRS];
+    public Unifier unifier = new Unifier();
+
+    /** ***************************************************************
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+
+        ClauseEvaluationFunction.setupEvaluationFunctions();
+        TermCorpus corpus = new TermCorpus(42,depth,width);
+        for (int i = 0; i < PAIRS; i++) {
+            subsumers[i] = corpus.clause(literals);
+            if (i % 2 == 0) {
+                subsumed[i] = corpus.instance(subsumers[i]);
+                subsumed[i].addAll(corpus.clause(1).literals);
+            }
+            else
+                subsumed[i] = corpus.clause(literals + 1);
+            // Give clauses[i] an instance of its first literal to factor
+            // with, and the negation of an instance of a literal of
+            // clauses[i-1] to resolve with.
+            Clause c = corpus.clause(literals);
+            c.add(corpus.instance(c).literals.get(0));
+            if (i > 0)
+                c.literals.set(1,corpus.instance(clauses[i - 1]).literals.get(1).negate());
+            clauses[i] = c.freshVarCopy();
+        }
+    }
+
+    /** ***************************************************************
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void subsumes(Blackhole bh) {
+
+        for (int i = 0; i < PAIRS; i++)
+            bh.consume(Subsumption.subsumes(subsumers[i],subsumed[i]));
+    }
+
+    /** ***************************************************************
+     * All resolvents between clauses[i] and clauses[i+1].
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void resolution(Blackhole bh) {
+
+        for (int i = 0; i < PAIRS; i++) {
+            Clause c1 = clauses[i];
+            Clause c2 = clauses[(i + 1) % PAIRS];
+            for (int l1 = 0; l1 < c1.length(); l1++)
+                for (int l2 = 0; l2 < c2.length(); l2++)
+                    bh.consume(Resolution.resolution(c1,l1,c2,l2,unifier));
+            c1.supportsClauses.clear();   // don't let the clauses grow
+            c2.supportsClauses.clear();
+        }
+    }
+
+    /** ***************************************************************
+     * All factors of clauses[i].
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void factor(Blackhole bh) {
+
+        for (int i = 0; i < PAIRS; i++) {
+            Clause c = clauses[i];
+            for (int l1 = 0; l1 < c.length(); l1++)
+                for (int l2 = l1 + 1; l2 < c.length(); l2++)
+                    bh.consume(Resolution.factor(c,l1,l2,unifier));
+            c.supportsClauses.clear();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    Benchmarks for reading problems: lexing a generated TPTP text,
+    clausifying parsed first order formulas, and both together as in
+    Formula.string2clauses(). The text has the given number of
+    statements, alternating between cnf clauses and fof formulas
+    whose connectives are nested up to formulaDepth. Lexer times are
+    per text, so its throughput is textBytes divided by the time, which
+    is printed at setup.
+*/
+
+package atp.bench;
+
+import atp.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBench {
+
+    public static final int FORMULAS = 64;
+
+    @Param({"2", "4"})
+    public int depth;
+
+    @Param({"2", "4"})
+    public int formulaDepth;
+
+    @Param({"200"})
+    public int statements;
+
+    public String text = null;
+    public BareFormula[] formulas = new BareFormula[FORMULAS];
+
+    /** ***************************************************************
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+
+        TermCorpus corpus = new TermCorpus(42,depth,2);
+        text = corpus.problemString(statements,3,formulaDepth);
+        for (int i = 0; i < FORMULAS; i++)
+            formulas[i] = BareFormula.string2form(corpus.closedFormulaString(formulaDepth));
+        System.out.println("# textBytes " + text.length());
+    }
+
+    /** ***************************************************************
+     */
+    @Benchmark
+    public int lexer() throws Exception {
+
+        Lexer lex = new Lexer(text);
+        int tokens = 0;
+        while (!lex.next().equals(Lexer.EOFToken))
+            tokens++;
+        return tokens;
+    }
+
+    /** ***************************************************************
+     * Times are per formula.
+     */
+    @Benchmark
+    @OperationsPerInvocation(FORMULAS)
+    public void clausify(Blackhole bh) {
+
+        RunContext.reset();
+        for (int i = 0; i < FORMULAS; i++)
+            bh.consume(Clausifier.clausify(formulas[i],"axiom"));
+    }
+
+    /** ***************************************************************
+     */
+    @Benchmark
+    public ClauseSet string2clauses() {
+
+        RunContext.reset();
+        return Formula.string2clauses(text);
+    }
+}
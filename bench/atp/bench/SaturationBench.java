@@ -0,0 +1,124 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    End to end benchmark of ProofState.saturate() on small bundled
+    problems, all of which have a proof within a fraction of a second:
+
+    agatha - the Dreadbury Mansion puzzle (TPTP PUZ001-1)
+    chain  - a Horn chain of 30 steps with 30 side clauses
+    group  - the right identity from left identity, left inverse and
+             associativity in a relational group theory formulation
+
+    options is the bit set used by Prover2.setStateOptions(state, int),
+    i.e. 1 for tautology deletion, 2 for forward and 4 for backward
+    subsumption. group needs forward subsumption for a quick proof.
+*/
+
+package atp.bench;
+
+import atp.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaturationBench {
+
+    public static final String agatha =
+        "cnf(agatha,hypothesis,( lives(agatha) )).\n" +
+        "cnf(butler,hypothesis,( lives(butler) )).\n" +
+        "cnf(charles,hypothesis,( lives(charles) )).\n" +
+        "cnf(poorer_killer,hypothesis,( ~ killed(X,Y) | ~ richer(X,Y) )).\n" +
+        "cnf(different_hates,hypothesis,( ~ hates(agatha,X) | ~ hates(charles,X) )).\n" +
+        "cnf(no_one_hates_everyone,hypothesis,( ~ hates(X,agatha) | ~ hates(X,butler) | ~ hates(X,charles) )).\n" +
+        "cnf(agatha_hates_agatha,hypothesis,( hates(agatha,agatha) )).\n" +
+        "cnf(killer_hates_victim,hypothesis,( ~ killed(X,Y) | hates(X,Y) )).\n" +
+        "cnf(same_hates,hypothesis,( ~ hates(agatha,X) | hates(butler,X) )).\n" +
+        "cnf(agatha_hates_charles,hypothesis,( hates(agatha,charles) )).\n" +
+        "cnf(butler_hates_poor,hypothesis,( ~ lives(X) | richer(X,agatha) | hates(butler,X) )).\n" +
+        "cnf(prove_neither_charles_nor_butler_did_it,negated_conjecture,( killed(butler,agatha) | killed(charles,agatha) )).\n";
+
+    public static final String group =
+        "cnf(left_identity,axiom,product(identity,X,X)).\n" +
+        "cnf(left_inverse,axiom,product(inverse(X),X,identity)).\n" +
+        "cnf(total_function1,axiom,product(X,Y,multiply(X,Y))).\n" +
+        "cnf(associativity1,axiom,( ~ product(X,Y,U) | ~ product(Y,Z,V) | ~ product(U,Z,W) | product(X,V,W) )).\n" +
+        "cnf(associativity2,axiom,( ~ product(X,Y,U) | ~ product(Y,Z,V) | ~ product(X,V,W) | product(U,Z,W) )).\n" +
+        "cnf(prove_right_identity,negated_conjecture,~ product(a,identity,a)).\n";
+
+    @Param({"agatha", "chain", "group"})
+    public String problem;
+
+    @Param({"7"})
+    public int options;
+
+    @Param({"10"})
+    public int timeout;
+
+    public ClauseSet clauses = null;
+
+    /** ***************************************************************
+     * Return a Horn chain p0(c) => p1(f(c)) => ... => pn(f^n(c)) with
+     * a side clause for every step and a conjecture that refutes pn.
+     */
+    public static String chain(int n) {
+
+        StringBuffer sb = new StringBuffer();
+        sb.append("cnf(start,axiom,p0(c)).\n");
+        for (int i = 0; i < n; i++)
+            sb.append("cnf(step" + i + ",axiom,~p" + i + "(X)|p" + (i+1) + "(f(X))).\n");
+        for (int i = 0; i < n; i++)
+            sb.append("cnf(side" + i + ",axiom,~p" + i + "(X)|q" + i + "(X,X)).\n");
+        sb.append("cnf(goal,negated_conjecture,~p" + n + "(Y)).\n");
+        return sb.toString();
+    }
+
+    /** ***************************************************************
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+
+        ClauseEvaluationFunction.setupEvaluationFunctions();
+        String text = null;
+        if (problem.equals("agatha"))
+            text = agatha;
+        else if (problem.equals("chain"))
+            text = chain(30);
+        else
+            text = group;
+        clauses = Formula.string2clauses(text);
+    }
+
+    /** ***************************************************************
+     * The proof state works on copies, so the parsed clauses can be
+     * reused by every invocation.
+     */
+    @Benchmark
+    public Clause saturate() {
+
+        RunContext.reset();
+        ProofState state = new ProofState(clauses,ClauseEvaluationFunction.PickGiven5.freshCopy());
+        Prover2.setStateOptions(state,options);
+        return state.saturate(timeout);
+    }
+}
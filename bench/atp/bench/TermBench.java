@@ -0,0 +1,110 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    Benchmarks for unification and matching of single terms. Each
+    invocation works through a corpus of term pairs, half of which are
+    a term and one of its instances (so unification and matching
+    succeed), and half of which are unrelated terms (which mostly fail
+    early). Times are per pair.
+*/
+
+package atp.bench;
+
+import atp.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TermBench {
+
+    public static final int PAIRS = 256;
+
+    @Param({"2", "4", "6"})
+    public int depth;
+
+    @Param({"2", "3"})
+    public int width;
+
+    public Term[] general = new Term[PAIRS];
+    public Term[] specific = new Term[PAIRS];
+    public Unifier unifier = new Unifier();
+
+    /** ***************************************************************
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+
+        TermCorpus corpus = new TermCorpus(42,depth,width);
+        for (int i = 0; i < PAIRS; i++) {
+            general[i] = corpus.term(true);
+            if (i % 2 == 0)
+                specific[i] = corpus.instance(general[i]);
+            else
+                specific[i] = corpus.term(true);
+        }
+    }
+
+    /** ***************************************************************
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void mgu(Blackhole bh) {
+
+        for (int i = 0; i < PAIRS; i++)
+            bh.consume(Unification.mgu(general[i],specific[i]));
+    }
+
+    /** ***************************************************************
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void unify(Blackhole bh) {
+
+        for (int i = 0; i < PAIRS; i++) {
+            bh.consume(unifier.unify(general[i],specific[i]));
+            unifier.reset();
+        }
+    }
+
+    /** ***************************************************************
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void match(Blackhole bh) {
+
+        for (int i = 0; i < PAIRS; i++)
+            bh.consume(new BacktrackSubstitution().match(general[i],specific[i]));
+    }
+
+    /** ***************************************************************
+     */
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public void matchNorec(Blackhole bh) {
+
+        for (int i = 0; i < PAIRS; i++)
+            bh.consume(new BacktrackSubstitution().match_norec(general[i],specific[i]));
+    }
+}
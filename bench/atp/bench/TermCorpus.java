@@ -0,0 +1,213 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    Generator of random terms, clauses and formulas for the benchmarks.
+    Terms have a controlled depth (the maximal nesting of function
+    symbols) and width (the arity of every function symbol). The
+    generator is seeded, so every benchmark run sees the same corpus.
+
+    Symbols are f0..fn for functions, c0..cn for constants, p0..pn for
+    predicates and X0..Xn for variables.
+*/
+
+package atp.bench;
+
+import atp.*;
+import java.util.*;
+
+public class TermCorpus {
+
+    public Random random = null;
+    public int depth = 3;
+    public int width = 2;
+    public int numFuns = 4;
+    public int numConsts = 4;
+    public int numPreds = 4;
+    public int numVars = 4;
+
+    // Probability that a position below the top is a variable
+    public double varRatio = 0.3;
+
+    /** ***************************************************************
+     */
+    public TermCorpus(long seed, int depth, int width) {
+
+        random = new Random(seed);
+        this.depth = depth;
+        this.width = width;
+    }
+
+    /** ***************************************************************
+     * Return a term of exactly the given depth as a string. Variables
+     * are only used if withVars is set.
+     */
+    public String termString(int d, boolean withVars) {
+
+        if (d == 0) {
+            if (withVars && random.nextDouble() < varRatio)
+                return "X" + random.nextInt(numVars);
+            return "c" + random.nextInt(numConsts);
+        }
+        StringBuffer sb = new StringBuffer();
+        sb.append("f" + random.nextInt(numFuns) + "(");
+        int deep = random.nextInt(width);   // at least one argument has full depth
+        for (int i = 0; i < width; i++) {
+            if (i > 0)
+                sb.append(",");
+            if (i == deep)
+                sb.append(termString(d - 1,withVars));
+            else
+                sb.append(termString(random.nextInt(d),withVars));
+        }
+        sb.append(")");
+        return sb.toString();
+    }
+
+    /** ***************************************************************
+     */
+    public Term term(boolean withVars) {
+
+        return Term.string2Term(termString(depth,withVars));
+    }
+
+    /** ***************************************************************
+     * Return an atom of the given depth, i.e. a predicate applied to
+     * terms of at most depth - 1.
+     */
+    public String atomString(boolean withVars) {
+
+        StringBuffer sb = new StringBuffer();
+        sb.append("p" + random.nextInt(numPreds) + "(");
+        for (int i = 0; i < width; i++) {
+            if (i > 0)
+                sb.append(",");
+            sb.append(termString(Math.max(0,depth - 1),withVars));
+        }
+        sb.append(")");
+        return sb.toString();
+    }
+
+    /** ***************************************************************
+     */
+    public String literalString(boolean withVars) {
+
+        return (random.nextBoolean() ? "~" : "") + atomString(withVars);
+    }
+
+    /** ***************************************************************
+     * Return the body of a clause with the given number of literals.
+     */
+    public String clauseBody(int numLits, boolean withVars) {
+
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < numLits; i++) {
+            if (i > 0)
+                sb.append("|");
+            sb.append(literalString(withVars));
+        }
+        return sb.toString();
+    }
+
+    /** ***************************************************************
+     */
+    public Clause clause(int numLits) {
+
+        return Clause.string2Clause("cnf(c,axiom," + clauseBody(numLits,true) + ").");
+    }
+
+    /** ***************************************************************
+     * Return a random instance of t, binding all its variables to
+     * ground terms of at most depth 1.
+     */
+    public Term instance(Term t) {
+
+        return instanceSubst(t.collectVars()).apply(t);
+    }
+
+    /** ***************************************************************
+     * Return a random instance of c, as above.
+     */
+    public Clause instance(Clause c) {
+
+        return c.substitute(instanceSubst(c.collectVars()));
+    }
+
+    /** ***************************************************************
+     */
+    private Substitutions instanceSubst(ArrayList<Term> vars) {
+
+        Substitutions subst = new Substitutions();
+        for (int i = 0; i < vars.size(); i++)
+            if (!subst.isBound(vars.get(i)))
+                subst.addSubst(vars.get(i),Term.string2Term(termString(random.nextInt(2),false)));
+        return subst;
+    }
+
+    /** ***************************************************************
+     * Return a first order formula whose connective nesting has the
+     * given depth. Every variable is bound by a quantifier at the top.
+     */
+    public String formulaString(int d) {
+
+        if (d == 0)
+            return literalString(true);
+        String op = null;
+        switch (random.nextInt(4)) {
+            case 0: op = "&"; break;
+            case 1: op = "|"; break;
+            case 2: op = "=>"; break;
+            default: op = "<=>"; break;
+        }
+        String left = formulaString(d - 1);
+        String right = formulaString(random.nextInt(d));
+        if (random.nextInt(4) == 0)
+            left = "?[X" + random.nextInt(numVars) + "]:" + left;
+        return "(" + left + " " + op + " " + right + ")";
+    }
+
+    /** ***************************************************************
+     */
+    public String closedFormulaString(int d) {
+
+        StringBuffer sb = new StringBuffer();
+        sb.append("![");
+        for (int i = 0; i < numVars; i++) {
+            if (i > 0)
+                sb.append(",");
+            sb.append("X" + i);
+        }
+        sb.append("]:");
+        sb.append(formulaString(d));
+        return sb.toString();
+    }
+
+    /** ***************************************************************
+     * Return a TPTP text of n fof and cnf statements.
+     */
+    public String problemString(int n, int numLits, int formulaDepth) {
+
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < n; i++) {
+            if (i % 2 == 0)
+                sb.append("cnf(c" + i + ",axiom," + clauseBody(numLits,true) + ").\n");
+            else
+                sb.append("fof(f" + i + ",axiom," + closedFormulaString(formulaDepth) + ").\n");
+        }
+        return sb.toString();
+    }
+}
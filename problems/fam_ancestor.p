@@ -0,0 +1,11 @@
+%------------------------------------------------------------------------------
+% File     : fam_ancestor.p
+% Source   : JavaRes regression corpus
+% Comment  : Ancestors as the transitive closure of parents
+% Status   : Unsatisfiable
+%------------------------------------------------------------------------------
+fof(parent_ancestor,axiom,![X,Y]:(parent(X,Y) => ancestor(X,Y))).
+fof(ancestor_trans,axiom,![X,Y,Z]:((ancestor(X,Y) & ancestor(Y,Z)) => ancestor(X,Z))).
+fof(parents,axiom,(parent(anna,bert) & parent(bert,carl) & parent(carl,dora) & parent(dora,emil))).
+fof(siblings,axiom,(parent(anna,beth) & parent(beth,chris))).
+fof(anna_emil,negated_conjecture,~ancestor(anna,emil)).
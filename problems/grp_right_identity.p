@@ -0,0 +1,12 @@
+%------------------------------------------------------------------------------
+% File     : grp_right_identity.p
+% Source   : JavaRes regression corpus
+% Comment  : Right identity from left identity, left inverse and associativity
+% Status   : Unsatisfiable
+%------------------------------------------------------------------------------
+cnf(left_identity,axiom,product(identity,X,X)).
+cnf(left_inverse,axiom,product(inverse(X),X,identity)).
+cnf(total_function1,axiom,product(X,Y,multiply(X,Y))).
+cnf(associativity1,axiom,( ~ product(X,Y,U) | ~ product(Y,Z,V) | ~ product(U,Z,W) | product(X,V,W) )).
+cnf(associativity2,axiom,( ~ product(X,Y,U) | ~ product(Y,Z,V) | ~ product(X,V,W) | product(U,Z,W) )).
+cnf(prove_right_identity,negated_conjecture,~ product(a,identity,a)).
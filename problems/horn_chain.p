@@ -0,0 +1,68 @@
+%------------------------------------------------------------------------------
+% File     : horn_chain.p
+% Source   : JavaRes regression corpus
+% Comment  : A Horn chain of 30 steps with a side clause per step
+% Status   : Unsatisfiable
+%------------------------------------------------------------------------------
+cnf(start,axiom,p0(c)).
+cnf(step0,axiom,~p0(X)|p1(f(X))).
+cnf(step1,axiom,~p1(X)|p2(f(X))).
+cnf(step2,axiom,~p2(X)|p3(f(X))).
+cnf(step3,axiom,~p3(X)|p4(f(X))).
+cnf(step4,axiom,~p4(X)|p5(f(X))).
+cnf(step5,axiom,~p5(X)|p6(f(X))).
+cnf(step6,axiom,~p6(X)|p7(f(X))).
+cnf(step7,axiom,~p7(X)|p8(f(X))).
+cnf(step8,axiom,~p8(X)|p9(f(X))).
+cnf(step9,axiom,~p9(X)|p10(f(X))).
+cnf(step10,axiom,~p10(X)|p11(f(X))).
+cnf(step11,axiom,~p11(X)|p12(f(X))).
+cnf(step12,axiom,~p12(X)|p13(f(X))).
+cnf(step13,axiom,~p13(X)|p14(f(X))).
+cnf(step14,axiom,~p14(X)|p15(f(X))).
+cnf(step15,axiom,~p15(X)|p16(f(X))).
+cnf(step16,axiom,~p16(X)|p17(f(X))).
+cnf(step17,axiom,~p17(X)|p18(f(X))).
+cnf(step18,axiom,~p18(X)|p19(f(X))).
+cnf(step19,axiom,~p19(X)|p20(f(X))).
+cnf(step20,axiom,~p20(X)|p21(f(X))).
+cnf(step21,axiom,~p21(X)|p22(f(X))).
+cnf(step22,axiom,~p22(X)|p23(f(X))).
+cnf(step23,axiom,~p23(X)|p24(f(X))).
+cnf(step24,axiom,~p24(X)|p25(f(X))).
+cnf(step25,axiom,~p25(X)|p26(f(X))).
+cnf(step26,axiom,~p26(X)|p27(f(X))).
+cnf(step27,axiom,~p27(X)|p28(f(X))).
+cnf(step28,axiom,~p28(X)|p29(f(X))).
+cnf(step29,axiom,~p29(X)|p30(f(X))).
+cnf(side0,axiom,~p0(X)|q0(X,X)).
+cnf(side1,axiom,~p1(X)|q1(X,X)).
+cnf(side2,axiom,~p2(X)|q2(X,X)).
+cnf(side3,axiom,~p3(X)|q3(X,X)).
+cnf(side4,axiom,~p4(X)|q4(X,X)).
+cnf(side5,axiom,~p5(X)|q5(X,X)).
+cnf(side6,axiom,~p6(X)|q6(X,X)).
+cnf(side7,axiom,~p7(X)|q7(X,X)).
+cnf(side8,axiom,~p8(X)|q8(X,X)).
+cnf(side9,axiom,~p9(X)|q9(X,X)).
+cnf(side10,axiom,~p10(X)|q10(X,X)).
+cnf(side11,axiom,~p11(X)|q11(X,X)).
+cnf(side12,axiom,~p12(X)|q12(X,X)).
+cnf(side13,axiom,~p13(X)|q13(X,X)).
+cnf(side14,axiom,~p14(X)|q14(X,X)).
+cnf(side15,axiom,~p15(X)|q15(X,X)).
+cnf(side16,axiom,~p16(X)|q16(X,X)).
+cnf(side17,axiom,~p17(X)|q17(X,X)).
+cnf(side18,axiom,~p18(X)|q18(X,X)).
+cnf(side19,axiom,~p19(X)|q19(X,X)).
+cnf(side20,axiom,~p20(X)|q20(X,X)).
+cnf(side21,axiom,~p21(X)|q21(X,X)).
+cnf(side22,axiom,~p22(X)|q22(X,X)).
+cnf(side23,axiom,~p23(X)|q23(X,X)).
+cnf(side24,axiom,~p24(X)|q24(X,X)).
+cnf(side25,axiom,~p25(X)|q25(X,X)).
+cnf(side26,axiom,~p26(X)|q26(X,X)).
+cnf(side27,axiom,~p27(X)|q27(X,X)).
+cnf(side28,axiom,~p28(X)|q28(X,X)).
+cnf(side29,axiom,~p29(X)|q29(X,X)).
+cnf(goal,negated_conjecture,~p30(Y)).
@@ -0,0 +1,10 @@
+%------------------------------------------------------------------------------
+% File     : lst_member.p
+% Source   : JavaRes regression corpus
+% Comment  : Membership in a list of three elements
+% Status   : Unsatisfiable
+%------------------------------------------------------------------------------
+cnf(member_head,axiom,member(X,cons(X,L))).
+cnf(member_tail,axiom,~member(X,L)|member(X,cons(Y,L))).
+cnf(not_member_nil,axiom,~member(X,nil)).
+cnf(prove_member,negated_conjecture,~member(c,cons(a,cons(b,cons(c,nil))))).
@@ -0,0 +1,7 @@
+%------------------------------------------------------------------------------
+% File     : pel_drinker.p
+% Source   : JavaRes regression corpus
+% Comment  : The drinker paradox, Pelletier problem 18 variant
+% Status   : Unsatisfiable
+%------------------------------------------------------------------------------
+fof(drinker,negated_conjecture,~?[Y]:![X]:(drinks(Y) => drinks(X))).
@@ -0,0 +1,7 @@
+%------------------------------------------------------------------------------
+% File     : pel_prop12.p
+% Source   : JavaRes regression corpus
+% Comment  : Pelletier problem 12, associativity of equivalence
+% Status   : Unsatisfiable
+%------------------------------------------------------------------------------
+fof(pel12,negated_conjecture,~(((p <=> q) <=> r) <=> (p <=> (q <=> r)))).
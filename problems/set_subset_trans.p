@@ -0,0 +1,12 @@
+%------------------------------------------------------------------------------
+% File     : set_subset_trans.p
+% Source   : JavaRes regression corpus
+% Comment  : Transitivity of subset, clausified by hand
+% Status   : Unsatisfiable
+%------------------------------------------------------------------------------
+cnf(subset_member,axiom,~subset(A,B)|~member(X,A)|member(X,B)).
+cnf(subset_witness_in,axiom,subset(A,B)|member(w(A,B),A)).
+cnf(subset_witness_out,axiom,subset(A,B)|~member(w(A,B),B)).
+cnf(a_b,negated_conjecture,subset(a,b)).
+cnf(b_c,negated_conjecture,subset(b,c)).
+cnf(not_a_c,negated_conjecture,~subset(a,c)).
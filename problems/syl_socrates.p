@@ -0,0 +1,9 @@
+%------------------------------------------------------------------------------
+% File     : syl_socrates.p
+% Source   : JavaRes regression corpus
+% Comment  : All men are mortal, first order with a negated conjecture
+% Status   : Unsatisfiable
+%------------------------------------------------------------------------------
+fof(men_are_mortal,axiom,![X]:(man(X) => mortal(X))).
+fof(socrates_is_a_man,axiom,man(socrates)).
+fof(socrates_is_mortal,negated_conjecture,~mortal(socrates)).
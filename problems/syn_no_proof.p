@@ -0,0 +1,10 @@
+%------------------------------------------------------------------------------
+% File     : syn_no_proof.p
+% Source   : JavaRes regression corpus
+% Comment  : A satisfiable first order problem whose saturation is finite
+% Status   : Satisfiable
+%------------------------------------------------------------------------------
+cnf(a1,axiom,p(X)|q(X)).
+cnf(a2,axiom,~p(a)|r(a)).
+cnf(a3,axiom,~q(b)|r(b)).
+cnf(a4,negated_conjecture,~r(c)).
@@ -0,0 +1,9 @@
+%------------------------------------------------------------------------------
+% File     : syn_sat.p
+% Source   : JavaRes regression corpus
+% Comment  : A small satisfiable clause set
+% Status   : Satisfiable
+%------------------------------------------------------------------------------
+cnf(a1,axiom,p(a)|q(a)).
+cnf(a2,axiom,~p(X)|r(X)).
+cnf(a3,negated_conjecture,~q(b)).
@@ -0,0 +1,543 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    A driver for performance regression runs. It runs every problem of
+    a corpus (by default the bundled problems/ directory, which needs no
+    TPTP installation) with a number of prover configurations, several
+    times each, and writes one CSV line per problem and configuration
+    with the median and 95th percentile of the saturation time and the
+    median search statistics. Two such files, e.g. from the builds
+    before and after a change, can then be compared, which lists all
+    changes in status and all changes in time or processed clauses
+    beyond a threshold.
+
+    A configuration is the name of an evaluation function, optionally
+    followed by a colon and the letters of the Prover2 options t, f and
+    b, o for --otter, v for --variants, u for --units, k for --ordering
+    kbo, l for --ordering lpo and s for --select largest, e.g.
+    PickGiven5:tfb or PickGiven5:tfovuks.
+
+    java atp.BenchmarkRunner [-n runs] [-w warmups] [-to seconds]
+                             [--config conf]... [-o out.csv] [problems]
+
+    where problems is a directory, a file that lists one problem per
+    line, or one or more problem files ending in .p.
+
+    java atp.BenchmarkRunner --compare old.csv new.csv [--threshold 0.25]
+
+    The comparison exits with status 1 if it finds a regression.
+*/
+
+package atp;
+
+import java.io.*;
+import java.util.*;
+
+public class BenchmarkRunner {
+
+    public static final String Header = "Problem,Configuration,Runs,Status,Median time,P95 time," +
+            "Processed clauses,Resolvents computed,Factors computed,Forward subsumed,Backward subsumed";
+
+    public int runs = 5;
+    public int warmups = 1;
+    public int timeout = 10;
+    public ArrayList<String> configs = new ArrayList<String>();
+
+    // Relative change of time or processed clauses that is reported
+    public double threshold = 0.25;
+    // Changes in the median time below this are never reported, in ms
+    public double minTimeDiff = 20;
+
+    // The saturation time of the last run, in ms
+    private double lastTime = 0;
+
+    /** ***************************************************************
+     * The result of running one problem with one configuration.
+     */
+    public static class Result {
+
+        public String problem = "";
+        public String config = "";
+        public int runs = 0;
+        public String status = "";
+        public double medianTime = 0;    // in ms
+        public double p95Time = 0;       // in ms
+        public long processed = 0;
+        public long resolvents = 0;
+        public long factors = 0;
+        public long forwardSubsumed = 0;
+        public long backwardSubsumed = 0;
+
+        /** ***************************************************************
+         */
+        public String toString() {
+
+            return problem + "," + config + "," + runs + "," + status + "," +
+                   String.format(Locale.US,"%.3f",medianTime) + "," +
+                   String.format(Locale.US,"%.3f",p95Time) + "," +
+                   processed + "," + resolvents + "," + factors + "," +
+                   forwardSubsumed + "," + backwardSubsumed;
+        }
+
+        /** ***************************************************************
+         * Parse a line as written by toString(), returning null if it
+         * is malformed.
+         */
+        public static Result parse(String line) {
+
+            String[] f = line.split(",");
+            if (f.length != 11)
+                return null;
+            Result r = new Result();
+            try {
+                r.problem = f[0];
+                r.config = f[1];
+                r.runs = Integer.parseInt(f[2]);
+                r.status = f[3];
+                r.medianTime = Double.parseDouble(f[4]);
+                r.p95Time = Double.parseDouble(f[5]);
+                r.processed = Long.parseLong(f[6]);
+                r.resolvents = Long.parseLong(f[7]);
+                r.factors = Long.parseLong(f[8]);
+                r.forwardSubsumed = Long.parseLong(f[9]);
+                r.backwardSubsumed = Long.parseLong(f[10]);
+            }
+            catch (NumberFormatException nfe) {
+                return null;
+            }
+            return r;
+        }
+
+        /** ***************************************************************
+         */
+        public String key() {
+
+            return problem + "," + config;
+        }
+    }
+
+    /** ***************************************************************
+     * Return the median of the values, which must not be empty.
+     */
+    public static double median(ArrayList<Double> values) {
+
+        ArrayList<Double> sorted = new ArrayList<Double>(values);
+        Collections.sort(sorted);
+        int n = sorted.size();
+        if (n % 2 == 1)
+            return sorted.get(n / 2).doubleValue();
+        return (sorted.get(n / 2 - 1).doubleValue() + sorted.get(n / 2).doubleValue()) / 2;
+    }
+
+    /** ***************************************************************
+     * Return the given percentile of the values by the nearest rank
+     * method. The values must not be empty.
+     */
+    public static double percentile(ArrayList<Double> values, double p) {
+
+        ArrayList<Double> sorted = new ArrayList<Double>(values);
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(p / 100.0 * sorted.size());
+        if (rank < 1)
+            rank = 1;
+        return sorted.get(rank - 1).doubleValue();
+    }
+
+    /** ***************************************************************
+     * Return the evaluation function named in the configuration, or
+     * null if there is none of that name.
+     */
+    public static EvalStructure configEval(String config) {
+
+        String name = config;
+        if (config.indexOf(':') > -1)
+            name = config.substring(0,config.indexOf(':'));
+        ArrayList<EvalStructure> evals = Prover2.setAllEvalOptions();
+        for (int i = 0; i < evals.size(); i++)
+            if (evals.get(i).name.equals(name))
+                return evals.get(i);
+        return null;
+    }
+
+    /** ***************************************************************
+     * Set the options of the configuration on a proof state.
+     */
+    public static void setConfigOptions(ProofState state, String config) {
+
+        String flags = "";
+        if (config.indexOf(':') > -1)
+            flags = config.substring(config.indexOf(':') + 1);
+        state.delete_tautologies = flags.indexOf('t') > -1;
+        state.forward_subsumption = flags.indexOf('f') > -1;
+        state.backward_subsumption = flags.indexOf('b') > -1;
+        state.otter_loop = flags.indexOf('o') > -1;
+        state.delete_variants = flags.indexOf('v') > -1;
+        state.unit_simplification = flags.indexOf('u') > -1;
+        if (flags.indexOf('k') > -1)
+            state.term_ordering = "kbo";
+        else if (flags.indexOf('l') > -1)
+            state.term_ordering = "lpo";
+        if (flags.indexOf('s') > -1)
+            state.literal_selection = "largest";
+    }
+
+    /** ***************************************************************
+     * Run a problem once, from parsing to the end of the saturation.
+     * Only the saturation is timed, see lastTime.
+     * @return the proof state, or null if the problem can't be read
+     */
+    public ProofState runOnce(String filename, String config, EvalStructure eval) {
+
+        RunContext.reset();
+        ClauseSet cs = Formula.file2clauses(filename,timeout);
+        if (cs == null)
+            return null;
+        ProofState state = new ProofState(cs,eval.freshCopy());
+        setConfigOptions(state,config);
+        state.filename = filename;
+        state.evalFunctionName = eval.name;
+        long t1 = System.nanoTime();
+        state.res = state.saturate(timeout);
+        lastTime = (System.nanoTime() - t1) / 1000000.0;
+        return state;
+    }
+
+    /** ***************************************************************
+     * Run a problem with a configuration as often as requested.
+     */
+    public Result run(String filename, String config) {
+
+        Result result = new Result();
+        result.problem = new File(filename).getName();
+        result.config = config;
+        EvalStructure eval = configEval(config);
+        if (eval == null) {
+            result.status = "Error";
+            return result;
+        }
+        for (int i = 0; i < warmups; i++)
+            runOnce(filename,config,eval);
+        ArrayList<Double> times = new ArrayList<Double>();
+        ArrayList<Double> processed = new ArrayList<Double>();
+        ArrayList<Double> resolvents = new ArrayList<Double>();
+        ArrayList<Double> factors = new ArrayList<Double>();
+        ArrayList<Double> forward = new ArrayList<Double>();
+        ArrayList<Double> backward = new ArrayList<Double>();
+        for (int i = 0; i < runs; i++) {
+            ProofState state = null;
+            String status = null;
+            try {
+                state = runOnce(filename,config,eval);
+                status = Prover2.getStatus(state);
+            }
+            catch (OutOfMemoryError oome) {
+                status = Watchdog.ResourceOut;
+            }
+            // a problem whose status differs between runs is reported with
+            // the worst of them
+            if (result.status.equals("") || result.status.equals("Theorem"))
+                result.status = status;
+            if (state == null)
+                continue;
+            times.add(Double.valueOf(lastTime));
+            processed.add(Double.valueOf(state.proc_clause_count));
+            resolvents.add(Double.valueOf(state.resolvent_count));
+            factors.add(Double.valueOf(state.factor_count));
+            forward.add(Double.valueOf(state.forward_subsumed));
+            backward.add(Double.valueOf(state.backward_subsumed));
+        }
+        result.runs = times.size();
+        if (times.size() == 0)
+            return result;
+        result.medianTime = median(times);
+        result.p95Time = percentile(times,95);
+        result.processed = Math.round(median(processed));
+        result.resolvents = Math.round(median(resolvents));
+        result.factors = Math.round(median(factors));
+        result.forwardSubsumed = Math.round(median(forward));
+        result.backwardSubsumed = Math.round(median(backward));
+        return result;
+    }
+
+    /** ***************************************************************
+     * Run all problems of a directory or list file with all
+     * configurations and write the results to out.
+     */
+    public ArrayList<Result> runAll(String problems, PrintStream out) {
+
+        return runAll(Prover2.batchFiles(problems),out);
+    }
+
+    /** ***************************************************************
+     * Run the given problem files with all configurations and write
+     * the results to out.
+     */
+    public ArrayList<Result> runAll(ArrayList<String> files, PrintStream out) {
+
+        ArrayList<Result> results = new ArrayList<Result>();
+        out.println(Header);
+        for (int i = 0; i < files.size(); i++) {
+            for (int j = 0; j < configs.size(); j++) {
+                Result r = run(files.get(i),configs.get(j));
+                results.add(r);
+                out.println(r);
+                out.flush();
+            }
+        }
+        return results;
+    }
+
+    /** ***************************************************************
+     * Read a results file, keyed by problem and configuration.
+     */
+    public static LinkedHashMap<String,Result> readResults(Reader r) throws IOException {
+
+        LinkedHashMap<String,Result> result = new LinkedHashMap<String,Result>();
+        BufferedReader br = new BufferedReader(r);
+        String line = null;
+        while ((line = br.readLine()) != null) {
+            Result res = Result.parse(line.trim());
+            if (res != null)
+                result.put(res.key(),res);
+        }
+        return result;
+    }
+
+    /** ***************************************************************
+     * Return true if the change from oldVal to newVal is beyond the
+     * threshold, in the direction given by the sign of dir.
+     */
+    private boolean changed(double oldVal, double newVal, int dir) {
+
+        if (dir > 0)
+            return newVal > oldVal * (1 + threshold);
+        return newVal < oldVal * (1 - threshold);
+    }
+
+    /** ***************************************************************
+     * Compare two sets of results and return one line for each
+     * notable difference, starting with REGRESSION, IMPROVEMENT or
+     * NOTE. A status that is no longer Theorem, a slower median time
+     * and more processed clauses are regressions.
+     */
+    public ArrayList<String> compare(LinkedHashMap<String,Result> oldRes, LinkedHashMap<String,Result> newRes) {
+
+        ArrayList<String> report = new ArrayList<String>();
+        Iterator<String> it = oldRes.keySet().iterator();
+        while (it.hasNext()) {
+            String key = it.next();
+            Result o = oldRes.get(key);
+            Result n = newRes.get(key);
+            if (n == null) {
+                report.add("NOTE " + key + ": missing in the new results");
+                continue;
+            }
+            if (!o.status.equals(n.status)) {
+                String kind = "NOTE";
+                if (o.status.equals("Theorem"))
+                    kind = "REGRESSION";
+                else if (n.status.equals("Theorem"))
+                    kind = "IMPROVEMENT";
+                report.add(kind + " " + key + ": status " + o.status + " -> " + n.status);
+            }
+            if (Math.abs(n.medianTime - o.medianTime) >= minTimeDiff) {
+                String change = String.format(Locale.US,": median time %.1f -> %.1f ms",o.medianTime,n.medianTime);
+                if (changed(o.medianTime,n.medianTime,1))
+                    report.add("REGRESSION " + key + change);
+                else if (changed(o.medianTime,n.medianTime,-1))
+                    report.add("IMPROVEMENT " + key + change);
+            }
+            if (o.status.equals(n.status)) {
+                String change = ": processed clauses " + o.processed + " -> " + n.processed;
+                if (changed(o.processed,n.processed,1))
+                    report.add("REGRESSION " + key + change);
+                else if (changed(o.processed,n.processed,-1))
+                    report.add("IMPROVEMENT " + key + change);
+            }
+        }
+        it = newRes.keySet().iterator();
+        while (it.hasNext()) {
+            String key = it.next();
+            if (!oldRes.containsKey(key))
+                report.add("NOTE " + key + ": missing in the old results");
+        }
+        return report;
+    }
+
+    /** ***************************************************************
+     * Compare two results files, print the differences and return the
+     * number of regressions.
+     */
+    public int compareFiles(String oldFile, String newFile) throws IOException {
+
+        Reader o = new FileReader(oldFile);
+        Reader n = new FileReader(newFile);
+        ArrayList<String> report = null;
+        try {
+            report = compare(readResults(o),readResults(n));
+        }
+        finally {
+            o.close();
+            n.close();
+        }
+        int regressions = 0;
+        for (int i = 0; i < report.size(); i++) {
+            System.out.println(report.get(i));
+            if (report.get(i).startsWith("REGRESSION"))
+                regressions++;
+        }
+        System.out.println("# " + regressions + " regression(s), " + report.size() + " difference(s)");
+        return regressions;
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     */
+    public static void testStatistics() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in BenchmarkRunner.testStatistics(): all should be true");
+        ArrayList<Double> v = new ArrayList<Double>();
+        for (int i = 20; i >= 1; i--)
+            v.add(Double.valueOf(i));
+        System.out.println(median(v) == 10.5);
+        System.out.println(percentile(v,95) == 19);
+        v.remove(0);
+        System.out.println(median(v) == 10);
+        Result r = new Result();
+        r.problem = "p.p";
+        r.config = "PickGiven5:tfb";
+        r.status = "Theorem";
+        r.medianTime = 12.5;
+        r.processed = 42;
+        System.out.println(Result.parse(r.toString()).toString().equals(r.toString()));
+    }
+
+    /** ***************************************************************
+     */
+    public static void testCompare() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in BenchmarkRunner.testCompare(): all should be true");
+        String oldCSV = Header + "\n" +
+                "a.p,PickGiven5,5,Theorem,100.000,120.000,50,500,0,0,0\n" +
+                "b.p,PickGiven5,5,Theorem,100.000,120.000,50,500,0,0,0\n" +
+                "c.p,PickGiven5,5,Theorem,10.000,12.000,50,500,0,0,0\n" +
+                "d.p,PickGiven5,5,GaveUp,10.000,12.000,50,500,0,0,0\n";
+        String newCSV = Header + "\n" +
+                "a.p,PickGiven5,5,Theorem,101.000,120.000,51,500,0,0,0\n" +
+                "b.p,PickGiven5,5,Timeout,10000.000,10000.000,5000,500,0,0,0\n" +
+                "c.p,PickGiven5,5,Theorem,20.000,22.000,80,500,0,0,0\n" +
+                "d.p,PickGiven5,5,Theorem,10.000,12.000,50,500,0,0,0\n";
+        try {
+            BenchmarkRunner br = new BenchmarkRunner();
+            ArrayList<String> report = br.compare(readResults(new StringReader(oldCSV)),
+                                                  readResults(new StringReader(newCSV)));
+            System.out.println(report.size() == 4);
+            System.out.println(report.get(0).startsWith("REGRESSION b.p,PickGiven5: status"));
+            System.out.println(report.get(1).startsWith("REGRESSION b.p,PickGiven5: median time"));
+            System.out.println(report.get(2).startsWith("REGRESSION c.p,PickGiven5: processed"));
+            System.out.println(report.get(3).startsWith("IMPROVEMENT d.p"));
+        }
+        catch (IOException ioe) {
+            System.out.println(ioe.getMessage());
+        }
+    }
+
+    /** ***************************************************************
+     * Run the benchmarks or compare two results files as described
+     * above. Without arguments, run the unit tests.
+     */
+    public static void main(String[] args) throws IOException {
+
+        if (args.length == 0) {
+            testStatistics();
+            testCompare();
+            return;
+        }
+        ClauseEvaluationFunction.setupEvaluationFunctions();
+        BenchmarkRunner br = new BenchmarkRunner();
+        String outFile = null;
+        String problems = "problems";
+        ArrayList<String> files = new ArrayList<String>();
+        boolean compare = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--compare"))
+                compare = true;
+            else if (args[i].equals("-n") && i + 1 < args.length)
+                br.runs = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-w") && i + 1 < args.length)
+                br.warmups = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-to") && i + 1 < args.length)
+                br.timeout = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--config") && i + 1 < args.length)
+                br.configs.add(args[++i]);
+            else if (args[i].equals("--threshold") && i + 1 < args.length)
+                br.threshold = Double.parseDouble(args[++i]);
+            else if (args[i].equals("-o") && i + 1 < args.length)
+                outFile = args[++i];
+            else if (args[i].startsWith("-")) {
+                System.out.println("Error in BenchmarkRunner.main(): unknown or incomplete option " + args[i]);
+                System.exit(2);
+            }
+            else
+                files.add(args[i]);
+        }
+        if (compare) {
+            if (files.size() != 2) {
+                System.out.println("Error in BenchmarkRunner.main(): --compare needs two results files");
+                System.exit(2);
+            }
+            if (br.compareFiles(files.get(0),files.get(1)) > 0)
+                System.exit(1);
+            return;
+        }
+        ArrayList<String> problemFiles = null;
+        if (files.size() == 1 && !files.get(0).endsWith(".p"))
+            problemFiles = Prover2.batchFiles(files.get(0));
+        else if (files.size() > 0) {
+            for (String f:files)
+                if (!f.endsWith(".p")) {
+                    System.out.println("Error in BenchmarkRunner.main(): " + f +
+                                       " is not a problem file; give one directory or list file, or problem files");
+                    System.exit(2);
+                }
+            problemFiles = files;
+        }
+        else
+            problemFiles = Prover2.batchFiles(problems);
+        if (br.configs.size() == 0)
+            br.configs.add("PickGiven5:tfb");
+        for (int i = 0; i < br.configs.size(); i++)
+            if (configEval(br.configs.get(i)) == null) {
+                System.out.println("Error in BenchmarkRunner.main(): unknown configuration " + br.configs.get(i));
+                System.exit(2);
+            }
+        if (outFile == null)
+            br.runAll(problemFiles,System.out);
+        else {
+            PrintStream out = new PrintStream(new FileOutputStream(outFile),true,"UTF-8");
+            try {
+                br.runAll(problemFiles,out);
+            }
+            finally {
+                out.close();
+            }
+        }
+    }
+}
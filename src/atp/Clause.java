@@ -40,7 +40,6 @@ import java.text.*;
 */
 public class Clause {
 
-    public static int clauseIDcounter = 0;
     public ArrayList<Literal> literals = new ArrayList<Literal>(); 
     public String type = "plain";
     public String name = "";
@@ -162,8 +161,9 @@ public class Clause {
      */
     public void createName() {
             
-        name = "c" + Integer.toString(clauseIDcounter);
-        clauseIDcounter++;
+        RunContext rc = RunContext.get();
+        name = "c" + Integer.toString(rc.clauseIDcounter);
+        rc.clauseIDcounter++;
     }
     
     /** ***************************************************************
@@ -461,6 +461,98 @@ public class Clause {
         return c.substitute(s);
     }
     
+    /** ***************************************************************
+     * Return the literals in textual form with the variables numbered
+     * in order of their first occurrence, so that two clauses have the
+     * same string exactly if they are equal except for the names of
+     * their variables. Unlike normalizeVarCopy(), this neither copies
+     * the clause nor changes its subst.
+     */
+    public String variantString() {
+
+        StringBuffer sb = new StringBuffer();
+        HashMap<String,Integer> vars = new HashMap<String,Integer>();
+        for (int i = 0; i < literals.size(); i++) {
+            if (i > 0)
+                sb.append('|');
+            variantString(literals.get(i),vars,sb);
+        }
+        return sb.toString();
+    }
+
+    /** ***************************************************************
+     * Return a string that is the same for clauses that are variants
+     * of each other, i.e. equal up to the names of their variables and
+     * the order of their literals. Literals are sorted by their form
+     * with all variables alike, keeping their order where that is the
+     * same, and variables are then numbered as in variantString(). Two
+     * clauses with the same fingerprint are always variants, but in
+     * rare cases of such equal literals two variants may differ.
+     */
+    public String fingerprint() {
+
+        final String[] skeletons = new String[literals.size()];
+        Integer[] order = new Integer[literals.size()];
+        for (int i = 0; i < literals.size(); i++) {
+            StringBuffer sb = new StringBuffer();
+            variantString(literals.get(i),null,sb);
+            skeletons[i] = sb.toString();
+            order[i] = Integer.valueOf(i);
+        }
+        Arrays.sort(order,new Comparator<Integer>() {
+            public int compare(Integer i1, Integer i2) {
+                return skeletons[i1.intValue()].compareTo(skeletons[i2.intValue()]);
+            }
+        });
+        StringBuffer sb = new StringBuffer();
+        HashMap<String,Integer> vars = new HashMap<String,Integer>();
+        for (int i = 0; i < order.length; i++) {
+            if (i > 0)
+                sb.append('|');
+            variantString(literals.get(order[i].intValue()),vars,sb);
+        }
+        return sb.toString();
+    }
+
+    /** ***************************************************************
+     * Append the literal to sb with its variables numbered in vars, or
+     * all written as _ if vars is null.
+     */
+    private static void variantString(Literal lit, HashMap<String,Integer> vars, StringBuffer sb) {
+
+        if (lit.isNegative())
+            sb.append('~');
+        variantString(lit.atom,vars,sb);
+    }
+
+    /** ***************************************************************
+     */
+    private static void variantString(Term t, HashMap<String,Integer> vars, StringBuffer sb) {
+
+        if (t.isVar()) {
+            sb.append('_');
+            if (vars == null)
+                return;
+            Integer n = vars.get(t.t);
+            if (n == null) {
+                n = Integer.valueOf(vars.size());
+                vars.put(t.t,n);
+            }
+            sb.append(n.intValue());
+            return;
+        }
+        sb.append(t.t);
+        if (t.subterms.size() > 0) {
+            sb.append('(');
+            for (int i = 0; i < t.subterms.size(); i++) {
+                if (i > 0)
+                    sb.append(',');
+                variantString(t.subterms.get(i),vars,sb);
+            }
+            sb.append(')');
+        }
+    }
+
     /** ***************************************************************
      * Remove duplicated literals from clause.
      */
@@ -474,6 +566,25 @@ public class Clause {
         literals = res;
     }
 
+    /** ***************************************************************
+     * Mark the literals that resolution and factoring may use. If the
+     * selection function picks a negative literal, that is the only
+     * one. Otherwise these are the literals that are maximal in the
+     * ordering, or all literals if the ordering is null.
+     */
+    public void selectInferenceLits(TermOrdering ordering, String selection) {
+
+        int selected = LiteralSelection.select(this,selection);
+        for (int i = 0; i < literals.size(); i++) {
+            boolean val = true;
+            if (selected > -1)
+                val = i == selected;
+            else if (ordering != null)
+                val = ordering.isMaximal(this,i);
+            literals.get(i).setInferenceLit(val);
+        }
+    }
+
     /** ***************************************************************
      * Check if a clause is a simple tautology, i.e. if it contains
      * two literals with the same atom, but different signs.
@@ -556,6 +667,15 @@ public class Clause {
             System.out.println("c6 normalized: " + c6.normalizeVarCopy());
             System.out.println("c7: " + c7);
             System.out.println("c7 normalized: " + c7.normalizeVarCopy());
+            assert c7.variantString().equals(c6.variantString());
+            assert !c5.variantString().equals(c6.variantString());
+            System.out.println("c7 variant string: " + c7.variantString());
+            Clause c8 = Clause.string2Clause("cnf(c8,axiom,q(Y)|~p(X,Y)|r(X)).");
+            Clause c9 = Clause.string2Clause("cnf(c9,axiom,~p(U,V)|r(U)|q(V)).");
+            Clause c10 = Clause.string2Clause("cnf(c10,axiom,~p(U,V)|r(V)|q(U)).");
+            assert c8.fingerprint().equals(c9.fingerprint());
+            assert !c8.fingerprint().equals(c10.fingerprint());
+            System.out.println("c8 fingerprint: " + c8.fingerprint());
     }
     
     /** ***************************************************************
@@ -0,0 +1,404 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    An on-disk cache of clausified include files. The first time an
+    axiom file is included, its clauses are written in a compact binary
+    format to cacheDir, under a key made from the canonical path, size
+    and modification time of the file. Later runs map the cache file
+    and rebuild the clauses from it without lexing, parsing or
+    clausifying anything.
+
+    The format is a symbol table followed by the chunks of
+    ParallelLoader:
+
+    magic, version, path, size, mtime
+    #symbols, symbol strings
+    #chunks, then per chunk:
+      include flag. If set, the text of the include() statement.
+      Otherwise the RunContext counters used by the chunk, its SZS
+      status and #clauses, then per clause:
+        name, type, rationale, #support, support strings
+        #input symbols, symbol IDs (-1 for an input clause)
+        #literals, then per literal: negated flag, #term nodes, then
+        the nodes of the atom in prefix order as (symbol ID, arity)
+
+    Clauses are handed to ParallelLoader.merge() as on a normal load,
+    so generated Skolem symbols and clause names are renumbered to
+    follow the current RunContext. Equality axioms depend on the
+    signature of the whole problem, so they are still generated per
+    problem.
+*/
+
+package atp;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
+
+public class ClauseCache {
+
+    public static final int MAGIC = 0x4a524343;  // "JRCC"
+    public static final int VERSION = 1;
+
+    // The cache directory, or null if caching is off
+    public static String cacheDir = null;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** ***************************************************************
+     * Return the cache file for a TPTP file.
+     */
+    public static File cacheFile(File f) throws IOException {
+
+        String path = f.getCanonicalPath();
+        String key = Integer.toHexString(path.hashCode()) + "_" + f.length() + "_" + f.lastModified();
+        return new File(cacheDir,f.getName() + "_" + key + ".jrc");
+    }
+
+    /** ***************************************************************
+     * Return the clauses of a TPTP file, from the cache if possible.
+     * Otherwise clausify the file and add it to the cache. timeout is
+     * in seconds.
+     */
+    public static ClauseSet load(String filename, int timeout) throws IOException {
+
+        File f = new File(filename);
+        File cf = cacheFile(f);
+        ArrayList<ParallelLoader.Chunk> chunks = null;
+        if (cf.exists()) {
+            chunks = read(cf,f);
+            if (chunks != null)
+                System.out.println("# INFO in ClauseCache.load(): read " + filename + " from cache " + cf);
+        }
+        if (chunks == null) {
+            chunks = ParallelLoader.clausifyChunks(filename,timeout);
+            if (chunks == null)
+                return null;
+            if (!failed(chunks))
+                write(chunks,f,cf);
+        }
+        return ParallelLoader.merge(chunks,filename,timeout);
+    }
+
+    /** ***************************************************************
+     */
+    private static boolean failed(ArrayList<ParallelLoader.Chunk> chunks) {
+
+        for (int i = 0; i < chunks.size(); i++)
+            if (chunks.get(i).failed)
+                return true;
+        return false;
+    }
+
+    /** ***************************************************************
+     * Symbol table under construction.
+     */
+    private static class SymbolTable {
+
+        public HashMap<String,Integer> ids = new HashMap<String,Integer>();
+        public ArrayList<String> names = new ArrayList<String>();
+
+        public int id(String s) {
+
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = Integer.valueOf(names.size());
+                ids.put(s,id);
+                names.add(s);
+            }
+            return id.intValue();
+        }
+    }
+
+    /** ***************************************************************
+     * Add the nodes of t in prefix order as (symbol ID, arity) pairs.
+     */
+    private static void flatten(Term t, SymbolTable syms, ArrayList<Integer> nodes) {
+
+        nodes.add(Integer.valueOf(syms.id(t.t)));
+        nodes.add(Integer.valueOf(t.subterms.size()));
+        for (int i = 0; i < t.subterms.size(); i++)
+            flatten(t.subterms.get(i),syms,nodes);
+    }
+
+    /** ***************************************************************
+     * Collect the symbols of t that are in inputNames.
+     */
+    private static void inputSymbols(Term t, HashSet<String> inputNames, SymbolTable syms,
+                                     TreeSet<Integer> result) {
+
+        if (inputNames.contains(t.t))
+            result.add(Integer.valueOf(syms.id(t.t)));
+        for (int i = 0; i < t.subterms.size(); i++)
+            inputSymbols(t.subterms.get(i),inputNames,syms,result);
+    }
+
+    /** ***************************************************************
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+
+        byte[] b = s.getBytes(UTF8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    /** ***************************************************************
+     */
+    private static String readString(ByteBuffer buf) {
+
+        byte[] b = new byte[buf.getInt()];
+        buf.get(b);
+        return new String(b,UTF8);
+    }
+
+    /** ***************************************************************
+     * Write the clausified chunks of file f to the cache file cf. The
+     * data is first written to a temporary file that is then renamed,
+     * so that concurrent runs never see a partial cache file.
+     */
+    public static void write(ArrayList<ParallelLoader.Chunk> chunks, File f, File cf) {
+
+        SymbolTable syms = new SymbolTable();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        try {
+            out.writeInt(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                ParallelLoader.Chunk chunk = chunks.get(i);
+                out.writeBoolean(chunk.isInclude);
+                if (chunk.isInclude) {
+                    writeString(out,chunk.text);
+                    continue;
+                }
+                out.writeInt(chunk.context.clausifierVarCounter);
+                out.writeInt(chunk.context.freshVarCounter);
+                out.writeInt(chunk.context.axiomCounter);
+                out.writeInt(chunk.context.formulaIdCounter);
+                writeString(out,chunk.SZS);
+                out.writeInt(chunk.clauses.size());
+                for (int j = 0; j < chunk.clauses.size(); j++) {
+                    Clause c = chunk.clauses.get(j);
+                    writeString(out,c.name);
+                    writeString(out,c.type);
+                    writeString(out,c.rationale);
+                    out.writeInt(c.support.size());
+                    for (int k = 0; k < c.support.size(); k++)
+                        writeString(out,c.support.get(k));
+                    HashSet<String> inputNames = chunk.inputNames.get(j);
+                    if (inputNames == null)
+                        out.writeInt(-1);
+                    else {
+                        TreeSet<Integer> ids = new TreeSet<Integer>();
+                        for (int k = 0; k < c.literals.size(); k++)
+                            inputSymbols(c.literals.get(k).atom,inputNames,syms,ids);
+                        out.writeInt(ids.size());
+                        Iterator<Integer> it = ids.iterator();
+                        while (it.hasNext())
+                            out.writeInt(it.next().intValue());
+                    }
+                    out.writeInt(c.literals.size());
+                    for (int k = 0; k < c.literals.size(); k++) {
+                        Literal l = c.literals.get(k);
+                        ArrayList<Integer> nodes = new ArrayList<Integer>();
+                        flatten(l.atom,syms,nodes);
+                        out.writeBoolean(l.negated);
+                        out.writeInt(nodes.size() / 2);
+                        for (int m = 0; m < nodes.size(); m++)
+                            out.writeInt(nodes.get(m).intValue());
+                    }
+                }
+            }
+            out.flush();
+
+            File dir = new File(cacheDir);
+            dir.mkdirs();
+            File tmp = File.createTempFile(cf.getName(),".tmp",dir);
+            DataOutputStream fout = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                fout.writeInt(MAGIC);
+                fout.writeInt(VERSION);
+                writeString(fout,f.getCanonicalPath());
+                fout.writeLong(f.length());
+                fout.writeLong(f.lastModified());
+                fout.writeInt(syms.names.size());
+                for (int i = 0; i < syms.names.size(); i++)
+                    writeString(fout,syms.names.get(i));
+                body.writeTo(fout);
+            }
+            finally {
+                fout.close();
+            }
+            if (!tmp.renameTo(cf))
+                tmp.delete();
+        }
+        catch (IOException e) {
+            System.out.println("# Error in ClauseCache.write(): " + e.getMessage());
+        }
+    }
+
+    /** ***************************************************************
+     * Rebuild a term from its nodes at the current buffer position.
+     */
+    private static Term unflatten(ByteBuffer buf, String[] syms) {
+
+        Term t = new Term();
+        t.t = syms[buf.getInt()];
+        int arity = buf.getInt();
+        for (int i = 0; i < arity; i++)
+            t.subterms.add(unflatten(buf,syms));
+        return t;
+    }
+
+    /** ***************************************************************
+     * Read the chunks of file f from the cache file cf with a single
+     * mapped read. Return null if the cache file does not belong to
+     * f or cannot be read.
+     */
+    public static ArrayList<ParallelLoader.Chunk> read(File cf, File f) {
+
+        try {
+            FileInputStream in = new FileInputStream(cf);
+            ByteBuffer buf = null;
+            try {
+                FileChannel channel = in.getChannel();
+                buf = channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+            }
+            finally {
+                in.close();
+            }
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION)
+                return null;
+            if (!readString(buf).equals(f.getCanonicalPath()) ||
+                buf.getLong() != f.length() || buf.getLong() != f.lastModified())
+                return null;
+            String[] syms = new String[buf.getInt()];
+            for (int i = 0; i < syms.length; i++)
+                syms[i] = readString(buf);
+            ArrayList<ParallelLoader.Chunk> result = new ArrayList<ParallelLoader.Chunk>();
+            int numChunks = buf.getInt();
+            for (int i = 0; i < numChunks; i++) {
+                ParallelLoader.Chunk chunk = new ParallelLoader.Chunk();
+                result.add(chunk);
+                chunk.isInclude = buf.get() != 0;
+                if (chunk.isInclude) {
+                    chunk.text = readString(buf);
+                    continue;
+                }
+                chunk.context.clausifierVarCounter = buf.getInt();
+                chunk.context.freshVarCounter = buf.getInt();
+                chunk.context.axiomCounter = buf.getInt();
+                chunk.context.formulaIdCounter = buf.getInt();
+                chunk.SZS = readString(buf);
+                int numClauses = buf.getInt();
+                for (int j = 0; j < numClauses; j++) {
+                    Clause c = new Clause();
+                    c.name = readString(buf);
+                    c.type = readString(buf);
+                    c.rationale = readString(buf);
+                    int numSupport = buf.getInt();
+                    for (int k = 0; k < numSupport; k++)
+                        c.support.add(readString(buf));
+                    int numInput = buf.getInt();
+                    HashSet<String> inputNames = null;
+                    if (numInput >= 0) {
+                        inputNames = new HashSet<String>();
+                        for (int k = 0; k < numInput; k++)
+                            inputNames.add(syms[buf.getInt()]);
+                    }
+                    int numLits = buf.getInt();
+                    for (int k = 0; k < numLits; k++) {
+                        Literal l = new Literal();
+                        l.negated = buf.get() != 0;
+                        buf.getInt();  // number of nodes
+                        l.atom = unflatten(buf,syms);
+                        c.literals.add(l);
+                    }
+                    chunk.clauses.add(c);
+                    chunk.inputNames.add(inputNames);
+                }
+            }
+            return result;
+        }
+        catch (IOException e) {
+            System.out.println("# Error in ClauseCache.read(): " + e.getMessage());
+            return null;
+        }
+        catch (BufferUnderflowException e) {
+            System.out.println("# Error in ClauseCache.read(): truncated cache file " + cf);
+            return null;
+        }
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     * Load a file without cache, then twice through the cache, and
+     * compare the results.
+     */
+    public static void testCache(String filename) {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in ClauseCache.testCache(): all should be true");
+        String savedDir = cacheDir;
+        try {
+            File dir = File.createTempFile("jrcache","");
+            dir.delete();
+            cacheDir = dir.getPath();
+            RunContext.reset();
+            ClauseSet plain = ParallelLoader.load(filename,10000);
+            RunContext.reset();
+            ClauseSet first = load(filename,10000);
+            System.out.println(cacheFile(new File(filename)).exists());
+            RunContext.reset();
+            long t1 = System.currentTimeMillis();
+            ClauseSet cached = load(filename,10000);
+            long t2 = System.currentTimeMillis();
+            System.out.println(plain.length() == first.length() && plain.length() == cached.length());
+            System.out.println(plain.SZS.equals(cached.SZS));
+            boolean same = true;
+            for (int i = 0; i < plain.length(); i++)
+                if (!plain.get(i).toString().equals(cached.get(i).toString()) ||
+                    !plain.get(i).type.equals(cached.get(i).type)) {
+                    System.out.println("Expected " + plain.get(i) + " found " + cached.get(i));
+                    same = false;
+                }
+            System.out.println(same);
+            System.out.println("# read from cache in " + (t2 - t1) + " ms");
+            cacheFile(new File(filename)).delete();
+            dir.delete();
+        }
+        catch (Exception e) {
+            System.out.println(e.getMessage());
+            e.printStackTrace();
+        }
+        cacheDir = savedDir;
+    }
+
+    /** ***************************************************************
+     * Test method for this class, with the given problem file or by
+     * default with problems/puz_agatha.p.
+     */
+    public static void main(String[] args) {
+
+        if (args.length > 0)
+            testCache(args[0]);
+        else
+            testCache("problems/puz_agatha.p");
+    }
+}
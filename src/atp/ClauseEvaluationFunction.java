@@ -61,6 +61,26 @@ public abstract class ClauseEvaluationFunction {
         return 0;
     }       
         
+    /** ***************************************************************
+     * Return a new instance of the function with the same parameters
+     * and without any state from previous calls.
+     */
+    public ClauseEvaluationFunction freshCopy() {
+
+        assert false : "Virtual base class is not callable";
+        return null;
+    }
+
+    /** ***************************************************************
+     * Return a queue that orders clauses by this function, which is
+     * the one at the given index of an EvalStructure. Subclasses whose
+     * values allow it return a faster queue than a heap.
+     */
+    public ClauseQueue createQueue(int index) {
+
+        return new ClauseQueue.Heap(index);
+    }
+        
     /** ***************************************************************
      * ************ Define Strategies *****************
      */
@@ -0,0 +1,242 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    Queues of the clauses of a HeuristicClauseSet, ordered by one of
+    its evaluation functions and then by age. Each evaluation function
+    chooses the queue that suits its values (see
+    ClauseEvaluationFunction.createQueue()):
+
+    - Age is a plain deque for evaluations that grow with every clause,
+      like FIFOEvaluation, so that adding and extracting are O(1).
+    - Buckets keeps one deque per integer evaluation and a pointer to
+      the lowest nonempty one, for small nonnegative values like the
+      weights of SymbolCountEvaluation. Adding is O(1), and extracting
+      is O(1) apart from moving the pointer up over empty buckets.
+    - Heap is a binary heap for any other evaluation.
+
+    An entry that has been extracted through one queue stays in the
+    others, marked as removed, and is discarded when it reaches their
+    front.
+*/
+
+package atp;
+
+import java.util.*;
+
+public abstract class ClauseQueue {
+
+    /** ***************************************************************
+     * Add the entry. Entries must be added in the order of their
+     * sequence numbers.
+     */
+    public abstract void add(HeuristicClauseSet.Entry e);
+
+    /** ***************************************************************
+     * Return the best entry that has not been removed, or null if
+     * there is none.
+     */
+    public abstract HeuristicClauseSet.Entry peek();
+
+    /** ***************************************************************
+     * Remove and return the best entry that has not been removed, or
+     * null if there is none.
+     */
+    public abstract HeuristicClauseSet.Entry poll();
+
+    /** ***************************************************************
+     * Entries in the order in which they were added.
+     */
+    public static class Age extends ClauseQueue {
+
+        private ArrayDeque<HeuristicClauseSet.Entry> deque = new ArrayDeque<HeuristicClauseSet.Entry>();
+
+        public void add(HeuristicClauseSet.Entry e) {
+
+            deque.addLast(e);
+        }
+
+        public HeuristicClauseSet.Entry peek() {
+
+            HeuristicClauseSet.Entry e = deque.peekFirst();
+            while (e != null && e.removed) {
+                deque.pollFirst();
+                e = deque.peekFirst();
+            }
+            return e;
+        }
+
+        public HeuristicClauseSet.Entry poll() {
+
+            HeuristicClauseSet.Entry e = peek();
+            if (e != null)
+                deque.pollFirst();
+            return e;
+        }
+    }
+
+    /** ***************************************************************
+     * Entries in buckets by the evaluation of one heuristic. Negative
+     * evaluations share bucket 0.
+     */
+    public static class Buckets extends ClauseQueue {
+
+        private int heuristic_index = 0;
+        private ArrayList<ArrayDeque<HeuristicClauseSet.Entry>> buckets =
+            new ArrayList<ArrayDeque<HeuristicClauseSet.Entry>>();
+        private int min = 0;  // no nonempty bucket below this one
+
+        public Buckets(int index) {
+
+            heuristic_index = index;
+        }
+
+        public void add(HeuristicClauseSet.Entry e) {
+
+            int val = Math.max(0,e.clause.evaluation.get(heuristic_index).intValue());
+            while (buckets.size() <= val)
+                buckets.add(new ArrayDeque<HeuristicClauseSet.Entry>());
+            buckets.get(val).addLast(e);
+            if (val < min)
+                min = val;
+        }
+
+        public HeuristicClauseSet.Entry peek() {
+
+            while (min < buckets.size()) {
+                ArrayDeque<HeuristicClauseSet.Entry> bucket = buckets.get(min);
+                HeuristicClauseSet.Entry e = bucket.peekFirst();
+                while (e != null && e.removed) {
+                    bucket.pollFirst();
+                    e = bucket.peekFirst();
+                }
+                if (e != null)
+                    return e;
+                min++;
+            }
+            return null;
+        }
+
+        public HeuristicClauseSet.Entry poll() {
+
+            HeuristicClauseSet.Entry e = peek();
+            if (e != null)
+                buckets.get(min).pollFirst();
+            return e;
+        }
+    }
+
+    /** ***************************************************************
+     * Entries in a binary heap by the evaluation of one heuristic.
+     */
+    public static class Heap extends ClauseQueue {
+
+        private PriorityQueue<HeuristicClauseSet.Entry> heap = null;
+
+        public Heap(final int index) {
+
+            heap = new PriorityQueue<HeuristicClauseSet.Entry>(11,new Comparator<HeuristicClauseSet.Entry>() {
+                public int compare(HeuristicClauseSet.Entry e1, HeuristicClauseSet.Entry e2) {
+                    int v1 = e1.clause.evaluation.get(index).intValue();
+                    int v2 = e2.clause.evaluation.get(index).intValue();
+                    if (v1 != v2)
+                        return v1 < v2 ? -1 : 1;
+                    if (e1.seq != e2.seq)
+                        return e1.seq < e2.seq ? -1 : 1;
+                    return 0;
+                }
+            });
+        }
+
+        public void add(HeuristicClauseSet.Entry e) {
+
+            heap.add(e);
+        }
+
+        public HeuristicClauseSet.Entry peek() {
+
+            HeuristicClauseSet.Entry e = heap.peek();
+            while (e != null && e.removed) {
+                heap.poll();
+                e = heap.peek();
+            }
+            return e;
+        }
+
+        public HeuristicClauseSet.Entry poll() {
+
+            HeuristicClauseSet.Entry e = peek();
+            if (e != null)
+                heap.poll();
+            return e;
+        }
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     */
+    public static void testClauseQueues() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in ClauseQueue.testClauseQueues(): all should be true");
+        Random rand = new Random(17);
+        ClauseQueue buckets = new Buckets(0);
+        ClauseQueue heap = new Heap(0);
+        ClauseQueue age = new Age();
+        ArrayList<HeuristicClauseSet.Entry> all = new ArrayList<HeuristicClauseSet.Entry>();
+        for (int i = 0; i < 1000; i++) {
+            HeuristicClauseSet.Entry e = new HeuristicClauseSet.Entry();
+            e.clause = new Clause();
+            ArrayList<Integer> evals = new ArrayList<Integer>();
+            evals.add(Integer.valueOf(rand.nextInt(40)));
+            e.clause.addEval(evals);
+            e.seq = i;
+            all.add(e);
+            buckets.add(e);
+            heap.add(e);
+            age.add(e);
+        }
+        boolean same = true;
+        boolean ordered = true;
+        long lastSeq = -1;
+        for (int i = 0; i < all.size(); i++) {
+            // extract through all three queues in turn, as a set does
+            HeuristicClauseSet.Entry e;
+            if (i % 3 == 0) {
+                e = age.poll();
+                ordered = ordered && e.seq > lastSeq;
+                lastSeq = e.seq;
+            }
+            else {
+                e = buckets.poll();
+                same = same && e == heap.poll();
+            }
+            e.removed = true;
+        }
+        System.out.println(same);
+        System.out.println(ordered);
+        System.out.println(buckets.poll() == null && heap.poll() == null && age.poll() == null);
+    }
+
+    /** ***************************************************************
+     * Test method for this class.
+     */
+    public static void main(String[] args) {
+
+        testClauseQueues();
+    }
+}
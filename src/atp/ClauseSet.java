@@ -201,6 +201,25 @@ public class ClauseSet {
         }
     }
         
+    /** ***************************************************************
+     * Return a list of clauses that includes at least all clauses of
+     * the set that may subsume clause. As for getResolutionLiterals(),
+     * the naive implementation simply returns all clauses.
+     */ 
+    public ArrayList<Clause> getSubsumingCandidates(Clause clause) {
+
+        return clauses;
+    }
+
+    /** ***************************************************************
+     * Return a list of clauses that includes at least all clauses of
+     * the set that may be subsumed by clause.
+     */ 
+    public ArrayList<Clause> getSubsumedCandidates(Clause clause) {
+
+        return clauses;
+    }
+        
     /** ***************************************************************
      * Parse a sequence of clauses from st and add them to the
      * set. Return number of clauses parsed.
@@ -209,10 +228,10 @@ public class ClauseSet {
 
         int count = 0;
         while (lex.type != Lexer.EOFToken) {
-            Clause clause = new Clause();
+            Clause clause = null;
             try {
-                Clause c = clause.parse(lex);
-                if (c == null)
+                clause = Clause.parse(lex);
+                if (clause == null)
                     return 0;
             }
             catch (Exception e) {
@@ -222,8 +241,10 @@ public class ClauseSet {
                 return 0;
             }
 
-            if (clause.literals.size() > 0)
+            if (clause.literals.size() > 0) {
                 add(clause);
+                count++;
+            }
         }
         return count;
     }
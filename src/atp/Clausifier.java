@@ -25,9 +25,8 @@ import java.util.*;
 
 public class Clausifier {
 
-    public static int varCounter = 0;
-    public static int skolemCounter = 0;
-    public static int axiomCounter = 0;
+    // Counters for fresh variables, Skolem functions and clause names
+    // are kept in RunContext, so that clausification is thread safe.
     public static String typePrefix = "axiom";
     
     /** ***************************************************************
@@ -242,7 +241,7 @@ public class Clausifier {
      */
     private static Term generateNewVar() {
         
-        return Term.string2Term("VAR" + Integer.toString(varCounter++));
+        return Term.string2Term("VAR" + Integer.toString(RunContext.get().clausifierVarCounter++));
     }
     
     /** ***************************************************************
@@ -375,29 +374,27 @@ public class Clausifier {
             result.child1 = moveQuantifiersLeftIterate(form.child1);
         if (result.child2 != null && BareFormula.isQuantifier(result.child2.op) &&
             result.child1 != null && BareFormula.isQuantifier(result.child1.op)) {
-            changed = true;
+            RunContext.get().clausifierChanged = true;
             return moveQuantBothChildren(result);        
         }
         if (result.child2 != null && BareFormula.isQuantifier(result.child2.op)) {
-            changed = true;
+            RunContext.get().clausifierChanged = true;
             return moveQuantRightChild(result);      
         }
         if (result.child1 != null && BareFormula.isQuantifier(result.child1.op)) {
-            changed = true;
+            RunContext.get().clausifierChanged = true;
             return moveQuantLeftChild(result);             
         }
         return result;
     }    
 
-    private static boolean changed = true;
-    
     /** ***************************************************************
      */
     private static BareFormula moveQuantifiersLeft(BareFormula form) {
         
         BareFormula result = form.deepCopy();
-        while (changed) {
-            changed = false;
+        while (RunContext.get().clausifierChanged) {
+            RunContext.get().clausifierChanged = false;
             result = moveQuantifiersLeftIterate(result);
         }
         return result;
@@ -416,9 +413,9 @@ public class Clausifier {
                 argList.append(",");
         }
         if (argList.length() > 0)
-            return Term.string2Term("skf" + Integer.toString(varCounter++) + "(" + argList + ")");
+            return Term.string2Term("skf" + Integer.toString(RunContext.get().clausifierVarCounter++) + "(" + argList + ")");
         else
-            return Term.string2Term("skf" + Integer.toString(varCounter++));
+            return Term.string2Term("skf" + Integer.toString(RunContext.get().clausifierVarCounter++));
     }
     
     /** ***************************************************************
@@ -520,7 +517,7 @@ public class Clausifier {
                     newChild2.lit2 = result.lit2;
                 newParent.child1 = newChild1;
                 newParent.child2 = newChild2;
-                changed = true;
+                RunContext.get().clausifierChanged = true;
                 //System.out.println("INFO in Clausifier.distributeAndOverOrRecurse(): result: " + KIF.format(newParent.toKIFString()));
                 return newParent;
             }
@@ -550,7 +547,7 @@ public class Clausifier {
                     newChild2.lit2 = result.lit1;
                 newParent.child1 = newChild1;
                 newParent.child2 = newChild2;
-                changed = true;
+                RunContext.get().clausifierChanged = true;
                 //System.out.println("INFO in Clausifier.distributeAndOverOrRecurse(): result: " + KIF.format(newParent.toKIFString()));
                 return newParent;
             }   
@@ -563,9 +560,9 @@ public class Clausifier {
     private static BareFormula distributeAndOverOr(BareFormula form) {
         
         BareFormula result = form.deepCopy();
-        changed = true;
-        while (changed) {
-            changed = false;
+        RunContext.get().clausifierChanged = true;
+        while (RunContext.get().clausifierChanged) {
+            RunContext.get().clausifierChanged = false;
             result = distributeAndOverOrRecurse(result);
         }
         return result;
@@ -610,14 +607,14 @@ public class Clausifier {
 
     /** ***************************************************************
      */
-    private static ArrayList<Clause> flattenAll(ArrayList<BareFormula> forms) {
+    private static ArrayList<Clause> flattenAll(ArrayList<BareFormula> forms, String type) {
         
         ArrayList<Clause> result = new ArrayList<Clause>();
         for (int i = 0; i < forms.size(); i++) {
             BareFormula form = forms.get(i);
             Clause c = flatten(form);
-            c.name = "cnf" + Integer.toString(axiomCounter++);
-            c.type = typePrefix;
+            c.name = "cnf" + Integer.toString(RunContext.get().axiomCounter++);
+            c.type = type;
             result.add(c);
         }
         return result;
@@ -626,6 +623,14 @@ public class Clausifier {
     /** ***************************************************************
      */
     public static ArrayList<Clause> clausify(BareFormula bf) {
+
+        return clausify(bf,typePrefix);
+    }
+
+    /** ***************************************************************
+     * Clausify bf, giving all resulting clauses the given type.
+     */
+    public static ArrayList<Clause> clausify(BareFormula bf, String type) {
     
         BareFormula result = bf.deepCopy();
         BareFormula newresult = SmallCNFization.formulaOpSimplify(result);
@@ -639,7 +644,7 @@ public class Clausifier {
         result = removeUQuant(result);
         result = distributeAndOverOr(result);
         ArrayList<BareFormula> forms = separateConjunctions(result);
-        ArrayList<Clause> clauses = flattenAll(forms);
+        ArrayList<Clause> clauses = flattenAll(forms,type);
         return clauses;
     }
     
@@ -648,7 +653,7 @@ public class Clausifier {
     public static ArrayList<Clause> clausify(Formula f) {
     
         typePrefix = f.type;        
-        return clausify(f.form);
+        return clausify(f.form,f.type);
     }
 
     /** ***************************************************************
@@ -892,7 +897,7 @@ public class Clausifier {
         System.out.println("after separation: " + forms);
         System.out.println(KIF.format(form.toKIFString()));
         System.out.println();
-        ArrayList<Clause> clauses = flattenAll(forms);
+        ArrayList<Clause> clauses = flattenAll(forms,typePrefix);
         System.out.println("after flattening: " + clauses);
         System.out.println();
     }
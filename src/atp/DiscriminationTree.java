@@ -0,0 +1,325 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    A non-perfect discrimination tree over literals. Each literal is
+    filed under its sign and predicate symbol, and then along the
+    pre-order traversal of the arguments of its atom, where every
+    variable is represented by the same wildcard symbol "*".
+
+    "p(f(X),a)" -> p/2 : [f/1, *, a/0]
+
+    Retrieval returns a superset of the literals whose atoms unify with
+    the atom of the query literal, so callers still need to compute the
+    actual unifier.
+*/
+
+package atp;
+
+import java.util.*;
+
+public class DiscriminationTree {
+
+    public static final String Wildcard = "*";
+
+    /** ***************************************************************
+     * A (clause, literal-index) pair stored at the leaves of the tree.
+     * The sequence number records the order in which clauses were
+     * inserted so that results can be returned in that order.
+     */
+    public class Entry {
+        public Clause clause = null;
+        public int index = 0;
+        public int seq = 0;
+    }
+
+    /** ***************************************************************
+     */
+    public class Node {
+        int arity = 0;   // arity of the symbol on the edge leading to this node
+        HashMap<String,Node> children = new HashMap<String,Node>();
+        ArrayList<Entry> entries = new ArrayList<Entry>();
+    }
+
+    // One tree per signed predicate symbol, e.g. "~p/2"
+    public HashMap<String,Node> roots = new HashMap<String,Node>();
+    public int size = 0;
+
+    /** ***************************************************************
+     */
+    private static String rootKey(boolean negated, Term atom) {
+
+        if (negated)
+            return "~" + atom.getFunc() + "/" + atom.subterms.size();
+        else
+            return atom.getFunc() + "/" + atom.subterms.size();
+    }
+
+    /** ***************************************************************
+     */
+    private static String symbolKey(Term t) {
+
+        if (t.isVar())
+            return Wildcard;
+        return t.getFunc() + "/" + t.subterms.size();
+    }
+
+    /** ***************************************************************
+     * Append the pre-order traversal of t to result.
+     */
+    private static void flatten(Term t, ArrayList<Term> result) {
+
+        result.add(t);
+        if (!t.isVar())
+            for (int i = 0; i < t.subterms.size(); i++)
+                flatten(t.subterms.get(i), result);
+    }
+
+    /** ***************************************************************
+     * Return the pre-order traversal of all arguments of the atom.
+     */
+    private static ArrayList<Term> flattenArgs(Term atom) {
+
+        ArrayList<Term> result = new ArrayList<Term>();
+        for (int i = 0; i < atom.subterms.size(); i++)
+            flatten(atom.subterms.get(i), result);
+        return result;
+    }
+
+    /** ***************************************************************
+     * Add literal number index of clause to the tree.
+     */
+    public void insert(Clause clause, int index, int seq) {
+
+        Literal lit = clause.getLiteral(index);
+        String key = rootKey(lit.isNegative(), lit.atom);
+        Node node = roots.get(key);
+        if (node == null) {
+            node = new Node();
+            roots.put(key,node);
+        }
+        ArrayList<Term> flat = flattenArgs(lit.atom);
+        for (int i = 0; i < flat.size(); i++) {
+            Term t = flat.get(i);
+            String sym = symbolKey(t);
+            Node child = node.children.get(sym);
+            if (child == null) {
+                child = new Node();
+                if (!t.isVar())
+                    child.arity = t.subterms.size();
+                node.children.put(sym,child);
+            }
+            node = child;
+        }
+        Entry e = new Entry();
+        e.clause = clause;
+        e.index = index;
+        e.seq = seq;
+        node.entries.add(e);
+        size++;
+    }
+
+    /** ***************************************************************
+     * Add all literals of the clause to the tree.
+     */
+    public void insert(Clause clause, int seq) {
+
+        for (int i = 0; i < clause.length(); i++)
+            insert(clause,i,seq);
+    }
+
+    /** ***************************************************************
+     * Remove the entry for literal number index of this very clause
+     * object (not any clause that is merely equal to it). Branches that
+     * become empty are pruned.
+     */
+    public void remove(Clause clause, int index) {
+
+        Literal lit = clause.getLiteral(index);
+        String key = rootKey(lit.isNegative(), lit.atom);
+        Node root = roots.get(key);
+        if (root == null)
+            return;
+        ArrayList<Term> flat = flattenArgs(lit.atom);
+        ArrayList<Node> path = new ArrayList<Node>();
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < flat.size(); i++) {
+            node = node.children.get(symbolKey(flat.get(i)));
+            if (node == null)
+                return;
+            path.add(node);
+        }
+        for (int i = 0; i < node.entries.size(); i++) {
+            Entry e = node.entries.get(i);
+            if (e.clause == clause && e.index == index) {
+                node.entries.remove(i);
+                size--;
+                break;
+            }
+        }
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node n = path.get(i);
+            if (n.entries.size() > 0 || n.children.size() > 0)
+                return;
+            path.get(i-1).children.remove(symbolKey(flat.get(i-1)));
+        }
+        if (root.entries.size() == 0 && root.children.size() == 0)
+            roots.remove(key);
+    }
+
+    /** ***************************************************************
+     * Remove all literals of this clause object from the tree.
+     */
+    public void remove(Clause clause) {
+
+        for (int i = 0; i < clause.length(); i++)
+            remove(clause,i);
+    }
+
+    /** ***************************************************************
+     * Collect all nodes reached from node by skipping over count
+     * complete terms in the tree.
+     */
+    private void skipTerms(Node node, int count, ArrayList<Node> result) {
+
+        if (count == 0) {
+            result.add(node);
+            return;
+        }
+        for (Node child : node.children.values())
+            skipTerms(child, count - 1 + child.arity, result);
+    }
+
+    /** ***************************************************************
+     * Walk the tree along the flattened query term. A variable in the
+     * query matches any complete term in the tree, and a wildcard in the
+     * tree matches any complete subterm of the query.
+     * @param next holds for each query position the position just
+     * after the subterm that starts there.
+     */
+    private void collectUnifiable(Node node, ArrayList<Term> query, int[] next, int pos,
+                                  ArrayList<Entry> result) {
+
+        if (pos == query.size()) {
+            result.addAll(node.entries);
+            return;
+        }
+        Term t = query.get(pos);
+        if (t.isVar()) {
+            ArrayList<Node> nodes = new ArrayList<Node>();
+            skipTerms(node,1,nodes);
+            for (Node n : nodes)
+                collectUnifiable(n,query,next,pos+1,result);
+            return;
+        }
+        Node star = node.children.get(Wildcard);
+        if (star != null)
+            collectUnifiable(star,query,next,next[pos],result);
+        Node child = node.children.get(symbolKey(t));
+        if (child != null)
+            collectUnifiable(child,query,next,pos+1,result);
+    }
+
+    /** ***************************************************************
+     * Compute, for each position in the flattened term list, the
+     * position that follows the subterm starting there.
+     */
+    private static int[] computeNext(ArrayList<Term> flat) {
+
+        int[] next = new int[flat.size()];
+        for (int i = flat.size() - 1; i >= 0; i--) {
+            Term t = flat.get(i);
+            int pos = i + 1;
+            if (!t.isVar())
+                for (int j = 0; j < t.subterms.size(); j++)
+                    pos = next[pos];
+            next[i] = pos;
+        }
+        return next;
+    }
+
+    /** ***************************************************************
+     * Return all entries for literals with the opposite sign and the
+     * same predicate symbol as lit whose atoms may unify with the atom
+     * of lit, ordered by insertion sequence and literal index.
+     */
+    public ArrayList<Entry> getResolutionCandidates(Literal lit) {
+
+        ArrayList<Entry> result = new ArrayList<Entry>();
+        Node root = roots.get(rootKey(!lit.isNegative(), lit.atom));
+        if (root == null)
+            return result;
+        ArrayList<Term> flat = flattenArgs(lit.atom);
+        collectUnifiable(root,flat,computeNext(flat),0,result);
+        Collections.sort(result, new Comparator<Entry>() {
+            public int compare(Entry e1, Entry e2) {
+                if (e1.seq != e2.seq)
+                    return e1.seq < e2.seq ? -1 : 1;
+                return e1.index - e2.index;
+            }
+        });
+        return result;
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     */
+    public static void testRetrieval() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in DiscriminationTree.testRetrieval()");
+        String spec = "cnf(c1,axiom,p(a,X)|q(X)).\n" +
+            "cnf(c2,axiom,p(f(Y),b)).\n" +
+            "cnf(c3,axiom,~p(f(a),Z)).\n" +
+            "cnf(c4,axiom,p(Y,Y)).\n";
+        Lexer lex = new Lexer(spec);
+        ClauseSet cs = new ClauseSet();
+        cs.parse(lex);
+        DiscriminationTree dt = new DiscriminationTree();
+        for (int i = 0; i < cs.length(); i++)
+            dt.insert(cs.get(i),i);
+
+        Literal l1 = Literal.string2lit("~p(f(X),b)");
+        System.out.println("Expected: c2 and c4 actual:");
+        for (Entry e : dt.getResolutionCandidates(l1))
+            System.out.println(e.clause.name + " " + e.index);
+
+        Literal l2 = Literal.string2lit("~p(a,W)");
+        System.out.println("Expected: c1 and c4 actual:");
+        for (Entry e : dt.getResolutionCandidates(l2))
+            System.out.println(e.clause.name + " " + e.index);
+
+        Literal l3 = Literal.string2lit("p(g(X),X)");
+        System.out.println("Expected: c3 is not returned since g/1 != f/1, size: " +
+                dt.getResolutionCandidates(l3).size());
+
+        dt.remove(cs.get(3));
+        System.out.println("Expected: c2 only after removing c4 actual:");
+        for (Entry e : dt.getResolutionCandidates(l1))
+            System.out.println(e.clause.name + " " + e.index);
+        System.out.println("Should be true: " + (dt.size == 4));
+    }
+
+    /** ***************************************************************
+     * Test method for this class.
+     */
+    public static void main(String[] args) {
+
+        testRetrieval();
+    }
+}
@@ -62,7 +62,6 @@ public class EqAxioms {
 	MA  02111-1307 USA 
 	*/
 
-	public static int axCount = 0;
 	
     /** ***************************************************************
      * Return a list with the three axioms describing an equivalence
@@ -127,7 +126,7 @@ public class EqAxioms {
 	    String rterm = f + "(" + generateVarList("Y",arity) + ")";
 	    Literal concl = Literal.string2lit(lterm + "=" + rterm);
 	    Clause c = new Clause();
-	    c.name = "funcompat" + Integer.toString(axCount++);
+	    c.name = "funcompat" + Integer.toString(RunContext.get().eqAxCount++);
 	    c.literals.addAll(res);
 	    c.literals.add(concl);
 	    return c;
@@ -145,7 +144,7 @@ public class EqAxioms {
 	    Literal neg = Literal.string2lit(lterm);
 	    Literal pos = Literal.string2lit(rterm);
 	    Clause c = new Clause();
-	    c.name = "predcompat" + Integer.toString(axCount++);
+	    c.name = "predcompat" + Integer.toString(RunContext.get().eqAxCount++);
 	    c.literals.addAll(res);
 	    c.literals.add(neg);
 	    c.literals.add(pos);
@@ -62,6 +62,21 @@ public class EvalStructure {
         new EvalStructure(evals,ratings);
     }
     
+    /** ***************************************************************
+     * Return a copy of this scheme with fresh evaluation functions and
+     * counters, so that it can be used by a proof search that runs in
+     * parallel with others using this scheme.
+     */
+    public EvalStructure freshCopy() {
+
+        ArrayList<ClauseEvaluationFunction> evals = new ArrayList<ClauseEvaluationFunction>();
+        for (ClauseEvaluationFunction f:eval_funs)
+            evals.add(f.freshCopy());
+        EvalStructure result = new EvalStructure(evals,new ArrayList<Integer>(eval_vec));
+        result.name = name;
+        return result;
+    }
+    
     /** ***************************************************************
      * Return an evaluation of the clause for each evaluation function
      * available.
@@ -76,14 +91,29 @@ public class EvalStructure {
 
     /** ***************************************************************
      * Return the index of the next evaluation function of the scheme.
+     * Each function is used as many times in a row as its rating says
+     * before the next one takes over.
      */
     public int nextEval() {
 
-        current++;
-        if (current >= eval_vec.size())
-            current = 0;
-        current_count = eval_vec.get(current);            
+        if (current_count <= 0) {
+            current++;
+            if (current >= eval_vec.size())
+                current = 0;
+            current_count = eval_vec.get(current).intValue();
+        }
+        current_count--;
         return current;
     }
-}
 
+    /** ***************************************************************
+     * Return the index that the next call of nextEval() will return,
+     * without advancing the schedule.
+     */
+    public int peekEval() {
+
+        if (current_count > 0 || current + 1 >= eval_vec.size())
+            return current_count > 0 ? current : 0;
+        return current + 1;
+    }
+}
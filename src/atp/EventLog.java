@@ -0,0 +1,383 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    A log of proof search events, written to a file as one JSON object
+    per line (JSONL). Every record has a "type" and the millisecond
+    timestamp "ts". ProofState writes a "start" record with the
+    configuration of a run, a "snapshot" of its counters every
+    snapshotInterval given clauses, an "end" record with the result,
+    and, for a sampled fraction of the clauses, "given" and "new"
+    records. All records of a run carry the same "run" number, so that
+    many runs, e.g. of a --batch, can share one log.
+
+    Records are handed to a daemon thread through a bounded queue and
+    written by it, so the prover never waits for the disk. Sampled
+    records are dropped rather than block if the queue is full, and
+    other records if it stays full for timeout milliseconds; the
+    number of dropped records is written on close(). If writing fails,
+    the error is reported on stderr and all further records are
+    dropped, so that neither the prover nor the exit of the JVM can
+    hang on a full queue.
+*/
+
+package atp;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+public class EventLog implements Runnable {
+
+    // The number of records that may wait for the writer
+    public static int capacity = 65536;
+    // Milliseconds to wait for room in the queue, or for the writer on close()
+    public static long timeout = 5000;
+
+    private static final String EOF = "";
+
+    private BlockingQueue<String> queue = null;
+    private Writer out = null;
+    private Thread thread = null;
+    private AtomicLong runs = new AtomicLong();
+    private AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed = false;
+    private volatile boolean failed = false;  // the writer has stopped
+
+    /** ***************************************************************
+     * A JSON object under construction. Keys are given in the order
+     * in which they are to be written.
+     */
+    public static class Record {
+
+        private StringBuffer sb = new StringBuffer();
+
+        /** ***************************************************************
+         */
+        public Record(String type) {
+
+            sb.append("{\"type\":");
+            quote(sb,type);
+            sb.append(",\"ts\":" + System.currentTimeMillis());
+        }
+
+        /** ***************************************************************
+         */
+        public Record add(String key, String value) {
+
+            sb.append(",");
+            quote(sb,key);
+            sb.append(":");
+            if (value == null)
+                sb.append("null");
+            else
+                quote(sb,value);
+            return this;
+        }
+
+        /** ***************************************************************
+         */
+        public Record add(String key, long value) {
+
+            sb.append(",");
+            quote(sb,key);
+            sb.append(":" + value);
+            return this;
+        }
+
+        /** ***************************************************************
+         */
+        public Record add(String key, boolean value) {
+
+            sb.append(",");
+            quote(sb,key);
+            sb.append(":" + value);
+            return this;
+        }
+
+        /** ***************************************************************
+         */
+        public String toString() {
+
+            return sb.toString() + "}";
+        }
+    }
+
+    /** ***************************************************************
+     * Open the file for writing, replacing its content, and start the
+     * writer thread. The log is closed when the JVM exits, if it has
+     * not been closed before.
+     */
+    public EventLog(String filename) throws IOException {
+
+        this(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filename),"UTF-8")));
+    }
+
+    /** ***************************************************************
+     * As above, but write to the given writer.
+     */
+    public EventLog(Writer w) {
+
+        out = w;
+        queue = new ArrayBlockingQueue<String>(capacity);
+        thread = new Thread(this,"atp-eventlog");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            public void run() {
+                close();
+            }
+        });
+    }
+
+    /** ***************************************************************
+     * Append the JSON string form of s to sb.
+     */
+    public static void quote(StringBuffer sb, String s) {
+
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\')
+                sb.append('\\').append(c);
+            else if (c == '\n')
+                sb.append("\\n");
+            else if (c == '\r')
+                sb.append("\\r");
+            else if (c == '\t')
+                sb.append("\\t");
+            else if (c < 0x20)
+                sb.append(String.format("\\u%04x",(int) c));
+            else
+                sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    /** ***************************************************************
+     * Return a new number for a run, unique in this log.
+     */
+    public long nextRun() {
+
+        return runs.incrementAndGet();
+    }
+
+    /** ***************************************************************
+     * Queue a record that should not be lost, waiting up to timeout
+     * milliseconds for room in the queue, and drop it otherwise.
+     */
+    public void log(Record r) {
+
+        if (closed || failed) {
+            dropped.incrementAndGet();
+            return;
+        }
+        try {
+            if (!queue.offer(r.toString(),timeout,TimeUnit.MILLISECONDS))
+                dropped.incrementAndGet();
+        }
+        catch (InterruptedException ie) {
+            dropped.incrementAndGet();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** ***************************************************************
+     * Queue a record if there is room, and otherwise drop it.
+     */
+    public void offer(Record r) {
+
+        if (closed || failed || !queue.offer(r.toString()))
+            dropped.incrementAndGet();
+    }
+
+    /** ***************************************************************
+     * Return the number of records dropped so far.
+     */
+    public long getDropped() {
+
+        return dropped.get();
+    }
+
+    /** ***************************************************************
+     * Return true if the writer has stopped because of an error.
+     */
+    public boolean hasFailed() {
+
+        return failed;
+    }
+
+    /** ***************************************************************
+     * Write all queued records and close the file. Records logged
+     * afterwards are ignored.
+     */
+    public void close() {
+
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+        }
+        if (failed) {
+            // records queued after the writer stopped are lost as well
+            dropped.addAndGet(queue.size());
+            queue.clear();
+            return;
+        }
+        if (dropped.get() > 0)
+            queue.offer(new Record("dropped").add("count",dropped.get()).toString());
+        try {
+            if (queue.offer(EOF,timeout,TimeUnit.MILLISECONDS))
+                thread.join(timeout);
+            if (thread.isAlive())
+                System.err.println("Error in EventLog.close(): writer did not finish, records may be lost");
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** ***************************************************************
+     * Write the queued records, flushing whenever the queue runs empty.
+     */
+    public void run() {
+
+        try {
+            while (true) {
+                String line = queue.take();
+                if (line == EOF)
+                    break;
+                out.write(line);
+                out.write('\n');
+                if (queue.isEmpty())
+                    out.flush();
+            }
+        }
+        catch (InterruptedException ie) {
+            failed = true;
+            System.err.println("Error in EventLog.run(): interrupted");
+        }
+        catch (IOException ioe) {
+            failed = true;
+            System.err.println("Error in EventLog.run(): " + ioe.getMessage());
+        }
+        finally {
+            if (failed) {
+                // whatever is still queued is lost
+                dropped.addAndGet(queue.size());
+                queue.clear();
+            }
+            try {
+                out.close();
+            }
+            catch (IOException ioe) {
+                System.err.println("Error in EventLog.run(): " + ioe.getMessage());
+            }
+        }
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     */
+    public static void testEventLog() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in EventLog.testEventLog(): all should be true");
+        System.out.println(new Record("x").add("s","a\"b\\c\nd").add("n",3).add("b",true).toString()
+                           .endsWith(",\"s\":\"a\\\"b\\\\c\\nd\",\"n\":3,\"b\":true}"));
+        try {
+            File f = File.createTempFile("atp-events",".jsonl");
+            f.deleteOnExit();
+            EventLog log = new EventLog(f.getPath());
+            ClauseEvaluationFunction.setupEvaluationFunctions();
+            ClauseSet cs = Formula.file2clauses("problems/puz_agatha.p",10);
+            ProofState state = new ProofState(cs,ClauseEvaluationFunction.PickGiven5);
+            state.eventLog = log;
+            state.snapshotInterval = 10;
+            state.traceSample = 1.0;
+            state.res = state.saturate(10);
+            log.close();
+            ArrayList<String> lines = new ArrayList<String>();
+            BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(f),"UTF-8"));
+            String line;
+            while ((line = br.readLine()) != null)
+                lines.add(line);
+            br.close();
+            int snapshots = 0;
+            int given = 0;
+            int added = 0;
+            for (String l:lines) {
+                if (l.startsWith("{\"type\":\"snapshot\""))
+                    snapshots++;
+                if (l.startsWith("{\"type\":\"given\""))
+                    given++;
+                if (l.startsWith("{\"type\":\"new\""))
+                    added++;
+            }
+            System.out.println(lines.get(0).startsWith("{\"type\":\"start\""));
+            System.out.println(lines.get(lines.size() - 1).startsWith("{\"type\":\"end\""));
+            System.out.println(lines.get(lines.size() - 1).indexOf("\"status\":\"Theorem\"") > -1);
+            System.out.println(snapshots == state.proc_clause_count / 10);
+            System.out.println(given == state.proc_clause_count + 1);
+            System.out.println(added == state.resolvent_count + state.factor_count);
+        }
+        catch (IOException ioe) {
+            System.out.println("Error in EventLog.testEventLog(): " + ioe.getMessage());
+        }
+    }
+
+    /** ***************************************************************
+     * Test that a log whose writer fails drops its records instead of
+     * blocking the prover or close().
+     */
+    public static void testFailedWriter() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in EventLog.testFailedWriter(): all should be true");
+        int savedCapacity = capacity;
+        long savedTimeout = timeout;
+        capacity = 4;
+        timeout = 100;
+        EventLog log = new EventLog(new Writer() {
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                throw new IOException("disk full");
+            }
+            public void flush() { }
+            public void close() { }
+        });
+        long t = System.currentTimeMillis();
+        for (int i = 0; i < 100; i++)
+            log.log(new Record("start").add("i",i));
+        log.close();
+        t = System.currentTimeMillis() - t;
+        capacity = savedCapacity;
+        timeout = savedTimeout;
+        System.out.println(log.hasFailed());
+        System.out.println(log.getDropped() >= 99);
+        System.out.println(t < 5000);
+    }
+
+    /** ***************************************************************
+     * Test method for this class.
+     */
+    public static void main(String[] args) {
+
+        testEventLog();
+        testFailedWriter();
+    }
+}
@@ -35,5 +35,20 @@ public class FIFOEvaluation extends ClauseEvaluationFunction {
         fifocounter = fifocounter + 1;
         return fifocounter;
     }
-    
+
+    /** ***************************************************************
+     */
+    public ClauseEvaluationFunction freshCopy() {
+
+        return new FIFOEvaluation();
+    }
+
+    /** ***************************************************************
+     * Evaluations grow with every clause, so a deque keeps them in
+     * order.
+     */
+    public ClauseQueue createQueue(int index) {
+
+        return new ClauseQueue.Age();
+    }
 }
@@ -0,0 +1,256 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    Feature vector indexing for subsumption (after Schulz, "Simple and
+    Efficient Clause Subsumption with Feature Vector Indexing").
+
+    Each clause is mapped to a vector of integer features such that, if
+    clause C subsumes clause D, every feature of C is less than or
+    equal to the same feature of D. The features used here are
+
+    - the number of positive and the number of negative literals
+    - for each selected symbol, the number of occurrences in positive
+      and in negative literals, and the maximal depth of an occurrence
+
+    The vectors are stored in a trie. Candidates for forward subsumption
+    are found by only following edges that are not larger than the
+    feature of the query, candidates for backward subsumption by only
+    following edges that are not smaller. Only these candidates need
+    to be checked with the full subsumption test.
+*/
+
+package atp;
+
+import java.util.*;
+
+public class FeatureVectorIndex {
+
+    /** ***************************************************************
+     */
+    public class Node {
+        TreeMap<Integer,Node> children = new TreeMap<Integer,Node>();
+        ArrayList<Clause> clauses = new ArrayList<Clause>();
+    }
+
+    // The maximal number of symbols that get their own features.
+    public static int maxSymbols = 16;
+
+    public ArrayList<String> symbols = new ArrayList<String>();
+    private HashMap<String,Integer> symbolPos = new HashMap<String,Integer>();
+    public Node root = new Node();
+    public int size = 0;
+
+    /** ***************************************************************
+     * Create an index that only uses the literal counts as features.
+     */
+    public FeatureVectorIndex() {
+    }
+
+    /** ***************************************************************
+     * Create an index with features for (at most maxSymbols of) the
+     * predicate and function symbols of sig. Symbols that are not
+     * selected are simply ignored, which is always safe.
+     */
+    public FeatureVectorIndex(Signature sig) {
+
+        ArrayList<String> all = new ArrayList<String>();
+        all.addAll(sig.preds);
+        all.addAll(sig.funs);
+        for (int i = 0; i < all.size() && symbols.size() < maxSymbols; i++) {
+            String s = all.get(i);
+            if (!symbolPos.containsKey(s)) {
+                symbolPos.put(s,Integer.valueOf(symbols.size()));
+                symbols.add(s);
+            }
+        }
+    }
+
+    /** ***************************************************************
+     */
+    private void collectTermFeatures(Term t, int depth, boolean negated, int[] vec) {
+
+        if (t.isVar())
+            return;
+        Integer pos = symbolPos.get(t.getFunc());
+        if (pos != null) {
+            int base = 2 + 3 * pos.intValue();
+            if (negated)
+                vec[base + 1]++;
+            else
+                vec[base]++;
+            if (depth > vec[base + 2])
+                vec[base + 2] = depth;
+        }
+        for (int i = 0; i < t.subterms.size(); i++)
+            collectTermFeatures(t.subterms.get(i),depth + 1,negated,vec);
+    }
+
+    /** ***************************************************************
+     * Compute the feature vector of a clause. Depths are counted from
+     * one for the predicate symbol, so that zero means "no occurrence".
+     */
+    public int[] features(Clause c) {
+
+        int[] vec = new int[2 + 3 * symbols.size()];
+        for (int i = 0; i < c.literals.size(); i++) {
+            Literal l = c.literals.get(i);
+            if (l.isNegative())
+                vec[1]++;
+            else
+                vec[0]++;
+            collectTermFeatures(l.atom,1,l.isNegative(),vec);
+        }
+        return vec;
+    }
+
+    /** ***************************************************************
+     */
+    public void insert(Clause c) {
+
+        int[] vec = features(c);
+        Node node = root;
+        for (int i = 0; i < vec.length; i++) {
+            Integer key = Integer.valueOf(vec[i]);
+            Node child = node.children.get(key);
+            if (child == null) {
+                child = new Node();
+                node.children.put(key,child);
+            }
+            node = child;
+        }
+        node.clauses.add(c);
+        size++;
+    }
+
+    /** ***************************************************************
+     * Remove this very clause object from the index, pruning empty
+     * branches of the trie.
+     */
+    public void remove(Clause c) {
+
+        int[] vec = features(c);
+        Node[] path = new Node[vec.length + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < vec.length; i++) {
+            node = node.children.get(Integer.valueOf(vec[i]));
+            if (node == null)
+                return;
+            path[i+1] = node;
+        }
+        for (int i = 0; i < node.clauses.size(); i++) {
+            if (node.clauses.get(i) == c) {
+                node.clauses.remove(i);
+                size--;
+                break;
+            }
+        }
+        for (int i = vec.length; i > 0; i--) {
+            if (path[i].clauses.size() > 0 || path[i].children.size() > 0)
+                return;
+            path[i-1].children.remove(Integer.valueOf(vec[i-1]));
+        }
+    }
+
+    /** ***************************************************************
+     * @param smaller if true, follow all edges that are not larger than
+     * the query feature, otherwise all edges that are not smaller.
+     */
+    private void collect(Node node, int[] vec, int depth, boolean smaller, ArrayList<Clause> result) {
+
+        if (depth == vec.length) {
+            result.addAll(node.clauses);
+            return;
+        }
+        SortedMap<Integer,Node> range = null;
+        if (smaller)
+            range = node.children.headMap(Integer.valueOf(vec[depth] + 1));
+        else
+            range = node.children.tailMap(Integer.valueOf(vec[depth]));
+        for (Node child : range.values())
+            collect(child,vec,depth + 1,smaller,result);
+    }
+
+    /** ***************************************************************
+     * Return all clauses in the index that may subsume c.
+     */
+    public ArrayList<Clause> getSubsumingCandidates(Clause c) {
+
+        ArrayList<Clause> result = new ArrayList<Clause>();
+        collect(root,features(c),0,true,result);
+        return result;
+    }
+
+    /** ***************************************************************
+     * Return all clauses in the index that may be subsumed by c.
+     */
+    public ArrayList<Clause> getSubsumedCandidates(Clause c) {
+
+        ArrayList<Clause> result = new ArrayList<Clause>();
+        collect(root,features(c),0,false,result);
+        return result;
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     */
+    public static void testCandidates() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in FeatureVectorIndex.testCandidates()");
+        String spec = "cnf(c2,axiom,p(a)).\n" +
+            "cnf(c3,axiom,p(X)).\n" +
+            "cnf(c4,axiom,p(a)|q(f(X))).\n" +
+            "cnf(c5,axiom,p(a)|q(f(b))|p(X)).\n" +
+            "cnf(c6,axiom,~p(a)).\n";
+        Lexer lex = new Lexer(spec);
+        ClauseSet cs = new ClauseSet();
+        cs.parse(lex);
+        Signature sig = new Signature();
+        cs.collectSig(sig);
+        FeatureVectorIndex fvi = new FeatureVectorIndex(sig);
+        for (int i = 0; i < cs.length(); i++)
+            fvi.insert(cs.get(i));
+        System.out.println("Expected: c2 c3 c4 c5 actual: " + names(fvi.getSubsumingCandidates(cs.get(3))));
+        System.out.println("Expected: c3 actual: " + names(fvi.getSubsumingCandidates(cs.get(1))));
+        System.out.println("Expected: c2 c3 c4 c5 actual: " + names(fvi.getSubsumedCandidates(cs.get(1))));
+        System.out.println("Expected: c6 actual: " + names(fvi.getSubsumedCandidates(cs.get(4))));
+        fvi.remove(cs.get(3));
+        System.out.println("Expected: c2 c3 c4 actual: " + names(fvi.getSubsumingCandidates(cs.get(3))));
+        System.out.println("Should be true: " + (fvi.size == 4));
+    }
+
+    /** ***************************************************************
+     */
+    private static String names(ArrayList<Clause> cs) {
+
+        ArrayList<String> result = new ArrayList<String>();
+        for (Clause c : cs)
+            result.add(c.name);
+        Collections.sort(result);
+        return result.toString();
+    }
+
+    /** ***************************************************************
+     * Test method for this class.
+     */
+    public static void main(String[] args) {
+
+        testCandidates();
+    }
+}
@@ -29,8 +29,6 @@ import java.util.*;
  */
 public class Formula {
 
-    // Counter for generating new clause names.
-    public static int formulaIdCounter = 0;
     public BareFormula form = null;
     public String type = "plain";
     public String name = "";
@@ -68,8 +66,9 @@ public class Formula {
         if (!Term.emptyString(n))
             name = n;
         else {
-            name = "f" + Integer.toString(formulaIdCounter);
-            formulaIdCounter++;        
+            RunContext rc = RunContext.get();
+            name = "f" + Integer.toString(rc.formulaIdCounter);
+            rc.formulaIdCounter++;        
         }
     }
 
@@ -142,10 +141,17 @@ public class Formula {
                     filename = includePath + File.separator + name.substring(1,name.length()-1);
                 File f = new File(filename);
                 System.out.println("#INFO in Formula.command2clauses(): start reading file: " + filename);
-                Lexer lex2 = new Lexer(f);
-                lex2.filename = filename;
-                System.out.println();
-                ClauseSet newcs = lexer2clauses(lex2,timeout);
+                ClauseSet newcs = null;
+                if (ClauseCache.cacheDir != null)
+                    newcs = ClauseCache.load(filename,timeout);
+                else if (f.length() >= ParallelLoader.minParallelBytes)
+                    newcs = ParallelLoader.load(filename,timeout);
+                else {
+                    Lexer lex2 = new Lexer(f);
+                    lex2.filename = filename;
+                    System.out.println();
+                    newcs = lexer2clauses(lex2,timeout);
+                }
                 System.out.println("#INFO in Formula.command2clauses(): completed reading file: " + filename);
                 lex.next();
                 if (lex.type != Lexer.ClosePar)
@@ -273,6 +279,8 @@ public class Formula {
         try {
             File fin = new File(filename);
             fr = new FileReader(fin);
+            if (fr != null && fin.length() >= ParallelLoader.minParallelBytes)
+                return ParallelLoader.load(filename,10000);
             if (fr != null && fin.length() > 0) {
                 Lexer lex = new Lexer(fin);
                 lex.filename = filename;
@@ -34,12 +34,37 @@ public class HeuristicClauseSet extends ClauseSet {
     // public ArrayList<Clause> clauses = null; // defined in ClauseSet
     public EvalStructure eval_functions = null;
 
+    /** ***************************************************************
+     * A clause in the set, shared by all queues. An entry that has been
+     * extracted through one heuristic is marked as removed and is
+     * discarded lazily when it reaches the front of the other queues.
+     * The sequence number breaks ties in favour of older clauses, and
+     * pos is the index of the clause in the clauses list.
+     */
+    public static class Entry {
+        public Clause clause = null;
+        public long seq = 0;
+        public int pos = 0;
+        public boolean removed = false;
+    }
+
+    // Parallel to clauses
+    private ArrayList<Entry> entries = new ArrayList<Entry>();
+    // One queue per evaluation function of eval_functions, see ClauseQueue
+    private ArrayList<ClauseQueue> queues = new ArrayList<ClauseQueue>();
+    // All entries in insertion order, for extractFirst()
+    private ClauseQueue fifo = new ClauseQueue.Age();
+    private long seqCounter = 0;
+
     /** ***************************************************************
      * Initialize the clause. 
      */    
     public HeuristicClauseSet(ClauseSet cs, EvalStructure efunctions) {
 
         eval_functions = efunctions;
+        if (eval_functions != null && eval_functions.eval_funs != null)
+            for (int i = 0; i < eval_functions.eval_funs.size(); i++)
+                queues.add(eval_functions.eval_funs.get(i).createQueue(i));
         for (int i = 0; i < cs.length(); i++)
             addClause(cs.get(i));                
     }   
@@ -57,34 +82,102 @@ public class HeuristicClauseSet extends ClauseSet {
     	else {
 	        ArrayList<Integer> evals = eval_functions.evaluate(clause);
 	        clause.addEval(evals);
+	        Entry e = new Entry();
+	        e.clause = clause;
+	        e.seq = seqCounter++;
+	        e.pos = clauses.size();
 	        super.add(clause);
+	        entries.add(e);
+	        fifo.add(e);
+	        for (int i = 0; i < queues.size(); i++)
+	            queues.get(i).add(e);
     	}
     }
+
+    /** ***************************************************************
+     * Add a clause to the clause set, computing its evaluations.
+     */    
+    public void add(Clause clause) {
+
+        addClause(clause);
+    }
+
+    /** ***************************************************************
+     */
+    public void addAll(ClauseSet clauseSet) {
+
+        addAll(clauseSet.clauses);
+    }
+
+    /** ***************************************************************
+     */
+    public void addAll(ArrayList<Clause> clauseSet) {
+
+        for (Clause c : clauseSet)
+            addClause(c);
+    }
+
+    /** ***************************************************************
+     */
+    public void addAll(HashSet<Clause> clauseSet) {
+
+        for (Clause c : clauseSet)
+            addClause(c);
+    }
+
+    /** ***************************************************************
+     * Remove the entry from the clauses list in constant time by
+     * moving the last clause into its position, and mark it as
+     * removed for the queues.
+     */
+    private Clause removeEntry(Entry e) {
+
+        e.removed = true;
+        int last = clauses.size() - 1;
+        if (e.pos != last) {
+            Entry moved = entries.get(last);
+            moved.pos = e.pos;
+            entries.set(e.pos,moved);
+            clauses.set(e.pos,moved.clause);
+        }
+        entries.remove(last);
+        clauses.remove(last);
+        return e.clause;
+    }
+
+    /** ***************************************************************
+     * Remove this very clause object from the set and return it.
+     */    
+    public Clause extractClause(Clause clause) {
+
+        for (int i = 0; i < entries.size(); i++)
+            if (entries.get(i).clause == clause)
+                return removeEntry(entries.get(i));
+        return clause;
+    }
+
+    /** ***************************************************************
+     * Extract and return the oldest clause in the set.
+     */    
+    public Clause extractFirst() {
+
+        Entry e = fifo.poll();
+        if (e == null)
+            return null;
+        return removeEntry(e);
+    }
     
     /** ***************************************************************
      * Extract and return the clause with the lowest weight according
      * to the selected heuristic. If the set is empty, return None. 
+     * Among clauses with equal weight, the oldest one is chosen.
      */    
     public Clause extractBestByEval(int heuristic_index) {
 
-        if (clauses.size() > 0) {
-            int best = 0;
-            Clause c = clauses.get(0);
-            int besteval = c.evaluation.get(heuristic_index);
-            for (int i = 1; i < clauses.size(); i++) {
-                c = clauses.get(i);
-                if (c.evaluation == null)
-                    System.out.println("Error in HeuristicClauseSet.extractBestByEval(): no eval for clause: " + c);
-                if (c.evaluation.get(heuristic_index) < besteval) {
-                    //System.out.println("INFO in HeuristicClauseSet.extractBestByEval(): heuristic: " + i);
-                    besteval = clauses.get(i).evaluation.get(heuristic_index);
-                    best = i;
-                }
-            }
-            return clauses.remove(best);
-        }
-        else
+        Entry e = queues.get(heuristic_index).poll();
+        if (e == null)
             return null;
+        return removeEntry(e);
     }
     
     /** ***************************************************************
@@ -103,24 +196,10 @@ public class HeuristicClauseSet extends ClauseSet {
      */    
     public Clause selectBestByEval(int heuristic_index) {
 
-        if (clauses.size() > 0) {
-            int best = 0;
-            Clause c = clauses.get(0);
-            int besteval = c.evaluation.get(heuristic_index);
-            for (int i = 1; i < clauses.size(); i++) {
-                c = clauses.get(i);
-                if (c.evaluation == null)
-                    System.out.println("Error in HeuristicClauseSet.extractBestByEval(): no eval for clause: " + c);
-                if (c.evaluation.get(heuristic_index) < besteval) {
-                    //System.out.println("INFO in HeuristicClauseSet.extractBestByEval(): heuristic: " + i);
-                    besteval = clauses.get(i).evaluation.get(heuristic_index);
-                    best = i;
-                }
-            }
-            return clauses.get(best);
-        }
-        else
+        Entry e = queues.get(heuristic_index).peek();
+        if (e == null)
             return null;
+        return e.clause;
     }
     
     /** ***************************************************************
@@ -129,11 +208,7 @@ public class HeuristicClauseSet extends ClauseSet {
      */    
     public Clause selectBest() {
 
-        Clause c = selectBestByEval(eval_functions.nextEval());
-        eval_functions.current--;
-        if (eval_functions.current < 0)
-            eval_functions.current = eval_functions.eval_vec.size() - 1;
-        return c;
+        return selectBestByEval(eval_functions.peekEval());
     }
     
     /** ***************************************************************
@@ -191,6 +266,37 @@ public class HeuristicClauseSet extends ClauseSet {
             System.out.println("Successful testClauseSetHeuristics()");
     }
     
+    /** ***************************************************************
+     * Test that the queues pick the same clauses as a linear scan, with
+     * ties broken in favour of older clauses.
+     */    
+    public static void testHeapOrder() {
+
+        System.out.println("==================testHeapOrder========================");
+        String spec = "cnf(c1,axiom,p(f(X),g(Y))).\n" +
+            "cnf(c2,axiom,p(a,b)).\n" +
+            "cnf(c3,axiom,q(a)).\n" +
+            "cnf(c4,axiom,p(a,b)|q(X)).\n" +
+            "cnf(c5,axiom,q(b)).\n";
+        Lexer lex = new Lexer(spec);
+        ClauseSet input = new ClauseSet();
+        input.parse(lex);
+        ArrayList<ClauseEvaluationFunction> evals = new ArrayList<ClauseEvaluationFunction>();
+        evals.add(new SymbolCountEvaluation(2,1));
+        evals.add(new FIFOEvaluation());
+        ArrayList<Integer> ratings = new ArrayList<Integer>();
+        ratings.add(1);
+        ratings.add(1);
+        HeuristicClauseSet cs = new HeuristicClauseSet(input,new EvalStructure(evals,ratings));
+        System.out.println("Expected: c3 actual: " + cs.extractBestByEval(0).name);
+        System.out.println("Expected: c1 actual: " + cs.extractBestByEval(1).name);
+        System.out.println("Expected: c2 actual: " + cs.selectBestByEval(1).name);
+        System.out.println("Expected: c5 actual: " + cs.extractBestByEval(0).name);
+        System.out.println("Expected: c2 actual: " + cs.extractFirst().name);
+        System.out.println("Expected: c4 actual: " + cs.extractBestByEval(1).name);
+        System.out.println("Should be true: " + (cs.length() == 0 && cs.extractBestByEval(0) == null));
+    }
+
     /** ***************************************************************
      * Test the the resolution position function works.
      */    
@@ -213,6 +319,7 @@ public class HeuristicClauseSet extends ClauseSet {
      */
     public static void main(String[] args) {
         
+        testHeapOrder();
         testClauseSetChanges();
         testClauseSetHeuristics();
         testResPositions();
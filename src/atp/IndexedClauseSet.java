@@ -0,0 +1,185 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+ A clause set that keeps its literals in a discrimination tree, so
+ that the search for resolution partners only considers literals of
+ opposite sign and equal predicate symbol whose arguments may unify.
+ The clauses are also kept in a feature vector index, so that
+ subsumption is only attempted for compatible pairs of clauses.
+ This is used for the processed clauses of the proof state, which are
+ queried for every given clause.
+*/
+
+package atp;
+
+import java.util.*;
+
+public class IndexedClauseSet extends ClauseSet {
+
+    // public ArrayList<Clause> clauses = null; // defined in ClauseSet
+    public DiscriminationTree index = new DiscriminationTree();
+    public FeatureVectorIndex fvIndex = null;
+    private int seqCounter = 0;
+
+    /** ***************************************************************
+     * Create an empty set whose feature vectors only count literals.
+     */
+    public IndexedClauseSet() {
+
+        fvIndex = new FeatureVectorIndex();
+    }
+
+    /** ***************************************************************
+     * Create an empty set whose feature vectors also use the symbols
+     * of the given signature, typically the one of the input problem.
+     */
+    public IndexedClauseSet(Signature sig) {
+
+        fvIndex = new FeatureVectorIndex(sig);
+    }
+
+    /** ***************************************************************
+     * Add a clause to the clause set and to the index.
+     */
+    public void add(Clause clause) {
+
+        super.add(clause);
+        index.insert(clause,seqCounter++);
+        fvIndex.insert(clause);
+    }
+
+    /** ***************************************************************
+     */
+    public void addAll(ClauseSet clauseSet) {
+
+        addAll(clauseSet.clauses);
+    }
+
+    /** ***************************************************************
+     */
+    public void addAll(ArrayList<Clause> clauseSet) {
+
+        for (Clause c : clauseSet)
+            add(c);
+    }
+
+    /** ***************************************************************
+     */
+    public void addAll(HashSet<Clause> clauseSet) {
+
+        for (Clause c : clauseSet)
+            add(c);
+    }
+
+    /** ***************************************************************
+     * Remove a clause from the clause set and the index and return it.
+     */
+    public Clause extractClause(Clause clause) {
+
+        for (int i = 0; i < clauses.size(); i++) {
+            if (clauses.get(i) == clause) {
+                clauses.remove(i);
+                index.remove(clause);
+                fvIndex.remove(clause);
+                break;
+            }
+        }
+        return clause;
+    }
+
+    /** ***************************************************************
+     * Extract and return the first clause.
+     */
+    public Clause extractFirst() {
+
+        Clause c = super.extractFirst();
+        if (c != null) {
+            index.remove(c);
+            fvIndex.remove(c);
+        }
+        return c;
+    }
+
+    /** ***************************************************************
+     * Return the (clause, literal-index) pairs of all literals that are
+     * unification candidates for a resolution step with lit, in the
+     * same order as the naive implementation in ClauseSet.
+     * @return a side effect on @param clauseres and @param indices
+     */
+    public void getResolutionLiterals(Literal lit, ArrayList<Clause> clauseres, ArrayList<Integer> indices) {
+
+        assert clauseres.size() == 0 : "non empty result variable clauseres passed to IndexedClauseSet.getResolutionLiterals()";
+        assert indices.size() == 0 : "non empty result variable indices passed to IndexedClauseSet.getResolutionLiterals()";
+        ArrayList<DiscriminationTree.Entry> entries = index.getResolutionCandidates(lit);
+        for (int i = 0; i < entries.size(); i++) {
+            DiscriminationTree.Entry e = entries.get(i);
+            clauseres.add(e.clause);
+            indices.add(Integer.valueOf(e.index));
+        }
+    }
+
+    /** ***************************************************************
+     * Return the clauses whose feature vectors permit them to subsume
+     * clause.
+     */
+    public ArrayList<Clause> getSubsumingCandidates(Clause clause) {
+
+        return fvIndex.getSubsumingCandidates(clause);
+    }
+
+    /** ***************************************************************
+     * Return the clauses whose feature vectors permit them to be
+     * subsumed by clause.
+     */
+    public ArrayList<Clause> getSubsumedCandidates(Clause clause) {
+
+        return fvIndex.getSubsumedCandidates(clause);
+    }
+
+    /** ***************************************************************
+     * Test that the index returns the same resolvents as a full scan.
+     */
+    public static void testIndexedResolution() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in IndexedClauseSet.testIndexedResolution()");
+        String spec = "cnf(g1, negated_conjecture, ~c).\n" +
+            "cnf(c1, axiom, a|b|c).\n" +
+            "cnf(c2, axiom, b|c).\n" +
+            "cnf(c3, axiom, c).\n" +
+            "cnf(c4, axiom, ~b|p(f(X))).\n";
+        Lexer lex = new Lexer(spec);
+        Clause conj = Clause.parse(lex);
+        ClauseSet plain = new ClauseSet();
+        plain.parse(lex);
+        IndexedClauseSet indexed = new IndexedClauseSet();
+        indexed.addAll(plain);
+        System.out.println("Should be true: " + ResControl.computeAllResolvents(conj,plain).length() + " == " +
+                ResControl.computeAllResolvents(conj,indexed).length());
+        indexed.extractClause(indexed.get(2));
+        System.out.println("Should see 2 resolvents: " + ResControl.computeAllResolvents(conj,indexed));
+    }
+
+    /** ***************************************************************
+     * Test method for this class.
+     */
+    public static void main(String[] args) {
+
+        testIndexedResolution();
+    }
+}
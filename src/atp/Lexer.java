@@ -79,13 +79,65 @@ public class Lexer {
     public LineNumberReader input = null;
     public ArrayDeque<String> tokenStack = new ArrayDeque<String>();
 
-    /** This array contains all of the compiled Pattern objects that
-     * will be used by methods in this file. */
-    private static LinkedHashMap<String,Pattern> tokenDefs = new LinkedHashMap<String,Pattern>();
-    
+    // Integer codes of the token types, see tokenTypes
+    public static final int NoTokenCode          = 0;
+    public static final int WhiteSpaceCode       = 1;
+    public static final int NewlineCode          = 2;
+    public static final int HashCommentCode      = 3;
+    public static final int PerCommentCode       = 4;
+    public static final int IdentUpperCode       = 5;
+    public static final int IdentLowerCode       = 6;
+    public static final int DefFunctorCode       = 7;
+    public static final int NumberCode           = 8;
+    public static final int QuotedStringCode     = 9;
+    public static final int FullStopCode         = 10;
+    public static final int OpenParCode          = 11;
+    public static final int CloseParCode         = 12;
+    public static final int OpenSquareCode       = 13;
+    public static final int CloseSquareCode      = 14;
+    public static final int CommaCode            = 15;
+    public static final int ColonCode            = 16;
+    public static final int EqualSignCode        = 17;
+    public static final int NotEqualSignCode     = 18;
+    public static final int NandCode             = 19;
+    public static final int NorCode              = 20;
+    public static final int OrCode               = 21;
+    public static final int AndCode              = 22;
+    public static final int ImpliesCode          = 23;
+    public static final int BImpliesCode         = 24;
+    public static final int EquivCode            = 25;
+    public static final int XorCode              = 26;
+    public static final int UniversalCode        = 27;
+    public static final int ExistentialCode      = 28;
+    public static final int NegationCode         = 29;
+    public static final int EOFCode              = 30;
+
+    // The token types, indexed by the integer token code that is
+    // stored in ttype
+    public static final String[] tokenTypes = {NoToken, WhiteSpace, Newline, HashComment,
+        PerComment, IdentUpper, IdentLower, DefFunctor, Number, QuotedString, FullStop,
+        OpenPar, ClosePar, OpenSquare, CloseSquare, Comma, Colon, EqualSign, NotEqualSign,
+        Nand, Nor, Or, And, Implies, BImplies, Equiv, Xor, Universal, Existential,
+        Negation, EOFToken};
+
+    // Character classes of the ASCII characters
+    private static final byte OTHER = 0;
+    private static final byte SPACE = 1;
+    private static final byte LOWER = 2;
+    private static final byte UPPER = 3;   // including '_'
+    private static final byte DIGIT = 4;
+    private static final byte[] charClass = new byte[128];
+
+    private static final Pattern statusPattern = Pattern.compile("\\%\\sStatus[\\s]+([^\\n]*)");
+
+    // The current line and the position of the current token on it
+    private char[] chars = new char[0];
+    private int start = 0;
+
     public static ArrayList<String> andOr = new ArrayList<String>();
     public static ArrayList<String> binaryRel = new ArrayList<String>();
     public static ArrayList<String> quant = new ArrayList<String>(); 
+    private static boolean initialized = false;
 
     /** ***************************************************************
      */
@@ -156,38 +208,24 @@ public class Lexer {
 
     /** ***************************************************************
      */
-    private static void init() {
-        
-        tokenDefs.put(FullStop,    Pattern.compile("\\."));                   
-        tokenDefs.put(OpenPar,     Pattern.compile("\\("));                   
-        tokenDefs.put(ClosePar,    Pattern.compile("\\)"));                   
-        tokenDefs.put(OpenSquare,  Pattern.compile("\\["));                   
-        tokenDefs.put(CloseSquare, Pattern.compile("\\]"));                   
-        tokenDefs.put(Comma,       Pattern.compile(","));                 
-        tokenDefs.put(Colon,       Pattern.compile(":"));                  
-        tokenDefs.put(Nor,         Pattern.compile("~\\|"));               
-        tokenDefs.put(Nand,        Pattern.compile("~&"));                   
-        tokenDefs.put(Or,          Pattern.compile("\\|"));                   
-        tokenDefs.put(And,         Pattern.compile("&"));                   
-        tokenDefs.put(Implies,     Pattern.compile("=>"));              
-        tokenDefs.put(Equiv,       Pattern.compile("<=>"));                  
-        tokenDefs.put(BImplies,    Pattern.compile("<="));                  
-        tokenDefs.put(Xor,         Pattern.compile("<~>"));                     
-        tokenDefs.put(EqualSign,   Pattern.compile("="));                 
-        tokenDefs.put(NotEqualSign, Pattern.compile("!="));                  
-        tokenDefs.put(Negation,    Pattern.compile("~"));                   
-        tokenDefs.put(Universal,   Pattern.compile("!"));
-        tokenDefs.put(Existential, Pattern.compile("\\?"));
-        tokenDefs.put(Newline,     Pattern.compile("\\n"));
-        tokenDefs.put(WhiteSpace,  Pattern.compile("\\s+"));
-        tokenDefs.put(IdentLower,  Pattern.compile("[a-z][_a-z0-9_A-Z]*"));
-        tokenDefs.put(IdentUpper,  Pattern.compile("[_A-Z][_a-z0-9_A-Z]*"));
-        tokenDefs.put(DefFunctor,  Pattern.compile("\\$[_a-z0-9_A-Z]*"));
-        tokenDefs.put(Number,      Pattern.compile("-?[0-9]?[0-9\\.]+E?-?[0-9]*"));
-        tokenDefs.put(HashComment, Pattern.compile("#[^\\n]*"));
-        tokenDefs.put(PerComment,  Pattern.compile("\\%[^\\n]*"));
-        tokenDefs.put(QuotedString,Pattern.compile("'[^']*'"));
+    private static synchronized void init() {
         
+        if (initialized)
+            return;
+        for (char c = 'a'; c <= 'z'; c++)
+            charClass[c] = LOWER;
+        for (char c = 'A'; c <= 'Z'; c++)
+            charClass[c] = UPPER;
+        charClass['_'] = UPPER;
+        for (char c = '0'; c <= '9'; c++)
+            charClass[c] = DIGIT;
+        charClass[' '] = SPACE;   // the characters of \\s
+        charClass['\t'] = SPACE;
+        charClass['\n'] = SPACE;
+        charClass[0x0B] = SPACE;
+        charClass['\f'] = SPACE;
+        charClass['\r'] = SPACE;
+
         andOr.add(And);
         andOr.add(Or);
         
@@ -200,6 +238,7 @@ public class Lexer {
         
         quant.add(Universal);
         quant.add(Existential);
+        initialized = true;
     }
     
     /** ***************************************************************
@@ -371,9 +410,7 @@ public class Lexer {
      */
     public void processComment(String line) {
     	
-        Pattern value = Pattern.compile("\\%\\sStatus[\\s]+([^\\n]*)");
-        //Pattern value = Pattern.compile("\\%\\sStatus");
-        Matcher m = value.matcher(line);
+        Matcher m = statusPattern.matcher(line);
         //System.out.println("INFO in processComment(): comment: " + line);
         if (m.lookingAt()) {
         	if (m.group(1).indexOf("Unsatisfiable") > -1 || m.group().indexOf("Theorem") > -1) 
@@ -401,6 +438,142 @@ public class Lexer {
         return res;
     }
     
+    /** ***************************************************************
+     * Return the class of character c.
+     */
+    private static byte charClass(char c) {
+
+        return c < 128 ? charClass[c] : OTHER;
+    }
+
+    /** ***************************************************************
+     * Return the character at position i of the current line, or 0 at
+     * the end of the line.
+     */
+    private char charAt(int i) {
+
+        return i < chars.length ? chars[i] : 0;
+    }
+
+    /** ***************************************************************
+     * Skip the characters of an identifier starting at position i and
+     * return the position after it.
+     */
+    private int skipIdent(int i) {
+
+        while (i < chars.length && charClass(chars[i]) >= LOWER)
+            i++;
+        return i;
+    }
+
+    /** ***************************************************************
+     * Recognize the token starting at pos on the current line in a
+     * single pass over its characters, set start and pos to its
+     * boundaries and return its code, or NoTokenCode if no token
+     * matches. This accepts the same tokens with the same precedence
+     * as the regular expressions of earlier versions, e.g. "<=>" rather
+     * than "<=" followed by ">", and "." as a full stop rather than a
+     * number.
+     */
+    private int scan() {
+
+        start = pos;
+        char c = chars[pos];
+        switch (c) {
+        case '.': pos++; return FullStopCode;
+        case '(': pos++; return OpenParCode;
+        case ')': pos++; return CloseParCode;
+        case '[': pos++; return OpenSquareCode;
+        case ']': pos++; return CloseSquareCode;
+        case ',': pos++; return CommaCode;
+        case ':': pos++; return ColonCode;
+        case '|': pos++; return OrCode;
+        case '&': pos++; return AndCode;
+        case '?': pos++; return ExistentialCode;
+        case '~':
+            if (charAt(pos + 1) == '|') { pos = pos + 2; return NorCode; }
+            if (charAt(pos + 1) == '&') { pos = pos + 2; return NandCode; }
+            pos++;
+            return NegationCode;
+        case '=':
+            if (charAt(pos + 1) == '>') { pos = pos + 2; return ImpliesCode; }
+            pos++;
+            return EqualSignCode;
+        case '!':
+            if (charAt(pos + 1) == '=') { pos = pos + 2; return NotEqualSignCode; }
+            pos++;
+            return UniversalCode;
+        case '<':
+            if (charAt(pos + 1) == '=') {
+                if (charAt(pos + 2) == '>') { pos = pos + 3; return EquivCode; }
+                pos = pos + 2;
+                return BImpliesCode;
+            }
+            if (charAt(pos + 1) == '~' && charAt(pos + 2) == '>') { pos = pos + 3; return XorCode; }
+            return NoTokenCode;
+        case '$':
+            pos = skipIdent(pos + 1);
+            return DefFunctorCode;
+        case '#':
+            pos = chars.length;
+            return HashCommentCode;
+        case '%':
+            pos = chars.length;
+            return PerCommentCode;
+        case '\'': {
+            int i = pos + 1;
+            while (i < chars.length && chars[i] != '\'')
+                i++;
+            if (i == chars.length)
+                return NoTokenCode;
+            pos = i + 1;
+            return QuotedStringCode;
+        }
+        default:
+            break;
+        }
+        switch (charClass(c)) {
+        case SPACE:
+            while (pos < chars.length && charClass(chars[pos]) == SPACE)
+                pos++;
+            return WhiteSpaceCode;
+        case LOWER:
+            pos = skipIdent(pos + 1);
+            return IdentLowerCode;
+        case UPPER:
+            pos = skipIdent(pos + 1);
+            return IdentUpperCode;
+        default:
+            break;
+        }
+        if (c == '-' || charClass(c) == DIGIT)
+            return scanNumber();
+        return NoTokenCode;
+    }
+
+    /** ***************************************************************
+     * Recognize a number of the form -?[0-9.]+E?-?[0-9]* at pos.
+     */
+    private int scanNumber() {
+
+        int i = pos;
+        if (chars[i] == '-')
+            i++;
+        int mantissa = i;
+        while (i < chars.length && (charClass(chars[i]) == DIGIT || chars[i] == '.'))
+            i++;
+        if (i == mantissa)
+            return NoTokenCode;
+        if (charAt(i) == 'E')
+            i++;
+        if (charAt(i) == '-')
+            i++;
+        while (i < chars.length && charClass(chars[i]) == DIGIT)
+            i++;
+        pos = i;
+        return NumberCode;
+    }
+
     /** ***************************************************************
      * Return next token, including tokens ignored by most languages. 
      */
@@ -416,6 +589,8 @@ public class Lexer {
                     } while (line != null && line.length() == 0);    
                     //System.out.println("INFO in Lexer.nextUnfiltered(): " + line);
                     pos = 0;
+                    if (line != null)
+                        chars = line.toCharArray();
                 }
                 catch (IOException ioe) {
                     System.out.println("Error in Lexer.nextUnfiltered()");
@@ -429,21 +604,17 @@ public class Lexer {
                     return EOFToken;
                 }
             }
-            Iterator<String> it = tokenDefs.keySet().iterator();
-            while (it.hasNext()) {  // Go through all the token definitions and process the first one that matches
-                String key = it.next();
-                Pattern value = tokenDefs.get(key);
-                Matcher m = value.matcher(line.substring(pos));
-                //System.out.println("INFO in Lexer.nextUnfiltered(): checking: " + key + " against: " + source.substring(pos));
-                if (m.lookingAt()) {
-                    //System.out.println("INFO in Lexer.nextUnfiltered(): got token against source: " + source.substring(pos));
-                    literal = line.substring(pos + m.start(),pos + m.end());
-                    pos = pos + m.end();
-                    type = key;
-                    //System.out.println("INFO in Lexer.nextUnfiltered(): got token: " + literal + " type: " + type + 
-                    //        " at pos: " + pos + " with regex: " + value);
-                    return m.group();
-                }
+            int code = scan();
+            if (code != 0) {
+                ttype = code;
+                type = tokenTypes[code];
+                if (code > FullStopCode && code < EOFCode)
+                    literal = type;  // operators and punctuation are their own literal
+                else
+                    literal = new String(chars,start,pos - start);
+                //System.out.println("INFO in Lexer.nextUnfiltered(): got token: " + literal + " type: " + type + 
+                //        " at pos: " + pos);
+                return literal;
             }
             if (pos + 4 > line.length())
                 if (pos - 4 < 0)
@@ -480,6 +651,7 @@ public class Lexer {
     private static String example3 = "cnf(test,axiom,p(a)|p(f(X))).";
     private static String example4 = "^";
     private static String example5 = "fof(test,axiom,![X,Y]:?[Z]:~p(X,Y,Z)).";
+    private static String example6 = "a<=>b<=c<~>~d~|e~&f=>X!=_Y=-1.5E-3|$true|'q r'.";
     
     /** ***************************************************************
      * Test that comments and whitespace are normally ignored. 
@@ -591,6 +763,36 @@ public class Lexer {
         }
     }
     
+    /** ***************************************************************
+     * Check that operators sharing a prefix and numbers are split
+     * into the expected tokens.
+     */
+    private static void testOperators() {
+
+        System.out.println("-------------------------------------------------");
+        System.out.println("INFO in Lexer.testOperators()");
+        Lexer lex = new Lexer(example6);
+        String[] expected = {IdentLower, Equiv, IdentLower, BImplies, IdentLower, Xor,
+                Negation, IdentLower, Nor, IdentLower, Nand, IdentLower, Implies, IdentUpper,
+                NotEqualSign, IdentUpper, EqualSign, Number, Or, DefFunctor, Or, QuotedString,
+                FullStop};
+        try {
+            boolean ok = true;
+            for (int i = 0; i < expected.length; i++) {
+                lex.next();
+                if (!lex.type.equals(expected[i]) || lex.ttype != Arrays.asList(tokenTypes).indexOf(expected[i])) {
+                    System.out.println("Unexpected token " + lex.literal + " of type " + lex.type);
+                    ok = false;
+                }
+            }
+            System.out.println("Should be true: " + (ok && lex.next().equals(EOFToken)));
+        }
+        catch (Exception e) {
+            System.out.println(e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     /** ***************************************************************
      * Check the positive case of AcceptLit(). 
      */
@@ -664,6 +866,7 @@ public class Lexer {
         testTerm();
         testClause();
         testFormula();
+        testOperators();
         testAcceptLit();
         testErrors();
     }
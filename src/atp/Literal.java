@@ -31,6 +31,9 @@ public class Literal {
     
     public Term atom = null;  
     boolean negated = false;
+    // Whether resolution and factoring may use this literal, see
+    // Clause.selectInferenceLits()
+    boolean inferenceLit = true;
 
     /** ***************************************************************
      */
@@ -149,6 +152,20 @@ public class Literal {
          return !negated;
      }
      
+     /** ***************************************************************
+      */
+     public boolean isInferenceLit() {
+        
+         return inferenceLit;
+     }
+     
+     /** ***************************************************************
+      */
+     public void setInferenceLit(boolean val) {
+        
+         inferenceLit = val;
+     }
+     
      /** ***************************************************************
       */
      public boolean isEquational() {
@@ -232,7 +249,8 @@ public class Literal {
      public Literal substitute(Substitutions subst) {
 
          //System.out.println("INFO in Literal.substitute(): "  + this + " " + subst);
-         Literal newLit = deepCopy();
+         Literal newLit = new Literal();
+         newLit.negated = negated;
          newLit.atom = subst.apply(atom);
          return newLit;
      }
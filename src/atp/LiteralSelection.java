@@ -0,0 +1,92 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    Selection functions for negative literals. A clause with a selected
+    literal is only resolved on that literal and is not factored (see
+    Clause.selectInferenceLits()), which keeps resolution complete:
+
+    - none selects no literal
+    - first selects the first negative literal
+    - smallest selects the negative literal with the fewest symbols
+    - largest selects the negative literal with the most symbols
+
+    Ties go to the earliest literal.
+*/
+
+package atp;
+
+import java.util.*;
+
+public class LiteralSelection {
+
+    public static final String[] names = { "none", "first", "smallest", "largest" };
+
+    /** ***************************************************************
+     * Return the position of the literal of the clause selected by the
+     * named selection function, or -1 if it selects none.
+     */
+    public static int select(Clause c, String name) {
+
+        if (name == null || name.equals("none"))
+            return -1;
+        int best = -1;
+        int bestWeight = 0;
+        for (int i = 0; i < c.length(); i++) {
+            Literal lit = c.getLiteral(i);
+            if (!lit.isNegative())
+                continue;
+            if (name.equals("first"))
+                return i;
+            int w = lit.weight(1,1);
+            if (best == -1 ||
+                (name.equals("smallest") && w < bestWeight) ||
+                (name.equals("largest") && w > bestWeight)) {
+                best = i;
+                bestWeight = w;
+            }
+        }
+        return best;
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     */
+    public static void testSelection() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in LiteralSelection.testSelection(): all should be true");
+        Clause c = Clause.string2Clause("cnf(c,axiom,p(X)|~q(f(X),a)|~r(b)|~s(X)).");
+        System.out.println(select(c,"none") == -1);
+        System.out.println(select(c,"first") == 1);
+        System.out.println(select(c,"smallest") == 2);
+        System.out.println(select(c,"largest") == 1);
+        System.out.println(select(Clause.string2Clause("cnf(d,axiom,p(X)|q(a))."),"first") == -1);
+        c.selectInferenceLits(null,"smallest");
+        System.out.println(!c.getLiteral(0).isInferenceLit() && c.getLiteral(2).isInferenceLit());
+        c.selectInferenceLits(null,"none");
+        System.out.println(c.getLiteral(0).isInferenceLit() && c.getLiteral(3).isInferenceLit());
+    }
+
+    /** ***************************************************************
+     * Test method for this class.
+     */
+    public static void main(String[] args) {
+
+        testSelection();
+    }
+}
@@ -0,0 +1,459 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    A loader for large TPTP files. The file is memory-mapped and split
+    at the full stops that end top-level statements. Consecutive
+    statements are grouped into chunks, and the chunks are lexed,
+    parsed and clausified in parallel in a fork-join pool.
+
+    Each chunk is clausified in a RunContext of its own, starting from
+    zero. When the chunks are merged, in file order, the names the
+    clausifier generated (Skolem functions, variables and clause names)
+    are shifted by the number of names used by the preceding chunks,
+    so the result is the same as if the file had been read by
+    Formula.lexer2clauses(). include() statements are not parsed in
+    parallel, but processed in order during the merge.
+*/
+
+package atp;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class ParallelLoader {
+
+    // Files of at least this many bytes are loaded in parallel by
+    // Formula.file2clauses() and include()
+    public static long minParallelBytes = 1024 * 1024;
+    // Lower bound for the number of characters in a chunk
+    public static int minChunkChars = 64 * 1024;
+    // Number of chunks per thread, to balance the load
+    public static int chunksPerThread = 4;
+
+    private static ForkJoinPool pool = null;
+
+    /** ***************************************************************
+     * A sequence of statements of the file, and the result of
+     * clausifying them.
+     */
+    public static class Chunk {
+
+        public String text = "";
+        public boolean isInclude = false;
+        public ArrayList<Clause> clauses = new ArrayList<Clause>();
+        // For each clause the symbols and variables of the formula it
+        // was generated from, or null if it is an input clause
+        public ArrayList<HashSet<String>> inputNames = new ArrayList<HashSet<String>>();
+        public RunContext context = new RunContext();
+        public String SZS = "";
+        public boolean failed = false;
+    }
+
+    /** ***************************************************************
+     */
+    private static class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private ArrayList<Chunk> chunks = null;
+        private int low = 0;
+        private int high = 0;
+        private String filename = "";
+        private long deadline = 0;
+
+        public ChunkTask(ArrayList<Chunk> chunks, int low, int high, String filename, long deadline) {
+
+            this.chunks = chunks;
+            this.low = low;
+            this.high = high;
+            this.filename = filename;
+            this.deadline = deadline;
+        }
+
+        protected void compute() {
+
+            if (high - low == 1) {
+                clausify(chunks.get(low),filename,deadline);
+                return;
+            }
+            int mid = (low + high) / 2;
+            invokeAll(new ChunkTask(chunks,low,mid,filename,deadline),
+                      new ChunkTask(chunks,mid,high,filename,deadline));
+        }
+    }
+
+    /** ***************************************************************
+     */
+    private static synchronized ForkJoinPool getPool() {
+
+        if (pool == null)
+            pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        return pool;
+    }
+
+    /** ***************************************************************
+     * Map the file into memory and decode it.
+     */
+    public static CharBuffer mapFile(File f) throws IOException {
+
+        FileInputStream in = new FileInputStream(f);
+        try {
+            FileChannel channel = in.getChannel();
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+            return Charset.defaultCharset().decode(buf);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /** ***************************************************************
+     * Return the end positions of the top-level statements of text,
+     * i.e. the positions after each full stop that is not inside
+     * parentheses, a quoted string or a comment. Anything after the
+     * last full stop is added to the last statement.
+     */
+    public static ArrayList<Integer> statementEnds(CharSequence text) {
+
+        ArrayList<Integer> result = new ArrayList<Integer>();
+        int depth = 0;
+        int len = text.length();
+        int i = 0;
+        while (i < len) {
+            char c = text.charAt(i);
+            if (c == '%' || c == '#') {
+                while (i < len && text.charAt(i) != '\n')
+                    i++;
+            }
+            else if (c == '\'' || c == '"') {
+                i++;
+                while (i < len && text.charAt(i) != c)
+                    i++;
+            }
+            else if (c == '(')
+                depth++;
+            else if (c == ')')
+                depth--;
+            else if (c == '.' && depth == 0)
+                result.add(Integer.valueOf(i + 1));
+            i++;
+        }
+        if (result.size() == 0 || result.get(result.size() - 1).intValue() < len) {
+            if (result.size() > 0)
+                result.remove(result.size() - 1);
+            result.add(Integer.valueOf(len));
+        }
+        return result;
+    }
+
+    /** ***************************************************************
+     * Return true if the statement is an include() command.
+     */
+    private static boolean isInclude(CharSequence text, int start, int end) {
+
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c == '%' || c == '#') {
+                while (i < end && text.charAt(i) != '\n')
+                    i++;
+            }
+            else if (!Character.isWhitespace(c))
+                return text.subSequence(i,end).toString().startsWith("include");
+            i++;
+        }
+        return false;
+    }
+
+    /** ***************************************************************
+     * Split text into chunks of about chunkChars characters. Every
+     * include() statement forms a chunk of its own.
+     */
+    public static ArrayList<Chunk> split(CharSequence text, int chunkChars) {
+
+        ArrayList<Chunk> result = new ArrayList<Chunk>();
+        ArrayList<Integer> ends = statementEnds(text);
+        int chunkStart = 0;
+        int stmtStart = 0;
+        for (int i = 0; i < ends.size(); i++) {
+            int end = ends.get(i).intValue();
+            if (isInclude(text,stmtStart,end)) {
+                if (stmtStart > chunkStart)
+                    result.add(newChunk(text,chunkStart,stmtStart,false));
+                result.add(newChunk(text,stmtStart,end,true));
+                chunkStart = end;
+            }
+            else if (end - chunkStart >= chunkChars || i == ends.size() - 1) {
+                result.add(newChunk(text,chunkStart,end,false));
+                chunkStart = end;
+            }
+            stmtStart = end;
+        }
+        return result;
+    }
+
+    /** ***************************************************************
+     */
+    private static Chunk newChunk(CharSequence text, int start, int end, boolean isInclude) {
+
+        Chunk c = new Chunk();
+        c.text = text.subSequence(start,end).toString();
+        c.isInclude = isInclude;
+        return c;
+    }
+
+    /** ***************************************************************
+     * Lex, parse and clausify the statements of a chunk in a fresh
+     * RunContext. This is run in a worker thread.
+     */
+    private static void clausify(Chunk chunk, String filename, long deadline) {
+
+        RunContext previous = RunContext.get();
+        RunContext.set(chunk.context);
+        try {
+            Lexer lex = new Lexer(chunk.text);
+            lex.filename = filename;
+            while (!lex.look().equals(Lexer.EOFToken)) {
+                if (System.currentTimeMillis() > deadline) {
+                    System.out.println("# Error in ParallelLoader.clausify(): timeout");
+                    chunk.failed = true;
+                    return;
+                }
+                if (lex.literal.equals("fof")) {
+                    Formula f = Formula.parse(lex);
+                    if (f.form == null)
+                        continue;
+                    HashSet<String> names = new HashSet<String>(f.form.collectFuns());
+                    ArrayList<Term> vars = f.form.collectVars();
+                    for (int i = 0; i < vars.size(); i++)
+                        names.add(vars.get(i).t);
+                    ArrayList<Clause> clauses = Clausifier.clausify(f);
+                    for (int i = 0; i < clauses.size(); i++) {
+                        chunk.clauses.add(clauses.get(i));
+                        chunk.inputNames.add(names);
+                    }
+                }
+                else {
+                    ClauseSet cs = Formula.command2clauses(lex.literal,lex,0);
+                    for (int i = 0; i < cs.length(); i++) {
+                        chunk.clauses.add(cs.get(i));
+                        chunk.inputNames.add(null);
+                    }
+                }
+            }
+            chunk.SZS = lex.SZS;
+        }
+        catch (Exception e) {
+            System.out.println();
+            System.out.println("# Error in ParallelLoader.clausify()");
+            System.out.println(e.getMessage());
+            e.printStackTrace();
+            chunk.failed = true;
+        }
+        finally {
+            RunContext.set(previous);
+        }
+    }
+
+    /** ***************************************************************
+     * If name consists of prefix followed by a number, return the name
+     * with the number increased by offset, otherwise return name.
+     */
+    private static String shift(String name, String prefix, int offset) {
+
+        if (offset == 0 || !name.startsWith(prefix) || name.length() == prefix.length())
+            return name;
+        for (int i = prefix.length(); i < name.length(); i++)
+            if (!Character.isDigit(name.charAt(i)))
+                return name;
+        return prefix + Integer.toString(Integer.parseInt(name.substring(prefix.length())) + offset);
+    }
+
+    /** ***************************************************************
+     * Shift the generated variables and Skolem functions of t, i.e.
+     * the ones that are not in inputNames.
+     */
+    private static void renumber(Term t, HashSet<String> inputNames, RunContext offsets) {
+
+        if (!inputNames.contains(t.t)) {
+            if (t.isVar()) {
+                t.t = shift(t.t,"VAR",offsets.clausifierVarCounter);
+                t.t = shift(t.t,"X",offsets.freshVarCounter);
+            }
+            else
+                t.t = shift(t.t,"skf",offsets.clausifierVarCounter);
+        }
+        for (int i = 0; i < t.subterms.size(); i++)
+            renumber(t.subterms.get(i),inputNames,offsets);
+    }
+
+    /** ***************************************************************
+     * Add the clauses of the chunks to a single clause set, in file
+     * order, renumbering generated names as if the chunks had been
+     * clausified one after the other in the current RunContext. The
+     * counters of the current RunContext are advanced accordingly.
+     * Return null if a chunk ran into the timeout.
+     */
+    public static ClauseSet merge(ArrayList<Chunk> chunks, String filename, int timeout) throws IOException {
+
+        ClauseSet result = new ClauseSet();
+        RunContext rc = RunContext.get();
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            if (chunk.isInclude) {
+                Lexer lex = new Lexer(chunk.text);
+                lex.filename = filename;
+                try {
+                    ClauseSet cs = Formula.command2clauses(lex.look(),lex,timeout);
+                    if (cs != null)
+                        result.addAll(cs);
+                }
+                catch (java.text.ParseException pe) {
+                    System.out.println("# Error in ParallelLoader.merge(): " + pe.getMessage());
+                    return result;
+                }
+                continue;
+            }
+            for (int j = 0; j < chunk.clauses.size(); j++) {
+                Clause c = chunk.clauses.get(j);
+                HashSet<String> names = chunk.inputNames.get(j);
+                if (names != null) {
+                    c.name = shift(c.name,"cnf",rc.axiomCounter);
+                    for (int k = 0; k < c.literals.size(); k++)
+                        renumber(c.literals.get(k).atom,names,rc);
+                }
+                result.add(c);
+            }
+            rc.clausifierVarCounter = rc.clausifierVarCounter + chunk.context.clausifierVarCounter;
+            rc.freshVarCounter = rc.freshVarCounter + chunk.context.freshVarCounter;
+            rc.axiomCounter = rc.axiomCounter + chunk.context.axiomCounter;
+            rc.formulaIdCounter = rc.formulaIdCounter + chunk.context.formulaIdCounter;
+            if (!Term.emptyString(chunk.SZS))
+                result.SZS = chunk.SZS;
+            if (chunk.failed)
+                return result;
+        }
+        return result;
+    }
+
+    /** ***************************************************************
+     * Split a TPTP file into chunks and clausify them in parallel,
+     * without merging them. Return null on timeout. timeout is in
+     * seconds.
+     */
+    public static ArrayList<Chunk> clausifyChunks(String filename, int timeout) throws IOException {
+
+        CharBuffer text = mapFile(new File(filename));
+        int threads = getPool().getParallelism();
+        int chunkChars = Math.max(minChunkChars,text.length() / (threads * chunksPerThread));
+        ArrayList<Chunk> chunks = split(text,chunkChars);
+        System.out.println("# INFO in ParallelLoader.clausifyChunks(): reading file: " + filename +
+                " in " + chunks.size() + " chunks with read timeout: " + timeout);
+        long deadline = System.currentTimeMillis() + timeout * 1000L;
+        if (chunks.size() > 0)
+            getPool().invoke(new ChunkTask(chunks,0,chunks.size(),filename,deadline));
+        for (int i = 0; i < chunks.size(); i++)
+            if (chunks.get(i).failed && System.currentTimeMillis() > deadline)
+                return null;
+        return chunks;
+    }
+
+    /** ***************************************************************
+     * Read a TPTP file and clausify it in parallel. timeout is in
+     * seconds.
+     */
+    public static ClauseSet load(String filename, int timeout) throws IOException {
+
+        ArrayList<Chunk> chunks = clausifyChunks(filename,timeout);
+        if (chunks == null)
+            return null;
+        return merge(chunks,filename,timeout);
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     * Compare parallel and sequential loading of a file.
+     */
+    public static void testLoad(String filename) {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in ParallelLoader.testLoad(): all should be true");
+        try {
+            RunContext.reset();
+            long t1 = System.currentTimeMillis();
+            Lexer lex = new Lexer(new File(filename));
+            lex.filename = filename;
+            ClauseSet seq = Formula.lexer2clauses(lex);
+            long t2 = System.currentTimeMillis();
+            RunContext.reset();
+            int saved = minChunkChars;
+            minChunkChars = 1;
+            ClauseSet par = load(filename,10000);
+            minChunkChars = saved;
+            long t3 = System.currentTimeMillis();
+            System.out.println(seq.length() == par.length());
+            System.out.println(seq.SZS.equals(par.SZS));
+            boolean same = true;
+            for (int i = 0; i < seq.length(); i++)
+                if (!seq.get(i).toString().equals(par.get(i).toString())) {
+                    System.out.println("Expected " + seq.get(i) + " found " + par.get(i));
+                    same = false;
+                }
+            System.out.println(same);
+            System.out.println("# sequential: " + (t2 - t1) + " ms, parallel: " + (t3 - t2) + " ms");
+        }
+        catch (Exception e) {
+            System.out.println(e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /** ***************************************************************
+     * Test the statement splitter.
+     */
+    public static void testSplit() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in ParallelLoader.testSplit(): all should be true");
+        String text = "% a comment. with a full stop\n" +
+                      "fof(a,axiom,p(a)).\n" +
+                      "cnf(b,axiom,q('x.y')|r(1.5)).\n" +
+                      "include('Axioms/SET001-0.ax').\n" +
+                      "fof(c,axiom,p(b)).\n% trailing comment";
+        ArrayList<Chunk> chunks = split(text,1);
+        System.out.println(chunks.size() == 4);
+        System.out.println(chunks.get(0).text.endsWith("p(a))."));
+        System.out.println(chunks.get(1).text.endsWith("r(1.5))."));
+        System.out.println(chunks.get(2).isInclude && !chunks.get(3).isInclude);
+        System.out.println(chunks.get(3).text.endsWith("% trailing comment"));
+    }
+
+    /** ***************************************************************
+     * Test method for this class.
+     */
+    public static void main(String[] args) {
+
+        testSplit();
+        if (args.length > 0)
+            testLoad(args[0]);
+    }
+}
@@ -23,6 +23,8 @@ MA  02111-1307 USA
     - It supports heuristic clause selection, not just first-in first-out
     - It supports tautology deletion
     - It supports forward and backwards subsumption
+    - It can simplify newly generated clauses eagerly (Otter loop) or
+      only once they are selected (DISCOUNT loop)
     - It keeps some statistics to enable the user to understand the
       practical impact of different steps of the algorithm better.
 
@@ -58,8 +60,43 @@ public class ProofState {
        given clause, and discards all processed clauses that are
        subsumed. */
     public boolean backward_subsumption = false;
+    /* In the Otter loop, newly generated clauses are also checked for
+       tautologies and forward subsumption (if these are enabled) and
+       for duplicates before they are added to the unprocessed clauses.
+       Otherwise (the DISCOUNT loop) they are only checked when they
+       are selected as given clause. */
+    public boolean otter_loop = false;
+    /* Discard a newly generated clause if it is a variant of a clause
+       that has been in the processed or unprocessed clauses, i.e. if it
+       has the same Clause.fingerprint(). Fingerprints of clauses that
+       have been deleted are kept, since their variants would be deleted
+       again. */
+    public boolean delete_variants = false;
+    private HashSet<String> fingerprints = null;
+    /* Keep the unit clauses in a UnitIndex and use them on every newly
+       generated clause: a unit that conflicts with an indexed unit
+       gives the empty clause at once, a clause with a literal that is
+       an instance of an indexed unit is deleted (unit subsumption), and
+       literals whose negation is an instance of an indexed unit are
+       cut from the clause (simplify-reflect). */
+    public boolean unit_simplification = false;
+    private UnitIndex units = null;
+    // Clauses used by unit inferences that may not be processed, for
+    // proof reconstruction
+    private HashMap<String,Clause> unitParents = new HashMap<String,Clause>();
+    /* Ordered resolution: resolution and factoring only use the
+       literals of the given clause and of the processed clauses that
+       are maximal in term_ordering ("kbo" or "lpo", see TermOrdering),
+       or the negative literal picked by literal_selection if there is
+       one (see LiteralSelection). With "none" for both, all literals
+       are used. */
+    public String term_ordering = "none";
+    public String literal_selection = "none";
+    private TermOrdering ordering = null;
+    private Signature signature = null;
     public HeuristicClauseSet unprocessed = null; // eval_functions.eval_funs .name
-    public ClauseSet processed = null;
+    public IndexedClauseSet processed = null;
+    public TermBank termBank = new TermBank();
     public int initial_clause_count = 0;
     public int proc_clause_count    = 0;
     public int factor_count         = 0;
@@ -67,22 +104,43 @@ public class ProofState {
     public int tautologies_deleted  = 0;
     public int forward_subsumed     = 0;
     public int backward_subsumed    = 0;
+    public int duplicates_deleted   = 0;
+    public int unit_subsumed        = 0;
+    public int unit_cut_literals    = 0;
     public long time                = 0;  // in milliseconds
     public Clause res               = null;
     public String SZSresult         = "";  // result as specified by SZS "ontology"
     public String filename          = "";
     public String evalFunctionName  = "";
     public boolean verbose          = false;
+    public long memoryLimit         = 0;  // heap ceiling in bytes, 0 for Watchdog default
+    public Watchdog watchdog        = null;
+    public Watchdog parentWatchdog  = null;  // e.g. of a portfolio, see Prover2
+    public ProverMetrics metrics    = null;  // detailed measurements, off if null
+    public EventLog eventLog        = null;  // JSONL record of the search, off if null
+    public int snapshotInterval     = 100;   // given clauses between eventLog snapshots
+    public double traceSample       = 0;     // fraction of clauses written to eventLog
+    private long run                = 0;     // number of this search in eventLog
+    private Random sampler          = new Random(0);
     
     /** ***************************************************************
-     * Initialize the proof state with a set of clauses.
+     * Initialize the proof state with a set of clauses. The proof state
+     * works on copies, so that the clauses can be shared with other
+     * proof states, e.g. a knowledge base shared by the queries of
+     * ProverServer.
      */  
     public ProofState(ClauseSet clauses, EvalStructure efunctions) {
 
-        unprocessed = new HeuristicClauseSet(clauses, efunctions);                                         
-        processed   = new ClauseSet();
-        for (Clause c:clauses.clauses) 
-            unprocessed.addClause(c.deepCopy());
+        ClauseSet copies = new ClauseSet();
+        for (Clause c:clauses.clauses) {
+            copies.add(c.deepCopy());
+            reserveName(c.name);
+        }
+        copies.SZS = clauses.SZS;
+        termBank.insert(copies);
+        unprocessed = new HeuristicClauseSet(copies, efunctions);                                         
+        signature   = copies.collectSig(new Signature());
+        processed   = new IndexedClauseSet(signature);
         initial_clause_count = unprocessed.length();
         proc_clause_count    = 0;
         factor_count         = 0;
@@ -90,9 +148,33 @@ public class ProofState {
         tautologies_deleted  = 0;
         forward_subsumed     = 0;
         backward_subsumed    = 0;
+        duplicates_deleted   = 0;
+        unit_subsumed        = 0;
+        unit_cut_literals    = 0;
         time                 = 0;
     }
     
+    /** ***************************************************************
+     * Make sure that Clause.createName() never generates the name of
+     * an input clause, since proofs are reconstructed by name.
+     */  
+    private static void reserveName(String name) {
+
+        if (name == null || name.length() < 2 || name.charAt(0) != 'c')
+            return;
+        for (int i = 1; i < name.length(); i++)
+            if (!Character.isDigit(name.charAt(i)))
+                return;
+        RunContext rc = RunContext.get();
+        try {
+            int n = Integer.parseInt(name.substring(1));
+            if (n >= rc.clauseIDcounter)
+                rc.clauseIDcounter = n + 1;
+        }
+        catch (NumberFormatException nfe) { /* too long to collide */
+        }
+    }
+
     /** ***************************************************************
      */  
     public String toString() {
@@ -109,6 +191,11 @@ public class ProofState {
         sb.append(" delete_tautologies : " + delete_tautologies + "\n");
         sb.append(" forward_subsumption : " + forward_subsumption + "\n");
         sb.append(" backward_subsumption : " + backward_subsumption + "\n");
+        sb.append(" otter_loop : " + otter_loop + "\n");
+        sb.append(" delete_variants : " + delete_variants + "\n");
+        sb.append(" unit_simplification : " + unit_simplification + "\n");
+        sb.append(" term_ordering : " + term_ordering + "\n");
+        sb.append(" literal_selection : " + literal_selection + "\n");
         sb.append(" eval function name : " + evalFunctionName + "\n");
         //for (int i = 0; i < unprocessed.eval_functions.eval_funs.size(); i++)
         //    sb.append(" evalFn : " + unprocessed.eval_functions.eval_funs.get(i).name + "\n");
@@ -116,23 +203,59 @@ public class ProofState {
         return sb.toString();
     }
     
+    /** ***************************************************************
+     * Drop the clause sets and indexes of a finished search, so that
+     * they can be collected, e.g. when a portfolio keeps the state for
+     * its counters only. The proof can no longer be generated.
+     */  
+    public void release() {
+
+        unprocessed = null;
+        processed = null;
+        termBank = null;
+        units = null;
+        fingerprints = null;
+        unitParents = new HashMap<String,Clause>();
+    }
+
     /** ***************************************************************
      * Pick a clause from unprocessed and process it. If the empty
      * clause is found, return it. Otherwise return null.
      */  
     public Clause processClause() {
 
+        if (unit_simplification && units == null) {
+            Clause empty = initUnits();
+            if (empty != null)
+                return empty;
+        }
+        long t = metrics == null ? 0 : System.nanoTime();
         Clause given_clause = unprocessed.extractBest();
         given_clause = given_clause.freshVarCopy();
+        if (metrics != null)
+            t = metrics.stop(ProverMetrics.SELECTION,t);
+        if (eventLog != null)
+            traceClause("given",given_clause);
         //System.out.println("#" + given_clause.toStringJustify());
         if (given_clause.isEmpty())
             // We have found an explicit contradiction
             return given_clause;
-        if (delete_tautologies && given_clause.isTautology()) {
-            tautologies_deleted = tautologies_deleted + 1;
-            return null;        
+        if (delete_tautologies) {
+            boolean taut = given_clause.isTautology();
+            if (metrics != null)
+                t = metrics.stop(ProverMetrics.TAUTOLOGY,t);
+            if (taut) {
+                tautologies_deleted = tautologies_deleted + 1;
+                return null;
+            }
         }
-        if (forward_subsumption && Subsumption.forwardSubsumption(processed, given_clause)) {
+        boolean subsumed = false;
+        if (forward_subsumption) {
+            subsumed = Subsumption.forwardSubsumption(processed, given_clause, watchdog);
+            if (metrics != null)
+                t = metrics.stop(ProverMetrics.FORWARD,t);
+        }
+        if (subsumed) {
             //  If the given clause is subsumed by an already processed
             //  clause, all relevant inferences will already have been
             //  done with that more general clause. So, we can remove
@@ -152,54 +275,339 @@ public class ProofState {
             //  smaller clauses, which tend to be more general (thus the
             //  processed clauses are typically, if not universally, more
             //  general than the new given clause).
-            int tmp = Subsumption.backwardSubsumption(given_clause, processed);
+            int tmp = Subsumption.backwardSubsumption(given_clause, processed, watchdog);
             backward_subsumed = backward_subsumed + tmp;
+            if (metrics != null)
+                t = metrics.stop(ProverMetrics.BACKWARD,t);
+        }
+        if (!term_ordering.equals("none") || !literal_selection.equals("none")) {
+            if (ordering == null)
+                ordering = TermOrdering.create(term_ordering,signature);
+            given_clause.selectInferenceLits(ordering,literal_selection);
         }
         ClauseSet newClauses = new ClauseSet();
-        ClauseSet factors = ResControl.computeAllFactors(given_clause);
+        ClauseSet factors = ResControl.computeAllFactors(given_clause, metrics);
         newClauses.addAll(factors);
-        ClauseSet resolvents = ResControl.computeAllResolvents(given_clause, processed);
+        if (metrics != null)
+            t = metrics.stop(ProverMetrics.FACTORING,t);
+        ClauseSet resolvents = ResControl.computeAllResolvents(given_clause, processed, watchdog, metrics);
         newClauses.addAll(resolvents);
         proc_clause_count = proc_clause_count + 1;
         factor_count = factor_count + factors.length();
         resolvent_count = resolvent_count + resolvents.length();
+        if (metrics != null) {
+            for (Clause c:newClauses.clauses)
+                metrics.addClause(c);
+            t = metrics.stop(ProverMetrics.RESOLUTION,t);
+        }
 
+        if (Watchdog.isCancelled(watchdog))
+            return null;
         processed.add(given_clause);
 
+        HashSet<String> variants = null;
+        if (delete_variants)
+            variants = getFingerprints();
+        else if (otter_loop)
+            variants = new HashSet<String>();
         for (Clause c:newClauses.clauses) {
-        	if (verbose)
-        		System.out.println("# ProofState.processClause(): Adding clause: " + c);
-            unprocessed.addClause(c);
+            if (Watchdog.isCancelled(watchdog))
+                return null;
+            Clause empty = insertClause(c,variants);
+            if (empty != null)
+                return empty;
+        }
+        if (eventLog != null && snapshotInterval > 0 && proc_clause_count % snapshotInterval == 0)
+            eventLog.offer(addCounters(new EventLog.Record("snapshot")));
+        if (metrics != null) {
+            metrics.stop(ProverMetrics.INSERTION,t);
+            metrics.updatePeaks(unprocessed.length(),processed.length());
         }
         return null;
     }
     
+    /** ***************************************************************
+     * Add a newly generated clause to the unprocessed clauses, unless
+     * its fingerprint is in variants (if that is not null) or it is
+     * found redundant. With unit_simplification, the clause that is
+     * added may be simplified, and its fingerprint is added to variants
+     * as well, so that its later variants are deleted. Return the empty
+     * clause if it is found, and null otherwise.
+     */  
+    private Clause insertClause(Clause c, HashSet<String> variants) {
+
+        if (variants != null && !variants.add(c.fingerprint())) {
+            duplicates_deleted = duplicates_deleted + 1;
+            return null;
+        }
+        if (otter_loop && isRedundant(c))
+            return null;
+        if (unit_simplification) {
+            Clause simplified = unitSimplify(c);
+            if (simplified == null)
+                return null;
+            if (simplified.isEmpty())
+                return simplified;
+            if (simplified != c && variants != null && !variants.add(simplified.fingerprint())) {
+                duplicates_deleted = duplicates_deleted + 1;
+                return null;
+            }
+            c = simplified;
+            if (c.isUnit()) {
+                Clause empty = unitConflict(c);
+                if (empty != null)
+                    return empty;
+                units.add(c);
+            }
+        }
+        if (verbose)
+            System.out.println("# ProofState.processClause(): Adding clause: " + c);
+        if (eventLog != null)
+            traceClause("new",c);
+        unprocessed.addClause(c);
+        return null;
+    }
+
+    /** ***************************************************************
+     * Return true if the newly generated clause can be discarded in the
+     * Otter loop: it is a tautology or it is subsumed by a processed
+     * clause. Variants of clauses generated from the same given clause
+     * are deleted by processClause().
+     */  
+    private boolean isRedundant(Clause c) {
+
+        if (delete_tautologies && c.isTautology()) {
+            tautologies_deleted = tautologies_deleted + 1;
+            return true;
+        }
+        if (forward_subsumption && Subsumption.forwardSubsumption(processed, c, watchdog)) {
+            forward_subsumed = forward_subsumed + 1;
+            return true;
+        }
+        return false;
+    }
+    
+    /** ***************************************************************
+     * Return the fingerprints for delete_variants, starting with those
+     * of the clauses in the proof state on the first call.
+     */  
+    private HashSet<String> getFingerprints() {
+
+        if (fingerprints == null) {
+            fingerprints = new HashSet<String>();
+            for (Clause c:unprocessed.clauses)
+                fingerprints.add(c.fingerprint());
+            for (Clause c:processed.clauses)
+                fingerprints.add(c.fingerprint());
+        }
+        return fingerprints;
+    }
+    
+    /** ***************************************************************
+     * Index the unit clauses of the proof state. Return the empty
+     * clause if two of them conflict, and null otherwise.
+     */  
+    private Clause initUnits() {
+
+        units = new UnitIndex();
+        ArrayList<Clause> all = new ArrayList<Clause>(processed.clauses);
+        all.addAll(unprocessed.clauses);
+        for (Clause c:all) {
+            if (!c.isUnit())
+                continue;
+            Clause empty = unitConflict(c);
+            if (empty != null)
+                return empty;
+            units.add(c);
+        }
+        return null;
+    }
+
+    /** ***************************************************************
+     * Return the empty clause if the unit clause c conflicts with an
+     * indexed unit, and null otherwise.
+     */  
+    private Clause unitConflict(Clause c) {
+
+        Clause unit = units.findConflict(c);
+        if (unit == null)
+            return null;
+        Clause res = new Clause();
+        res.createName();
+        res.rationale = "resolution";
+        res.support.add(c.name);
+        res.support.add(unit.name);
+        c.supportsClauses.add(res.name);
+        unit.supportsClauses.add(res.name);
+        res.depth = Math.max(c.depth,unit.depth) + 1;
+        unitParents.put(c.name,c);
+        unitParents.put(unit.name,unit);
+        return res;
+    }
+
+    /** ***************************************************************
+     * Return null if an indexed unit subsumes c, and otherwise c with
+     * all literals cut whose negation is an instance of an indexed
+     * unit. If no literal is cut, c itself is returned.
+     */  
+    private Clause unitSimplify(Clause c) {
+
+        ArrayList<Literal> kept = null;
+        ArrayList<Clause> used = null;
+        for (int i = 0; i < c.literals.size(); i++) {
+            Literal lit = c.literals.get(i);
+            if (units.findMatching(lit,false) != null) {
+                unit_subsumed = unit_subsumed + 1;
+                return null;
+            }
+            Clause unit = units.findMatching(lit,true);
+            if (unit != null && kept == null) {
+                kept = new ArrayList<Literal>(c.literals.subList(0,i));
+                used = new ArrayList<Clause>();
+            }
+            if (unit != null)
+                used.add(unit);
+            else if (kept != null)
+                kept.add(lit);
+        }
+        if (kept == null)
+            return c;
+        unit_cut_literals = unit_cut_literals + used.size();
+        Clause res = new Clause();
+        res.createName();
+        res.addAll(kept);
+        res.rationale = "simplify_reflect";
+        res.support.add(c.name);
+        c.supportsClauses.add(res.name);
+        unitParents.put(c.name,c);
+        res.depth = c.depth;
+        for (Clause unit:used) {
+            if (!res.support.contains(unit.name))
+                res.support.add(unit.name);
+            unit.supportsClauses.add(res.name);
+            unitParents.put(unit.name,unit);
+            res.depth = Math.max(res.depth,unit.depth);
+        }
+        res.depth = res.depth + 1;
+        return res;
+    }
+
     /** ***************************************************************
      * Main proof procedure. If the clause set is found unsatisfiable, 
      * return the empty clause as a witness. Otherwise return null.
-     * Allow timeout to terminate the search.
-     * The timeout needs to be made more sophisticated, with a system
-     * interrupt, since just processing one clause could take infinite
-     * time, and therefore a timeout in this method would never occur.
+     * A Watchdog ends the search after the given number of seconds,
+     * or if the heap of the JVM grows beyond memoryLimit and this is
+     * the search with the most clauses, setting SZSresult to "Timeout"
+     * or "ResourceOut", respectively. The watchdog is also
+     * polled inside processClause(), so a single given clause cannot
+     * overrun the limits by much.
      */  
     public Clause saturate(int seconds) {
 
         long t1 = System.currentTimeMillis();
-        while (unprocessed.length() > 0) {
-            Clause res = processClause();
-            if (res != null) {
-                time = System.currentTimeMillis() - t1;
-                return res;
+        if (eventLog != null)
+            logStart(seconds);
+        Clause result = null;
+        watchdog = new Watchdog(seconds * 1000L,memoryLimit,parentWatchdog).start();
+        try {
+            while (unprocessed.length() > 0 && !Watchdog.isCancelled(watchdog)) {
+                result = processClause();
+                if (result != null)
+                    break;
+                watchdog.footprint = processed.length() + unprocessed.length();
             }
-            if (((System.currentTimeMillis() - t1) / 1000.0) > seconds) {
-                SZSresult = "timeout";
-                time = System.currentTimeMillis() - t1;
-                return null;
+            if (result == null && Watchdog.isCancelled(watchdog))
+                SZSresult = watchdog.reason;
+        }
+        catch (OutOfMemoryError oome) {
+            watchdog.cancel(Watchdog.ResourceOut);
+            SZSresult = Watchdog.ResourceOut;
+        }
+        finally {
+            watchdog.stop();
+            if (metrics != null) {
+                metrics.runs++;
+                ProverMetrics.addToTotals(metrics);
             }
         }
-        return null;
+        time = System.currentTimeMillis() - t1;
+        if (eventLog != null)
+            logEnd(result);
+        return result;
     }
     
+    /** ***************************************************************
+     * Write the configuration of this search to eventLog and start
+     * numbering and sampling its records.
+     */  
+    private void logStart(int seconds) {
+
+        run = eventLog.nextRun();
+        sampler = new Random(run);
+        EventLog.Record r = new EventLog.Record("start").add("run",run);
+        r.add("file",filename).add("eval",evalFunctionName);
+        r.add("delete_tautologies",delete_tautologies);
+        r.add("forward_subsumption",forward_subsumption);
+        r.add("backward_subsumption",backward_subsumption);
+        r.add("otter_loop",otter_loop);
+        r.add("delete_variants",delete_variants);
+        r.add("unit_simplification",unit_simplification);
+        r.add("term_ordering",term_ordering);
+        r.add("literal_selection",literal_selection);
+        r.add("timeout",seconds).add("memlimit",memoryLimit);
+        r.add("initial",initial_clause_count);
+        eventLog.log(r);
+    }
+
+    /** ***************************************************************
+     * Write the result and final counters of this search to eventLog.
+     */  
+    private void logEnd(Clause result) {
+
+        String status = "GaveUp";
+        if (result != null)
+            status = "Theorem";
+        else if (!Term.emptyString(SZSresult))
+            status = SZSresult;
+        EventLog.Record r = addCounters(new EventLog.Record("end"));
+        r.add("status",status).add("time",time);
+        eventLog.log(r);
+    }
+
+    /** ***************************************************************
+     * Add the run number and the current counters to r.
+     */  
+    private EventLog.Record addCounters(EventLog.Record r) {
+
+        r.add("run",run);
+        r.add("processed",proc_clause_count);
+        r.add("factors",factor_count);
+        r.add("resolvents",resolvent_count);
+        r.add("tautologies",tautologies_deleted);
+        r.add("forward_subsumed",forward_subsumed);
+        r.add("backward_subsumed",backward_subsumed);
+        r.add("duplicates",duplicates_deleted);
+        r.add("unit_subsumed",unit_subsumed);
+        r.add("unit_cut_literals",unit_cut_literals);
+        r.add("unprocessed_size",unprocessed.length());
+        r.add("processed_size",processed.length());
+        return r;
+    }
+
+    /** ***************************************************************
+     * Write a record of the clause to eventLog for a traceSample
+     * fraction of the calls.
+     */  
+    private void traceClause(String type, Clause c) {
+
+        if (traceSample <= 0 || (traceSample < 1 && sampler.nextDouble() >= traceSample))
+            return;
+        EventLog.Record r = new EventLog.Record(type).add("run",run);
+        r.add("name",c.name).add("length",c.length()).add("weight",c.weight(2,1));
+        r.add("clause",c.toString());
+        eventLog.offer(r);
+    }
+
     /** ***************************************************************
      */  
     public Clause saturate() {
@@ -221,7 +629,12 @@ public class ProofState {
         sb.append("# Tautologies deleted: " + tautologies_deleted + "\n");
         sb.append("# Forward subsumed   : " + forward_subsumed + "\n");
         sb.append("# Backward subsumed  : " + backward_subsumed + "\n");
+        sb.append("# Duplicates deleted : " + duplicates_deleted + "\n");
+        sb.append("# Unit subsumed      : " + unit_subsumed + "\n");
+        sb.append("# Unit cut literals  : " + unit_cut_literals + "\n");
         sb.append("# time               : " + time + "\n");
+        if (metrics != null)
+            sb.append(metrics.toString());
         return sb.toString();
     }
     
@@ -265,6 +678,8 @@ public class ProofState {
         sb.append(forward_subsumed + ",");
         sb.append(backward_subsumed + ",");
         sb.append(time);
+        if (metrics != null)
+            sb.append(metrics.toCSV());
         return sb.toString();
     }
     
@@ -597,6 +1012,24 @@ public class ProofState {
             //System.out.println(c.toStringJustify());
             clauseMap.put(c.name, c);
         }
+        // Add the parents of unit inferences that have not been processed,
+        // as far as they are referenced, since older copies of renumbered
+        // clauses may remain in unitParents.
+        HashMap<String,Clause> parents = new HashMap<String,Clause>();
+        for (Clause c:unitParents.values())
+            if (c.name != null)
+                parents.put(c.name,c);
+        ArrayList<Clause> open = new ArrayList<Clause>(clauseMap.values());
+        open.add(res);
+        while (open.size() > 0) {
+            Clause c = open.remove(open.size() - 1);
+            for (String s:c.support) {
+                if (s != null && !clauseMap.containsKey(s) && parents.containsKey(s)) {
+                    clauseMap.put(s,parents.get(s));
+                    open.add(parents.get(s));
+                }
+            }
+        }
         clauseMap.putAll(searchProof(clauseMap,res));    // get just the clauses in the proof    
         graph.putAll(createGraph(clauseMap));            // turn into a graph with pointers and backpointers
     }
@@ -705,12 +1138,177 @@ public class ProofState {
         //evalSatResult(spec3, false);
     }
     
+    /** ***************************************************************
+     * Test that the Otter loop deletes generated tautologies and
+     * subsumed clauses before they are added to the unprocessed set.
+     */
+    public static void testOtterLoop() {
+
+        System.out.println("INFO in ProofState.testOtterLoop(): all should be true");
+        // c2 resolves with c1 to two tautologies, and c5 with s(a) to
+        // r(a), which the processed c3 subsumes
+        String spec = "cnf(c1,axiom,p(X)|~q(X)).\n" +
+            "cnf(c2,axiom,q(Y)|~p(Y)).\n" +
+            "cnf(c3,axiom,r(a)).\n" +
+            "cnf(c4,axiom,s(a)).\n" +
+            "cnf(c5,axiom,~s(X)|r(X)).\n";
+        ClauseSet cs = Formula.string2clauses(spec);
+        ProofState discount = new ProofState(cs,ClauseEvaluationFunction.FIFOEval.freshCopy());
+        discount.delete_tautologies = true;
+        discount.forward_subsumption = true;
+        ProofState otter = new ProofState(cs,ClauseEvaluationFunction.FIFOEval.freshCopy());
+        otter.delete_tautologies = true;
+        otter.forward_subsumption = true;
+        otter.otter_loop = true;
+        for (int i = 0; i < cs.length(); i++) {
+            discount.processClause();
+            otter.processClause();
+        }
+        System.out.println(discount.unprocessed.length() == 3);
+        System.out.println(discount.tautologies_deleted == 0 && discount.forward_subsumed == 0);
+        System.out.println(otter.unprocessed.length() == 0);
+        System.out.println(otter.tautologies_deleted == 2 && otter.forward_subsumed == 1);
+    }
+
+    /** ***************************************************************
+     * Test that variants of earlier clauses are not added again.
+     */
+    public static void testDeleteVariants() {
+
+        System.out.println("INFO in ProofState.testDeleteVariants(): all should be true");
+        Clause c1 = Clause.string2Clause("cnf(c1,axiom,q(Y)|~p(X,Y)|r(X)).");
+        Clause c2 = Clause.string2Clause("cnf(c2,axiom,~p(U,V)|r(U)|q(V)).");
+        Clause c3 = Clause.string2Clause("cnf(c3,axiom,~p(U,V)|r(V)|q(U)).");
+        System.out.println(c1.fingerprint().equals(c2.fingerprint()));
+        System.out.println(!c1.fingerprint().equals(c3.fingerprint()));
+        // c3 yields q(a,Y), a variant of the unprocessed c4, and c5
+        // yields p(a), a variant of the processed c1
+        String spec = "cnf(c1,axiom,p(a)).\n" +
+            "cnf(c2,axiom,r(b)).\n" +
+            "cnf(c3,axiom,~p(X)|q(X,Y)).\n" +
+            "cnf(c4,axiom,q(a,Z)).\n" +
+            "cnf(c5,axiom,~r(X)|p(a)).\n";
+        ClauseSet cs = Formula.string2clauses(spec);
+        ProofState plain = new ProofState(cs,ClauseEvaluationFunction.FIFOEval.freshCopy());
+        ProofState state = new ProofState(cs,ClauseEvaluationFunction.FIFOEval.freshCopy());
+        state.delete_variants = true;
+        for (int i = 0; i < cs.length(); i++) {
+            plain.processClause();
+            state.processClause();
+        }
+        System.out.println(plain.unprocessed.length() == 3 && plain.duplicates_deleted == 0);
+        System.out.println(state.unprocessed.length() == 1 && state.duplicates_deleted == 2);
+        HashSet<String> seen = new HashSet<String>();
+        boolean unique = true;
+        for (Clause c:state.unprocessed.clauses)
+            unique = seen.add(c.fingerprint()) && unique;
+        for (Clause c:state.processed.clauses)
+            unique = seen.add(c.fingerprint()) && unique;
+        System.out.println(unique);
+    }
+
+    /** ***************************************************************
+     * Test that a clause shortened by simplify-reflect is fingerprinted,
+     * so that a later variant of it is deleted.
+     */
+    public static void testSimplifiedVariants() {
+
+        System.out.println("INFO in ProofState.testSimplifiedVariants(): all should be true");
+        ClauseSet cs = Formula.string2clauses("cnf(a1,axiom,p(a)).\ncnf(a2,axiom,r(b)).\n");
+        ProofState state = new ProofState(cs,ClauseEvaluationFunction.FIFOEval.freshCopy());
+        state.delete_variants = true;
+        state.unit_simplification = true;
+        state.initUnits();
+        HashSet<String> variants = state.getFingerprints();
+        System.out.println(state.insertClause(Clause.string2Clause("cnf(n1,plain,q(X)|~p(a))."),variants) == null);
+        System.out.println(state.unit_cut_literals == 1);
+        int size = state.unprocessed.length();
+        state.insertClause(Clause.string2Clause("cnf(n2,plain,q(Y))."),variants);
+        System.out.println(state.duplicates_deleted == 1);
+        System.out.println(state.unprocessed.length() == size);
+    }
+
+    /** ***************************************************************
+     * Test that simplify-reflect shortens a new clause with the units,
+     * that the shortened unit is used to simplify later clauses, and
+     * that the proof can be reconstructed.
+     */
+    public static void testUnitSimplification() {
+
+        System.out.println("INFO in ProofState.testUnitSimplification(): all should be true");
+        ClauseSet cs = Formula.string2clauses("cnf(a1,axiom,p(a)).\ncnf(a2,axiom,~r(b)).\n");
+        ProofState state = new ProofState(cs,ClauseEvaluationFunction.FIFOEval.freshCopy());
+        state.unit_simplification = true;
+        state.initUnits();
+        Clause c = Clause.string2Clause("cnf(n1,plain,q(X)|~p(a)|r(b)).");
+        System.out.println(state.insertClause(c,null) == null);
+        System.out.println(state.unit_cut_literals == 2);
+        Clause q = state.unprocessed.clauses.get(state.unprocessed.length() - 1);
+        System.out.println(q.isUnit() && q.rationale.equals("simplify_reflect") && q.support.size() == 3);
+        // the new unit q(X) and p(a) cut both literals of ~q(c)|~p(a)
+        state.res = state.insertClause(Clause.string2Clause("cnf(n2,plain,~q(c)|~p(a))."),null);
+        System.out.println(state.res != null && state.res.isEmpty());
+        TreeMap<String,Clause> proof = state.generateProofTree(state.res);
+        boolean complete = true;
+        int reflected = 0;
+        for (Clause pc:proof.values()) {
+            if (pc.rationale.equals("simplify_reflect"))
+                reflected++;
+            for (String name:pc.support)
+                complete = complete && proof.containsKey(name);
+        }
+        System.out.println(proof.size() == 6 && reflected == 2);
+        System.out.println(complete);
+    }
+
+    /** ***************************************************************
+     * Test that an ordering only resolves on maximal literals and that
+     * a selected literal is the only one resolved on.
+     */
+    public static void testOrderedResolution() {
+
+        System.out.println("INFO in ProofState.testOrderedResolution(): all should be true");
+        // only one of p(f(X)) and q(X) is maximal, in KBO p(f(X))
+        ClauseSet ordered = Formula.string2clauses("cnf(c1,axiom,~p(Y)).\n" +
+            "cnf(c2,axiom,~q(Y)).\ncnf(c3,axiom,p(f(X))|q(X)).\n");
+        // every literal of c3 is negative, so selection picks one
+        ClauseSet selected = Formula.string2clauses("cnf(c1,axiom,p(a)).\n" +
+            "cnf(c2,axiom,q(f(a))).\ncnf(c3,axiom,~p(X)|~q(f(X))).\n");
+        String[] orderings = { "none", "kbo", "lpo" };
+        for (int i = 0; i < orderings.length; i++) {
+            ProofState state = new ProofState(ordered,ClauseEvaluationFunction.FIFOEval.freshCopy());
+            state.term_ordering = orderings[i];
+            for (int j = 0; j < 3; j++)
+                state.processClause();
+            System.out.println(state.resolvent_count == (i == 0 ? 2 : 1));
+        }
+        String[] selections = { "none", "first", "smallest", "largest" };
+        for (int i = 0; i < selections.length; i++) {
+            ProofState state = new ProofState(selected,ClauseEvaluationFunction.FIFOEval.freshCopy());
+            state.literal_selection = selections[i];
+            for (int j = 0; j < 3; j++)
+                state.processClause();
+            System.out.println(state.resolvent_count == (i == 0 ? 2 : 1));
+        }
+        ProofState kbo = new ProofState(ordered,ClauseEvaluationFunction.FIFOEval.freshCopy());
+        kbo.term_ordering = "kbo";
+        for (int j = 0; j < 3; j++)
+            kbo.processClause();
+        System.out.println(kbo.unprocessed.length() == 1 &&
+                           kbo.unprocessed.clauses.get(0).toString().indexOf("q(X") > -1);
+    }
+
     /** ***************************************************************
      * Test method for this class.
      */
     public static void main(String[] args) {
                 
         ClauseEvaluationFunction.setupEvaluationFunctions();
+        testOtterLoop();
+        testDeleteVariants();
+        testSimplifiedVariants();
+        testUnitSimplification();
+        testOrderedResolution();
         testSaturation();
     }    
 }
@@ -21,6 +21,7 @@ MA  02111-1307 USA
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.text.*;
 
 public class Prover2 {
@@ -44,6 +45,13 @@ public class Prover2 {
         "--timeout\n" +
         "Must be followed by an integer, which is a timeout in seconds.\n" +
         "\n" +
+        "--memlimit\n" +
+        "Must be followed by an integer, which is a limit in megabytes on the heap of\n" +
+        "the whole JVM, not of a single search. If the heap that is still used after\n" +
+        "garbage collection exceeds it, the search with the most clauses, of those run\n" +
+        "in parallel with --batch, --portfolio or --server, ends with status ResourceOut.\n" +
+        "Default is 90% of the maximal heap of the JVM.\n" +
+        "\n" +
         " -t\n" +
         "--delete-tautologies\n" +
         "Discard the given clause if it is a tautology.\n" +
@@ -57,8 +65,48 @@ public class Prover2 {
         " -b\n" +
         "--backward-subsumption\n" +
         "Discard processed clauses if they are subsumed by the given clause.\n" +
+        " --otter\n" +
+        "Also delete tautologies (with -t), forward subsumed clauses (with -f) and duplicates\n" +
+        "among newly generated clauses before they are added to the unprocessed clauses,\n" +
+        "instead of only when they are selected.\n" +
+        " --variants\n" +
+        "Discard newly generated clauses that are variants of clauses that already are,\n" +
+        "or have been, processed or unprocessed.\n" +
+        " --units\n" +
+        "Index unit clauses and use them on newly generated clauses to find unit\n" +
+        "conflicts at once, delete clauses they subsume and cut literals they refute.\n" +
+        " --ordering\n" +
+        "Must be followed by kbo or lpo. Only resolve and factor on the literals of a\n" +
+        "clause that are maximal in the Knuth-Bendix or lexicographic path ordering.\n" +
+        "Default is none.\n" +
+        " --select\n" +
+        "Must be followed by first, smallest or largest. Only resolve on that negative\n" +
+        "literal of a clause, if it has one, and do not factor it. Default is none.\n" +
         " -i\n" +
         "File include path directive.\n" +
+        " --server\n" +
+        "Must be followed by a port number. Load the given file as a knowledge base and\n" +
+        "answer queries sent to that port on the local host, see ProverServer. Up to\n" +
+        "--threads queries are run in parallel.\n" +
+        " --cache\n" +
+        "Must be followed by a directory. Clausified include files are stored there and\n" +
+        "read back by later runs as long as the included file is unchanged.\n" +
+        " --batch\n" +
+        "Run all problems in a directory, or listed one per line in a file, in parallel\n" +
+        "and print a line of comma delimited statistics for each as soon as it is done.\n" +
+        "These lines are the only output on standard output, all other messages go to\n" +
+        "standard error.\n" +
+        " --threads\n" +
+        "Must be followed by an integer, the number of problems run in parallel with\n" +
+        "--batch. Default is the number of available processors.\n" +
+        " --portfolio\n" +
+        "Run the configurations selected by --allStrat and --allOpts in parallel and stop\n" +
+        "all of them as soon as one finds a proof.\n" +
+        " --schedule\n" +
+        "Must be followed by a comma separated list of time slices in seconds, one per\n" +
+        "portfolio configuration in order. Configurations without a slice get the full\n" +
+        "timeout. With fewer --threads than configurations, later ones start when earlier\n" +
+        "ones end.\n" +
         " --experiment\n" +
         "Run an experiment to total times for all tests in a given directory (deprecated, use script instead).\n" +
         " --allOpts\n" +
@@ -75,12 +123,27 @@ public class Prover2 {
         "Print statistics.\n" +
         " --csvstats\n" +
         "Print statistics in comma delimited format.\n" +
+        " --metrics\n" +
+        "Measure the time of each phase of the search, unification success rates,\n" +
+        "clause length and weight histograms and peak clause set sizes. They are added\n" +
+        "to --stats and --csvstats and their totals are available over JMX as\n" +
+        "atp:type=ProverMetrics.\n" +
+        " --eventlog\n" +
+        "Must be followed by a file name. Write the configuration, periodic snapshots of\n" +
+        "the counters and the result of every search to that file, one JSON object per line.\n" +
+        " --snapshot\n" +
+        "Must be followed by an integer, the number of given clauses between snapshots in\n" +
+        "the --eventlog. Default is 100, 0 for none.\n" +
+        " --trace\n" +
+        "Must be followed by a number between 0 and 1, the fraction of given and generated\n" +
+        "clauses written to the --eventlog. Default is 0.\n" +
         " -d\n" +
         "Generate proof output in dot-graph format. Dotgraph and proof options are mutually exclusive.\n" +
         " -c\n" +
         "not yet implemented - command line interactive mode.  Run query on file and keep loaded after result. Short timeout recommended.";
 
     public static String errors = "";
+    public static EventLog eventLog = null;  // see --eventlog
     
     /** ***************************************************************
      * canonicalize options into a name/value list.
@@ -102,8 +165,28 @@ public class Prover2 {
                     result.put("stats", "true");
                 if (arg.equals("--csvstats"))
                     result.put("csvstats", "true");                  
+                if (arg.equals("--metrics"))
+                    result.put("metrics", "true");
                 if (arg.equals("--experiment"))
                     result.put("experiment", "true");
+                if (arg.equals("--batch"))
+                    result.put("batch", "true");
+                if (arg.equals("--portfolio"))
+                    result.put("portfolio", "true");
+                if (arg.equals("--schedule")) {
+                    if (i + 1 >= args.length || parseSchedule(args[i+1]) == null)
+                        return null;
+                    result.put("schedule",args[i+1]);
+                }
+                if (arg.equals("--threads")) {
+                    try {
+                         int val = Integer.parseInt(args[i+1]);
+                    }
+                    catch (NumberFormatException n) {
+                        return null;
+                    }
+                    result.put("threads",args[i+1]);
+                }
                 if (arg.equals("--allStrat"))
                     result.put("allStrat", "true");
                 if (arg.equals("--sine"))
@@ -116,6 +199,22 @@ public class Prover2 {
                     result.put("forward-subsumption","true");
                 if (arg.equals("--backward_subsumption"))
                     result.put("backward_subsumption","true");
+                if (arg.equals("--otter"))
+                    result.put("otter","true");
+                if (arg.equals("--variants"))
+                    result.put("variants","true");
+                if (arg.equals("--units"))
+                    result.put("units","true");
+                if (arg.equals("--ordering")) {
+                    if (i + 1 >= args.length || !Term.isName(args[i+1],TermOrdering.names))
+                        return null;
+                    result.put("ordering",args[i+1]);
+                }
+                if (arg.equals("--select")) {
+                    if (i + 1 >= args.length || !Term.isName(args[i+1],LiteralSelection.names))
+                        return null;
+                    result.put("select",args[i+1]);
+                }
                 if (arg.equals("--timeout")) {
                     try {
                          int val = Integer.parseInt(args[i+1]);
@@ -125,6 +224,52 @@ public class Prover2 {
                     }
                     result.put("timeout",args[i+1]);
                 }
+                if (arg.equals("--server")) {
+                    try {
+                         int val = Integer.parseInt(args[i+1]);
+                    }
+                    catch (Exception e) {
+                        return null;
+                    }
+                    result.put("server",args[i+1]);
+                }
+                if (arg.equals("--cache")) {
+                    if (i + 1 >= args.length)
+                        return null;
+                    ClauseCache.cacheDir = args[i+1];
+                }
+                if (arg.equals("--eventlog")) {
+                    if (i + 1 >= args.length)
+                        return null;
+                    result.put("eventlog",args[i+1]);
+                }
+                if (arg.equals("--snapshot")) {
+                    try {
+                         int val = Integer.parseInt(args[i+1]);
+                    }
+                    catch (Exception e) {
+                        return null;
+                    }
+                    result.put("snapshot",args[i+1]);
+                }
+                if (arg.equals("--trace")) {
+                    try {
+                         double val = Double.parseDouble(args[i+1]);
+                    }
+                    catch (Exception e) {
+                        return null;
+                    }
+                    result.put("trace",args[i+1]);
+                }
+                if (arg.equals("--memlimit")) {
+                    try {
+                         int val = Integer.parseInt(args[i+1]);
+                    }
+                    catch (NumberFormatException n) {
+                        return null;
+                    }
+                    result.put("memlimit",args[i+1]);
+                }
             }
             else if (arg.startsWith("-")) {
                 for (int j = 1; j < arg.length(); j++) {
@@ -178,6 +323,29 @@ public class Prover2 {
             state.forward_subsumption = true;
         if (opts.containsKey("backward_subsumption"))
             state.backward_subsumption = true;
+        if (opts.containsKey("otter"))
+            state.otter_loop = true;
+        if (opts.containsKey("variants"))
+            state.delete_variants = true;
+        if (opts.containsKey("units"))
+            state.unit_simplification = true;
+        if (opts.containsKey("ordering"))
+            state.term_ordering = opts.get("ordering");
+        if (opts.containsKey("select"))
+            state.literal_selection = opts.get("select");
+        if (opts.containsKey("memlimit"))
+            state.memoryLimit = Long.parseLong(opts.get("memlimit")) * 1024L * 1024L;
+        if (opts.containsKey("metrics")) {
+            state.metrics = new ProverMetrics();
+            ProverMetrics.registerMBean();
+        }
+        if (eventLog != null) {
+            state.eventLog = eventLog;
+            if (opts.containsKey("snapshot"))
+                state.snapshotInterval = Integer.parseInt(opts.get("snapshot"));
+            if (opts.containsKey("trace"))
+                state.traceSample = Double.parseDouble(opts.get("trace"));
+        }
     }
 
     /** ***************************************************************
@@ -199,23 +367,164 @@ public class Prover2 {
         ArrayList<ProofState> result = new ArrayList<ProofState>();
         for (int i = 0; i < 8; i++) {
             ProofState state = new ProofState(clauses,efunctions);
-            if ((i & 1) == 0)
-                state.delete_tautologies = false;
-            else
-                state.delete_tautologies = true;
-            if ((i & 2) == 0)
-                state.forward_subsumption = false;
-            else
-                state.forward_subsumption = true;
-            if ((i & 4) == 0)
-                state.backward_subsumption = false;
-            else
-                state.backward_subsumption = true;
+            setStateOptions(state,i);
             result.add(state);
         }
         return result;
     }
 
+    /** ***************************************************************
+     * Set tautology deletion, forward and backward subsumption of the
+     * state according to bits 0, 1 and 2 of i.
+     */
+    public static void setStateOptions(ProofState state, int i) {
+
+        if ((i & 1) == 0)
+            state.delete_tautologies = false;
+        else
+            state.delete_tautologies = true;
+        if ((i & 2) == 0)
+            state.forward_subsumption = false;
+        else
+            state.forward_subsumption = true;
+        if ((i & 4) == 0)
+            state.backward_subsumption = false;
+        else
+            state.backward_subsumption = true;
+    }
+
+    /** ***************************************************************
+     * Parse a comma separated list of time slices in seconds.
+     * @return null if the list is malformed.
+     */
+    public static ArrayList<Integer> parseSchedule(String s) {
+
+        ArrayList<Integer> result = new ArrayList<Integer>();
+        String[] slices = s.split(",");
+        for (int i = 0; i < slices.length; i++) {
+            try {
+                int val = Integer.parseInt(slices[i].trim());
+                if (val < 1)
+                    return null;
+                result.add(Integer.valueOf(val));
+            }
+            catch (NumberFormatException n) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    /** ***************************************************************
+     * Create the proof states of a portfolio: one for each evaluation
+     * scheme, and for each of these all eight option combinations if
+     * --allOpts is given. Every state gets its own copy of the clauses
+     * and evaluation functions, so that they can run in parallel.
+     */
+    public static ArrayList<ProofState> createPortfolio(String filename, ClauseSet cs, HashMap<String,String> opts,
+                                                        ArrayList<EvalStructure> evals) {
+
+        ArrayList<ProofState> result = new ArrayList<ProofState>();
+        for (int i = 0; i < evals.size(); i++) {
+            EvalStructure eval = evals.get(i);
+            int count = 1;
+            if (opts.containsKey("allOpts"))
+                count = 8;
+            for (int j = 0; j < count; j++) {
+                ProofState state = new ProofState(cs.deepCopy(),eval.freshCopy());
+                setStateOptions(state,opts);
+                if (opts.containsKey("allOpts"))
+                    setStateOptions(state,j);
+                state.filename = filename;
+                state.evalFunctionName = eval.name;
+                result.add(state);
+            }
+        }
+        return result;
+    }
+
+    /** ***************************************************************
+     * Race the proof states on a pool of threads. As soon as one finds
+     * the empty clause all others are stopped and the successful state
+     * is returned. If none succeeds, return a state that timed out or
+     * ran out of memory, if any, and the last one to finish otherwise.
+     * States that never started, since the time was up before a thread
+     * was free, are only returned if no state ran at all. The clause
+     * sets of the states that are not returned are released as soon
+     * as they finish. The heap is bounded by the watchdogs of the
+     * states, whose shared heap monitor only ends the state with the
+     * most clauses (see Watchdog), so the portfolio only limits the
+     * time.
+     */
+    public static ProofState runPortfolio(ArrayList<ProofState> states, HashMap<String,String> opts) {
+
+        final int timeout = getTimeout(opts);
+        ArrayList<Integer> schedule = new ArrayList<Integer>();
+        if (opts.containsKey("schedule"))
+            schedule = parseSchedule(opts.get("schedule"));
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (opts.containsKey("threads"))
+            threads = Integer.parseInt(opts.get("threads"));
+        threads = Math.max(1,Math.min(threads,states.size()));
+        final Watchdog master = new Watchdog(timeout * 1000L,Watchdog.NoHeapLimit).start();
+        final RunContext base = RunContext.get();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<ProofState> ecs = new ExecutorCompletionService<ProofState>(pool);
+        for (int i = 0; i < states.size(); i++) {
+            final ProofState state = states.get(i);
+            int slice = timeout;
+            if (i < schedule.size())
+                slice = Math.min(timeout,schedule.get(i).intValue());
+            final int limit = slice;
+            ecs.submit(new Callable<ProofState>() {
+                public ProofState call() {
+                    RunContext.set(base.copy());
+                    if (Watchdog.isCancelled(master)) {
+                        state.SZSresult = master.reason;
+                        state.release();
+                        return null;  // never started
+                    }
+                    state.parentWatchdog = master;
+                    state.res = state.saturate(limit);
+                    return state;
+                }
+            });
+        }
+        ProofState result = null;
+        for (int i = 0; i < states.size(); i++) {
+            ProofState state = null;
+            try {
+                state = ecs.take().get();
+            }
+            catch (InterruptedException ie) {
+                break;
+            }
+            catch (ExecutionException ee) {
+                System.out.println("Error in Prover2.runPortfolio(): " + ee.getCause());
+                continue;
+            }
+            if (state == null)
+                continue;
+            if (state.res != null ||
+                result == null || Term.emptyString(result.SZSresult) ||
+                (Watchdog.Timeout.equals(state.SZSresult) || Watchdog.ResourceOut.equals(state.SZSresult))) {
+                if (result != null)
+                    result.release();
+                result = state;
+            }
+            else
+                state.release();
+            if (state.res != null)
+                break;
+        }
+        master.cancel("GaveUp");
+        master.stop();
+        pool.shutdownNow();
+        if (result == null && states.size() > 0)
+            result = states.get(0);
+        return result;
+    }
+
     /** ***************************************************************
      */
     public static int getTimeout(HashMap<String,String> opts) {
@@ -244,6 +553,157 @@ public class Prover2 {
         }
     }
     
+    /** ***************************************************************
+     * Return the problem files named by filename, which is either a
+     * directory, whose files ending in ".p" are returned, or a file
+     * that lists one problem file per line.
+     */
+    public static ArrayList<String> batchFiles(String filename) {
+
+        ArrayList<String> result = new ArrayList<String>();
+        File f = new File(filename);
+        if (f.isDirectory()) {
+            String[] children = f.list();
+            if (children != null) {
+                Arrays.sort(children);
+                for (int i = 0; i < children.length; i++)
+                    if (children[i].endsWith(".p"))
+                        result.add(filename + File.separator + children[i]);
+            }
+            return result;
+        }
+        try {
+            BufferedReader br = new BufferedReader(new FileReader(f));
+            String line = null;
+            while ((line = br.readLine()) != null) {
+                line = line.trim();
+                if (line.length() > 0 && !line.startsWith("#"))
+                    result.add(line);
+            }
+            br.close();
+        }
+        catch (IOException ioe) {
+            System.out.println("Error in Prover2.batchFiles(): " + ioe.getMessage());
+        }
+        return result;
+    }
+
+    /** ***************************************************************
+     * Return the SZS status of a finished proof search.
+     */
+    public static String getStatus(ProofState state) {
+
+        if (state == null)
+            return "Error";
+        if (state.res != null)
+            return "Theorem";
+        if (!Term.emptyString(state.SZSresult))
+            return state.SZSresult;
+        return "GaveUp";
+    }
+
+    /** ***************************************************************
+     * Run a single problem of a batch in the current thread, with its
+     * own counters and evaluation functions, and return its line of
+     * statistics followed by its SZS status.
+     */
+    public static String runBatchProblem(String filename, HashMap<String,String> opts, ArrayList<EvalStructure> evals) {
+
+        RunContext.reset();
+        ArrayList<EvalStructure> fresh = new ArrayList<EvalStructure>();
+        for (int i = 0; i < evals.size(); i++)
+            fresh.add(evals.get(i).freshCopy());
+        ProofState state = null;
+        String status = "Error";
+        try {
+            state = processTestFile(filename,opts,fresh);
+            status = getStatus(state);
+        }
+        catch (OutOfMemoryError oome) {
+            status = Watchdog.ResourceOut;
+        }
+        catch (RuntimeException re) {
+            System.out.println("Error in Prover2.runBatchProblem(): " + filename + ": " + re);
+        }
+        if (state == null) {
+            StringBuffer sb = new StringBuffer(filename);
+            for (int i = 0; i < 12; i++)
+                sb.append(",");
+            if (opts.containsKey("metrics"))
+                sb.append(ProverMetrics.emptyCSV());
+            return sb.toString() + "," + status;
+        }
+        return state.generateMatrixStatisticsString() + "," + status;
+    }
+
+    /** ***************************************************************
+     * Run all problems of a batch on a pool of worker threads. Each
+     * problem is bounded by the timeout given in the options. The
+     * memory limit is a ceiling on the heap of the whole JVM, shared
+     * by all workers: when it is exceeded, only the problem with the
+     * most clauses ends with ResourceOut (see Watchdog). Results are
+     * printed in the order in which the problems finish. They are the
+     * only lines printed to standard output, which is redirected to
+     * standard error while the batch runs, so that the progress and
+     * info messages of the workers cannot end up inside a row.
+     */
+    private static void runBatch(final HashMap<String,String> opts, final ArrayList<EvalStructure> evals) {
+
+        PrintStream csv = System.out;
+        System.setOut(System.err);
+        try {
+            runBatch(opts,evals,csv);
+        }
+        finally {
+            System.setOut(csv);
+        }
+    }
+
+    /** ***************************************************************
+     * Run all problems of a batch, printing the results to csv.
+     */
+    private static void runBatch(final HashMap<String,String> opts, final ArrayList<EvalStructure> evals,
+                                 PrintStream csv) {
+
+        ArrayList<String> files = batchFiles(opts.get("filename"));
+        if (opts.containsKey("allOpts")) {
+            System.out.println("Warning in Prover2.runBatch(): --allOpts is ignored in batch mode.");
+            opts.remove("allOpts");
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (opts.containsKey("threads"))
+            threads = Integer.parseInt(opts.get("threads"));
+        if (threads < 1)
+            threads = 1;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<String> ecs = new ExecutorCompletionService<String>(pool);
+        for (int i = 0; i < files.size(); i++) {
+            final String filename = files.get(i);
+            ecs.submit(new Callable<String>() {
+                public String call() {
+                    return runBatchProblem(filename,opts,evals);
+                }
+            });
+        }
+        String header = ProofState.generateMatrixHeaderStatisticsString();
+        if (opts.containsKey("metrics"))
+            header = header + ProverMetrics.csvHeader();
+        csv.println(header + "Status");
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                csv.println(ecs.take().get());
+            }
+            catch (InterruptedException ie) {
+                System.out.println("Error in Prover2.runBatch(): interrupted");
+                break;
+            }
+            catch (ExecutionException ee) {
+                System.out.println("Error in Prover2.runBatch(): " + ee.getCause());
+            }
+        }
+        pool.shutdownNow();
+    }
+
     /** ***************************************************************
      */
     public static void printStateResults(HashMap<String,String> opts, ProofState state, ClauseSet query) {
@@ -291,6 +751,9 @@ public class Prover2 {
                 System.out.println(cs);
             if (opts.containsKey("eqax"))
                 cs = cs.addEqAxioms();
+            SINE sine = null;
+            if (cs != null && opts.containsKey("sine"))
+                sine = new SINE(cs);
             if (cs != null) {
                 while (!command.startsWith("$exit")) {
                     System.out.print("TPTP> ");
@@ -309,16 +772,19 @@ public class Prover2 {
                             ClauseSet csnew = Formula.command2clauses(id, lex2, timeout);
                             if (opts.containsKey("verbose"))
                                 System.out.println(cs);
-                            if (csnew != null)
+                            if (csnew != null) {
                                 cs.addAll(csnew);
+                                if (sine != null)
+                                    sine.addAll(csnew);
+                            }
                         }
                         else {               
-                            ClauseSet csnew = cs.deepCopy();  // don't add query to the knowledge base
                             ClauseSet query = Formula.command2clauses(id, lex2, timeout);
-                            if (opts.containsKey("sine")) {
-                                SINE sine = new SINE(cs);                            
-                                csnew = sine.filter(query.extractFirst());
-                            }
+                            ClauseSet csnew = new ClauseSet();  // don't add query to the knowledge base
+                            if (sine != null)
+                                csnew = sine.filter(query.get(0));
+                            else
+                                csnew.addAll(cs);  // ProofState copies the clauses
                             if (opts.containsKey("verbose"))
                                 System.out.println(query);
                             csnew.addAll(query);
@@ -354,6 +820,26 @@ public class Prover2 {
         }
     }
     
+    /** ***************************************************************
+     * Load the knowledge base given as file name and answer queries
+     * over a socket until the process is killed.
+     */
+    private static void runServer(HashMap<String,String> opts, ArrayList<EvalStructure> evals) {
+
+        if (evals.size() > 1) 
+            System.out.println("Warning in Prover2.runServer(): more than one evaluation function, using first only.");        
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (opts.containsKey("threads"))
+            threads = Integer.parseInt(opts.get("threads"));
+        try {
+            ProverServer server = new ProverServer(opts.get("filename"),opts,evals.get(0));
+            server.run(Integer.parseInt(opts.get("server")),threads);
+        }
+        catch (IOException ioe) {
+            System.out.println("Error in Prover2.runServer(): " + ioe.getMessage());
+        }
+    }
+
     /** ***************************************************************
      * Process a particular problem file with the given list of subsumption
      * options and clause evaluation strategies.
@@ -377,6 +863,8 @@ public class Prover2 {
         }
         if (opts.containsKey("verbose"))         	
             System.out.println("# Clauses:\n" + cs);        
+        if (cs != null && opts.containsKey("portfolio"))
+            return runPortfolio(createPortfolio(filename,cs,opts,evals),opts);
         if (cs != null) {
             for (int i = 0; i < evals.size(); i++) {
                 EvalStructure eval = evals.get(i);
@@ -384,6 +872,7 @@ public class Prover2 {
                     ArrayList<ProofState> states = setAllStateOptions(cs,evals.get(i));
                     for (int j = 0; j < states.size(); j++) {
                         ProofState state = states.get(j);                        
+                        setStateOptions(state,opts);
                         state.filename = filename;
                         state.evalFunctionName = eval.name;                            
                         state.res = state.saturate(timeout);
@@ -403,10 +892,8 @@ public class Prover2 {
                     if (state.res != null) {
                     	if (cs.SZS.indexOf("Satisfiable") > -1 || cs.SZS.indexOf("CounterSatisfiable") > -1) 
                     		System.out.println("########### DANGER Proof found for " + cs.SZS + " problem ###############");
-                        return state;
                     }
-                    else
-                        return null;
+                    return state;
                 }
             }
         }            
@@ -414,13 +901,50 @@ public class Prover2 {
     }
     
     /** ***************************************************************
-     * Test method for this class.  
+     * ************ UNIT TESTS *****************
+     * Test that a portfolio returns a proof, and that a state that never
+     * started does not replace one that ran.
+     */
+    public static void testPortfolio() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in Prover2.testPortfolio(): all should be true");
+        ClauseEvaluationFunction.setupEvaluationFunctions();
+        String filename = "problems/puz_agatha.p";
+        ClauseSet cs = Formula.file2clauses(filename,10);
+        ArrayList<EvalStructure> evals = setAllEvalOptions();
+        HashMap<String,String> opts = new HashMap<String,String>();
+        opts.put("timeout","20");
+        opts.put("threads",Integer.toString(evals.size()));
+        long t = System.currentTimeMillis();
+        ProofState state = runPortfolio(createPortfolio(filename,cs,opts,evals),opts);
+        System.out.println(getStatus(state).equals("Theorem"));
+        System.out.println(System.currentTimeMillis() - t < 20000);
+        System.out.println(state.generateProofTree(state.res).size() > 0);
+
+        // FIFOEval, which comes first, takes the whole time of one thread
+        opts.put("timeout","2");
+        opts.put("threads","1");
+        ArrayList<ProofState> states = createPortfolio(filename,cs,opts,evals);
+        state = runPortfolio(states,opts);
+        System.out.println(state == states.get(0) && state.proc_clause_count > 0);
+        System.out.println(getStatus(state).equals(Watchdog.Timeout));
+        System.out.println(states.get(1).processed == null && states.get(1).proc_clause_count == 0);
+    }
+
+    /** ***************************************************************
+     * Test method for this class.  Without arguments, run the unit
+     * tests.
      */
     public static void main(String[] args) {
           
+        if (args.length == 0) {
+            testPortfolio();
+            return;
+        }
         Formula.defaultPath = System.getenv("TPTP");
-        System.out.println("Using default include path : " + Formula.defaultPath);
         if (args[0].equals("-h") || args[0].equals("--help")) {
+            System.out.println("Using default include path : " + Formula.defaultPath);
             System.out.println(doc);
             return;
         }
@@ -432,6 +956,18 @@ public class Prover2 {
                 System.out.println("Error in Prover2.main(): bad command line options.");
                 return;
             }
+            // in batch mode, standard output only gets the statistics
+            PrintStream info = opts.containsKey("batch") ? System.err : System.out;
+            info.println("Using default include path : " + Formula.defaultPath);
+            if (opts.containsKey("eventlog")) {
+                try {
+                    eventLog = new EventLog(opts.get("eventlog"));
+                }
+                catch (IOException ioe) {
+                    System.out.println("Error in Prover2.main(): can't open event log: " + ioe.getMessage());
+                    return;
+                }
+            }
                 
             if (opts.containsKey("allStrat")) 
                 evals = setAllEvalOptions();            
@@ -441,20 +977,31 @@ public class Prover2 {
             }
             boolean dotgraph = false;
 
-            if (opts.containsKey("experiment")) 
+            if (opts.containsKey("batch")) 
+                runBatch(opts,evals);
+            else if (opts.containsKey("experiment")) 
                 runExperiment(opts,evals);
+            else if (opts.containsKey("server"))
+                runServer(opts,evals);
             else if (opts.containsKey("interactive"))
                 runInteractive(opts,evals);
             else {
                 System.out.println("# INFO in Prover2.main(): Processing file " + opts.get("filename"));
                 ProofState state = processTestFile(opts.get("filename"),opts,evals);
-                if (state != null) { 
+                if (state != null && state.res != null) { 
                     printStateResults(opts,state,null);
                     System.out.println("# SZS status Theorem for problem " + opts.get("filename")); 
                 }
+                else if (state != null && !Term.emptyString(state.SZSresult)) {
+                    if (opts.containsKey("stats") || opts.containsKey("csvstats"))
+                        printStateResults(opts,state,null);
+                    System.out.println("# SZS status " + state.SZSresult + " for problem " + opts.get("filename"));
+                }
                 else
                     System.out.println("# SZS status GaveUp for problem " + opts.get("filename"));                    
             }                            
+            if (eventLog != null)
+                eventLog.close();
         }
     }
 }
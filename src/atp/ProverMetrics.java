@@ -0,0 +1,334 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    Detailed measurements of a proof search, beyond the counters that
+    ProofState always keeps: the time spent in each phase of the given
+    clause loop, histograms of the length and weight of the generated
+    clauses, how many of the attempted unifications succeed, and the
+    largest sizes of the clause sets.
+
+    A ProofState only collects these if its metrics field is set (see
+    Prover2 --metrics), so that the search pays nothing but a null test
+    per phase otherwise. At the end of each search, the measurements
+    are added to a process wide total that can be read over JMX as
+    atp:type=ProverMetrics.
+*/
+
+package atp;
+
+import java.lang.management.*;
+import java.util.*;
+import javax.management.*;
+
+public class ProverMetrics implements ProverMetricsMXBean {
+
+    public static final int SELECTION = 0;
+    public static final int TAUTOLOGY = 1;
+    public static final int FORWARD = 2;
+    public static final int BACKWARD = 3;
+    public static final int FACTORING = 4;
+    public static final int RESOLUTION = 5;
+    public static final int INSERTION = 6;
+
+    public static final String[] phaseNames = { "Clause selection", "Tautology check",
+        "Forward subsumption", "Backward subsumption", "Factoring", "Resolution",
+        "Insertion/evaluation" };
+
+    // Clause lengths of 16 and above share the last bucket
+    public static final int LENGTH_BUCKETS = 17;
+    // Bucket i holds weights from 2^i to 2^(i+1)-1, bucket 0 also 0
+    public static final int WEIGHT_BUCKETS = 16;
+
+    public long runs = 0;
+    public long[] phaseNanos = new long[phaseNames.length];
+    public long[] phaseCalls = new long[phaseNames.length];
+    public long resolutionAttempts = 0;
+    public long resolutionSuccesses = 0;
+    public long factorAttempts = 0;
+    public long factorSuccesses = 0;
+    public long[] lengthHistogram = new long[LENGTH_BUCKETS];
+    public long[] weightHistogram = new long[WEIGHT_BUCKETS];
+    public int peakUnprocessed = 0;
+    public int peakProcessed = 0;
+
+    // The sum of all finished searches with metrics, see add()
+    public static final ProverMetrics totals = new ProverMetrics();
+    private static boolean registered = false;
+
+    /** ***************************************************************
+     * Account the time since start to the given phase and return the
+     * current time, which can be used as the start of the next phase.
+     */
+    public long stop(int phase, long start) {
+
+        long now = System.nanoTime();
+        phaseNanos[phase] += now - start;
+        phaseCalls[phase]++;
+        return now;
+    }
+
+    /** ***************************************************************
+     * Record the length and weight of a generated clause.
+     */
+    public void addClause(Clause c) {
+
+        int len = c.length();
+        lengthHistogram[len < LENGTH_BUCKETS - 1 ? len : LENGTH_BUCKETS - 1]++;
+        int w = c.weight(2,1);
+        int bucket = 0;
+        while (w > 1 && bucket < WEIGHT_BUCKETS - 1) {
+            w = w >> 1;
+            bucket++;
+        }
+        weightHistogram[bucket]++;
+    }
+
+    /** ***************************************************************
+     */
+    public void updatePeaks(int unprocessed, int processed) {
+
+        if (unprocessed > peakUnprocessed)
+            peakUnprocessed = unprocessed;
+        if (processed > peakProcessed)
+            peakProcessed = processed;
+    }
+
+    /** ***************************************************************
+     * Add the measurements of a finished search to the totals. Peaks
+     * are the maximum over all searches.
+     */
+    public static void addToTotals(ProverMetrics m) {
+
+        totals.add(m);
+    }
+
+    /** ***************************************************************
+     */
+    public synchronized void add(ProverMetrics m) {
+
+        runs += m.runs;
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] += m.phaseNanos[i];
+            phaseCalls[i] += m.phaseCalls[i];
+        }
+        resolutionAttempts += m.resolutionAttempts;
+        resolutionSuccesses += m.resolutionSuccesses;
+        factorAttempts += m.factorAttempts;
+        factorSuccesses += m.factorSuccesses;
+        for (int i = 0; i < LENGTH_BUCKETS; i++)
+            lengthHistogram[i] += m.lengthHistogram[i];
+        for (int i = 0; i < WEIGHT_BUCKETS; i++)
+            weightHistogram[i] += m.weightHistogram[i];
+        updatePeaks(m.peakUnprocessed,m.peakProcessed);
+    }
+
+    /** ***************************************************************
+     * Make the totals available over JMX. Only the first call has an
+     * effect.
+     */
+    public static synchronized void registerMBean() {
+
+        if (registered)
+            return;
+        registered = true;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(totals,new ObjectName("atp:type=ProverMetrics"));
+        }
+        catch (Exception e) {
+            System.out.println("# Error in ProverMetrics.registerMBean(): " + e.getMessage());
+        }
+    }
+
+    /** ***************************************************************
+     * ************ JMX accessors *****************
+     */
+    public synchronized long getRuns() { return runs; }
+    public String[] getPhaseNames() { return phaseNames.clone(); }
+    public synchronized long[] getPhaseNanos() { return phaseNanos.clone(); }
+    public synchronized long[] getPhaseCalls() { return phaseCalls.clone(); }
+    public synchronized long getResolutionAttempts() { return resolutionAttempts; }
+    public synchronized long getResolutionSuccesses() { return resolutionSuccesses; }
+    public synchronized long getFactorAttempts() { return factorAttempts; }
+    public synchronized long getFactorSuccesses() { return factorSuccesses; }
+    public synchronized long[] getClauseLengthHistogram() { return lengthHistogram.clone(); }
+    public synchronized long[] getClauseWeightHistogram() { return weightHistogram.clone(); }
+    public synchronized int getPeakUnprocessed() { return peakUnprocessed; }
+    public synchronized int getPeakProcessed() { return peakProcessed; }
+
+    /** ***************************************************************
+     */
+    public synchronized void reset() {
+
+        runs = 0;
+        Arrays.fill(phaseNanos,0);
+        Arrays.fill(phaseCalls,0);
+        resolutionAttempts = 0;
+        resolutionSuccesses = 0;
+        factorAttempts = 0;
+        factorSuccesses = 0;
+        Arrays.fill(lengthHistogram,0);
+        Arrays.fill(weightHistogram,0);
+        peakUnprocessed = 0;
+        peakProcessed = 0;
+    }
+
+    /** ***************************************************************
+     * Return the ratio as a string, or "-" if nothing was attempted.
+     */
+    private static String ratio(long successes, long attempts) {
+
+        if (attempts == 0)
+            return "-";
+        return String.format(Locale.US,"%.3f",(double) successes / attempts);
+    }
+
+    /** ***************************************************************
+     * Return the nonempty buckets of a histogram as "label:count".
+     */
+    private static String histogram2String(long[] hist, boolean log) {
+
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < hist.length; i++) {
+            if (hist[i] == 0)
+                continue;
+            if (sb.length() > 0)
+                sb.append(" ");
+            if (!log)
+                sb.append(i == hist.length - 1 ? i + "+" : Integer.toString(i));
+            else if (i == 0)
+                sb.append("0-1");
+            else if (i == hist.length - 1)
+                sb.append((1 << i) + "+");
+            else
+                sb.append((1 << i) + "-" + ((1 << (i + 1)) - 1));
+            sb.append(":" + hist[i]);
+        }
+        return sb.toString();
+    }
+
+    /** ***************************************************************
+     * Return the measurements in the format of
+     * ProofState.generateStatisticsString().
+     */
+    public String toString() {
+
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < phaseNames.length; i++)
+            sb.append(String.format(Locale.US,"# %-21s: %.3f ms in %d calls\n",phaseNames[i],
+                                    phaseNanos[i] / 1000000.0,phaseCalls[i]));
+        sb.append("# Resolution unifiers: " + resolutionSuccesses + " of " + resolutionAttempts +
+                  " (" + ratio(resolutionSuccesses,resolutionAttempts) + ")\n");
+        sb.append("# Factor unifiers    : " + factorSuccesses + " of " + factorAttempts +
+                  " (" + ratio(factorSuccesses,factorAttempts) + ")\n");
+        sb.append("# Clause lengths     : " + histogram2String(lengthHistogram,false) + "\n");
+        sb.append("# Clause weights     : " + histogram2String(weightHistogram,true) + "\n");
+        sb.append("# Peak unprocessed   : " + peakUnprocessed + "\n");
+        sb.append("# Peak processed     : " + peakProcessed + "\n");
+        return sb.toString();
+    }
+
+    /** ***************************************************************
+     * Return the header of the columns added by toCSV(), each followed
+     * by a comma as in ProofState.generateMatrixHeaderStatisticsString().
+     * Histograms are not included.
+     */
+    public static String csvHeader() {
+
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < phaseNames.length; i++)
+            sb.append(phaseNames[i] + " ms,");
+        sb.append("Resolution attempts,Resolution successes,Factor attempts,Factor successes,");
+        sb.append("Peak unprocessed,Peak processed,");
+        return sb.toString();
+    }
+
+    /** ***************************************************************
+     * Return an empty line of the columns of csvHeader(), each with a
+     * leading comma.
+     */
+    public static String emptyCSV() {
+
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < phaseNames.length + 6; i++)
+            sb.append(",");
+        return sb.toString();
+    }
+
+    /** ***************************************************************
+     * Return the columns of csvHeader(), each with a leading comma.
+     */
+    public String toCSV() {
+
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < phaseNames.length; i++)
+            sb.append(String.format(Locale.US,",%.3f",phaseNanos[i] / 1000000.0));
+        sb.append("," + resolutionAttempts + "," + resolutionSuccesses);
+        sb.append("," + factorAttempts + "," + factorSuccesses);
+        sb.append("," + peakUnprocessed + "," + peakProcessed);
+        return sb.toString();
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     * Saturate a small problem with metrics and check them against
+     * the counters of the proof state.
+     */
+    public static void testMetrics() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in ProverMetrics.testMetrics(): all should be true");
+        ClauseEvaluationFunction.setupEvaluationFunctions();
+        ClauseSet cs = Formula.file2clauses("problems/puz_agatha.p",10);
+        ProofState state = new ProofState(cs,ClauseEvaluationFunction.PickGiven5);
+        state.metrics = new ProverMetrics();
+        state.forward_subsumption = true;
+        state.res = state.saturate(10);
+        ProverMetrics m = state.metrics;
+        System.out.println(state.res != null);
+        // every selected clause but the empty one is processed or subsumed
+        System.out.println(m.phaseCalls[SELECTION] == state.proc_clause_count + state.forward_subsumed + 1);
+        System.out.println(m.resolutionSuccesses == state.resolvent_count);
+        System.out.println(m.resolutionAttempts >= m.resolutionSuccesses);
+        long generated = 0;
+        for (int i = 0; i < LENGTH_BUCKETS; i++)
+            generated += m.lengthHistogram[i];
+        System.out.println(generated == state.resolvent_count + state.factor_count);
+        System.out.println(m.peakProcessed == state.proc_clause_count);
+        System.out.println(state.generateStatisticsString().indexOf("# Resolution unifiers") > -1);
+        System.out.println(state.generateMatrixStatisticsString().split(",").length ==
+                           (ProofState.generateMatrixHeaderStatisticsString() + csvHeader()).split(",").length);
+        registerMBean();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Object runs = server.getAttribute(new ObjectName("atp:type=ProverMetrics"),"Runs");
+            System.out.println(((Long) runs).longValue() == 1);
+        }
+        catch (Exception e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /** ***************************************************************
+     * Test method for this class.
+     */
+    public static void main(String[] args) {
+
+        testMetrics();
+    }
+}
@@ -0,0 +1,327 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    A long-lived prover that loads a knowledge base once and answers
+    queries over a local socket (see Prover2 --server). The knowledge
+    base, its equality axioms and its SInE index are built once at
+    startup and never modified afterwards, so that several queries can
+    run against them concurrently. Every query gets its own proof state,
+    which works on copies of the clauses it needs.
+
+    All queries share the heap of the JVM, so the memory limit (given
+    with --memlimit, or the default of Watchdog) bounds all running
+    queries together. When it is exceeded, only the running query with
+    the most clauses is answered with "# SZS status ResourceOut" (see
+    Watchdog), and the other queries go on.
+
+    The protocol is line based. A client sends TPTP statements (typically
+    a conjecture, optionally with additional axioms that only hold for
+    this query) followed by a line "$end". The server answers with the
+    SZS status, the proof if one was found, and a line "$end". A
+    connection may be used for any number of queries. For example
+
+    cnf(q,negated_conjecture,~p(X)).
+    $end
+
+    is answered by
+
+    # SZS status Theorem
+    # SZS output start CNFRefutation
+    ...
+    # SZS output end CNFRefutation
+    $end
+*/
+
+package atp;
+
+import java.io.*;
+import java.net.*;
+import java.text.ParseException;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class ProverServer {
+
+    public static final String EndMarker = "$end";
+
+    public String filename = "";
+    public ClauseSet kb = null;            // shared, never modified
+    public SINE sine = null;               // null if SInE is not used
+    public EvalStructure eval = null;
+    public HashMap<String,String> opts = null;
+    public int timeout = 30;
+
+    // The counters after loading the knowledge base. Queries continue
+    // from here, so that their clause and Skolem names differ from the
+    // ones of the knowledge base.
+    private RunContext kbContext = null;
+    private ServerSocket socket = null;
+    private ExecutorService pool = null;
+
+    /** ***************************************************************
+     * Load the knowledge base from a file and prepare it for queries.
+     */
+    public ProverServer(String filename, HashMap<String,String> opts, EvalStructure eval) throws IOException {
+
+        this.filename = filename;
+        this.opts = opts;
+        this.eval = eval;
+        timeout = Prover2.getTimeout(opts);
+        RunContext.reset();
+        kb = Formula.file2clauses(filename,timeout);
+        if (kb == null)
+            throw new IOException("Error in ProverServer(): can't read knowledge base " + filename);
+        init();
+    }
+
+    /** ***************************************************************
+     * Use an already loaded knowledge base.
+     */
+    public ProverServer(ClauseSet kb, HashMap<String,String> opts, EvalStructure eval) {
+
+        this.kb = kb;
+        this.opts = opts;
+        this.eval = eval;
+        timeout = Prover2.getTimeout(opts);
+        init();
+    }
+
+    /** ***************************************************************
+     */
+    private void init() {
+
+        if (opts.containsKey("eqax"))
+            kb = kb.addEqAxioms();
+        if (opts.containsKey("sine"))
+            sine = new SINE(kb);
+        kbContext = RunContext.get().copy();
+        System.out.println("# INFO in ProverServer(): loaded " + kb.length() + " clauses");
+    }
+
+    /** ***************************************************************
+     * Answer a single query, given as TPTP statements. This may be
+     * called from several threads at the same time, which share the
+     * memory limit.
+     */
+    public String query(String tptp) {
+
+        RunContext.set(kbContext.copy());
+        ClauseSet query = new ClauseSet();
+        try {
+            Lexer lex = new Lexer(tptp);
+            while (!lex.look().equals(Lexer.EOFToken)) {
+                ClauseSet cs = Formula.command2clauses(lex.literal,lex,timeout);
+                if (cs != null)
+                    query.addAll(cs);
+            }
+        }
+        catch (ParseException pe) {
+            return "# SZS status InputError\n# " + pe.getMessage() + "\n";
+        }
+        catch (IOException ioe) {
+            return "# SZS status InputError\n# " + ioe.getMessage() + "\n";
+        }
+        ClauseSet problem = new ClauseSet();
+        HashSet<String> syms = query.getConjectureSymbols();
+        if (sine != null && syms != null && syms.size() > 0)
+            problem.addAll(sine.filter(syms));
+        else
+            problem.addAll(kb);
+        problem.addAll(query);
+
+        ProofState state = new ProofState(problem,eval.freshCopy());
+        Prover2.setStateOptions(state,opts);
+        state.filename = filename;
+        state.evalFunctionName = eval.name;
+        state.res = state.saturate(timeout);
+
+        StringBuffer sb = new StringBuffer();
+        sb.append("# SZS status " + Prover2.getStatus(state) + "\n");
+        if (state.res != null) {
+            TreeMap<String,Clause> proof = state.generateProofTree(state.res);
+            if (query.length() > 0 && query.get(0).collectVars().size() > 0) {
+                String answer = state.extractAnswer(proof,query.get(0));
+                if (answer != null)
+                    sb.append(answer + "\n");
+            }
+            sb.append("# SZS output start CNFRefutation\n");
+            sb.append(state.proof2StringTSTP(proof));
+            sb.append("# SZS output end CNFRefutation\n");
+        }
+        if (opts.containsKey("stats"))
+            sb.append(state.generateStatisticsString() + "\n");
+        return sb.toString();
+    }
+
+    /** ***************************************************************
+     * Answer the queries of one client until it closes the connection.
+     */
+    private void serve(Socket client) {
+
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(),"UTF-8"));
+            Writer out = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(),"UTF-8"));
+            StringBuffer request = new StringBuffer();
+            String line = null;
+            while ((line = in.readLine()) != null) {
+                if (!line.trim().equals(EndMarker)) {
+                    request.append(line + "\n");
+                    continue;
+                }
+                out.write(query(request.toString()));
+                out.write(EndMarker + "\n");
+                out.flush();
+                request = new StringBuffer();
+            }
+        }
+        catch (IOException ioe) {
+            System.out.println("# Error in ProverServer.serve(): " + ioe.getMessage());
+        }
+        finally {
+            try {
+                client.close();
+            }
+            catch (IOException ioe) { /* ignore it */
+            }
+        }
+    }
+
+    /** ***************************************************************
+     * Accept clients on the given port of the loopback interface and
+     * serve up to the given number of them in parallel. This only
+     * returns when the server is stopped.
+     */
+    public void run(int port, int threads) throws IOException {
+
+        socket = new ServerSocket(port,50,InetAddress.getLoopbackAddress());
+        pool = Executors.newFixedThreadPool(threads);
+        System.out.println("# INFO in ProverServer.run(): listening on port " + socket.getLocalPort());
+        try {
+            while (!socket.isClosed()) {
+                final Socket client;
+                try {
+                    client = socket.accept();
+                }
+                catch (SocketException se) {
+                    break;  // closed by stop()
+                }
+                pool.submit(new Runnable() {
+                    public void run() {
+                        serve(client);
+                    }
+                });
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /** ***************************************************************
+     * Return the port the server listens on, once it is running.
+     */
+    public int getPort() {
+
+        return socket == null ? -1 : socket.getLocalPort();
+    }
+
+    /** ***************************************************************
+     * Stop accepting clients.
+     */
+    public void stop() {
+
+        try {
+            if (socket != null)
+                socket.close();
+        }
+        catch (IOException ioe) { /* ignore it */
+        }
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     */
+    public static String kb1 = "cnf(c1,axiom,p(X)|~q(X)).\n" +
+                               "cnf(c2,axiom,q(a)).\n" +
+                               "cnf(c3,axiom,r(b)).\n";
+
+    /** ***************************************************************
+     * Run queries against a small knowledge base, directly and over a
+     * socket.
+     */
+    public static void testServer() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in ProverServer.testServer(): all should be true");
+        ClauseEvaluationFunction.setupEvaluationFunctions();
+        HashMap<String,String> opts = new HashMap<String,String>();
+        opts.put("timeout","10");
+        final ProverServer server = new ProverServer(Formula.string2clauses(kb1),opts,
+                                                     ClauseEvaluationFunction.PickGiven5);
+        int size = server.kb.length();
+        System.out.println(server.query("cnf(q,negated_conjecture,~p(a)).").startsWith("# SZS status Theorem"));
+        System.out.println(!server.query("cnf(q,negated_conjecture,~r(a)).").startsWith("# SZS status Theorem"));
+        System.out.println(server.query("cnf(q,negated_conjecture,~p(X)).").indexOf("# SZS answers Tuple") > -1);
+        System.out.println(server.query("cnf(q,negated_conjecture,^p(a)).").startsWith("# SZS status InputError"));
+        System.out.println(server.kb.length() == size);
+
+        try {
+            Thread t = new Thread() {
+                public void run() {
+                    try {
+                        server.run(0,2);
+                    }
+                    catch (IOException ioe) {
+                        System.out.println(ioe.getMessage());
+                    }
+                }
+            };
+            t.start();
+            while (server.getPort() < 0)
+                Thread.sleep(10);
+            Socket s = new Socket(InetAddress.getLoopbackAddress(),server.getPort());
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(s.getOutputStream(),"UTF-8"),true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(),"UTF-8"));
+            for (int i = 0; i < 2; i++) {
+                out.println("cnf(q,negated_conjecture,~p(a)).");
+                out.println(EndMarker);
+                String first = in.readLine();
+                String line = first;
+                while (line != null && !line.equals(EndMarker))
+                    line = in.readLine();
+                System.out.println(first.equals("# SZS status Theorem") && line != null);
+            }
+            s.close();
+            server.stop();
+            t.join(5000);
+            System.out.println(!t.isAlive());
+        }
+        catch (Exception e) {
+            System.out.println(e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /** ***************************************************************
+     * Test method for this class.
+     */
+    public static void main(String[] args) {
+
+        testServer();
+    }
+}
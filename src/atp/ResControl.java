@@ -33,21 +33,55 @@ public class ResControl {
      * into the processed part of the proof state, where all possible
      * resolvents between the new clause and the already processed
      * clauses are computed. [Note: Explain  better]  
+     * Only literals marked by Clause.selectInferenceLits() are resolved
+     * on, in both the clause and the clause set.
      */
     public static ClauseSet computeAllResolvents(Clause clause, ClauseSet clauseset) {
 
+        return computeAllResolvents(clause,clauseset,null);
+    }
+
+    /** ***************************************************************
+     * As above, but stop early (returning the resolvents found so far)
+     * if the watchdog cancels the search.
+     */
+    public static ClauseSet computeAllResolvents(Clause clause, ClauseSet clauseset, Watchdog wd) {
+
+        return computeAllResolvents(clause,clauseset,wd,null);
+    }
+
+    /** ***************************************************************
+     * As above, and count the attempted and successful unifications
+     * in metrics, if it is not null.
+     */
+    public static ClauseSet computeAllResolvents(Clause clause, ClauseSet clauseset, Watchdog wd,
+                                                 ProverMetrics metrics) {
+
         ClauseSet res = new ClauseSet();
+        Unifier unifier = new Unifier();
         for (int lit = 0; lit < clause.length(); lit++) {
+            if (Watchdog.isCancelled(wd))
+                return res;
+            if (!clause.getLiteral(lit).isInferenceLit())
+                continue;
             ArrayList<Clause> clauseres = new ArrayList<Clause>();
             ArrayList<Integer> indices = new ArrayList<Integer>();
             clauseset.getResolutionLiterals(clause.getLiteral(lit),clauseres,indices);
             assert clauseres.size() == indices.size();
             for (int i = 0; i < clauseres.size(); i++) {               
-                Clause resolvent = Resolution.resolution(clause, lit, clauseres.get(i), indices.get(i).intValue());
+                if (Watchdog.isCancelled(wd))
+                    return res;
+                if (!clauseres.get(i).getLiteral(indices.get(i).intValue()).isInferenceLit())
+                    continue;
+                if (metrics != null)
+                    metrics.resolutionAttempts++;
+                Clause resolvent = Resolution.resolution(clause, lit, clauseres.get(i), indices.get(i).intValue(), unifier);
                 if (resolvent != null)
                     res.add(resolvent);
             }
         }
+        if (metrics != null)
+            metrics.resolutionSuccesses += res.length();
         return res;
     }
 
@@ -56,18 +90,40 @@ public class ResControl {
      * if n is the number of literals. However, factoring is nearly never
      * a critical operation. Single-clause operations are nearly always
      * much cheaper than clause/clause-set operations.  
+     * Only pairs of literals marked by Clause.selectInferenceLits() are
+     * factored.
      */
     public static ClauseSet computeAllFactors(Clause clause) {
 
+        return computeAllFactors(clause,null);
+    }
+
+    /** ***************************************************************
+     * As above, and count the attempted and successful unifications
+     * in metrics, if it is not null.
+     */
+    public static ClauseSet computeAllFactors(Clause clause, ProverMetrics metrics) {
+
         ClauseSet res = new ClauseSet();
+        Unifier unifier = new Unifier();
+        int attempts = 0;
         for (int i = 0; i < clause.length(); i++) {
+            if (!clause.getLiteral(i).isInferenceLit())
+                continue;
             for (int j = i+1; j < clause.length(); j++) {
-                Clause fact = Resolution.factor(clause, i, j);
+                if (!clause.getLiteral(j).isInferenceLit())
+                    continue;
+                attempts++;
+                Clause fact = Resolution.factor(clause, i, j, unifier);
                 //System.out.println("INFO in ResControl.computeAllFactors(): adding factor: " + fact);
                 if (fact != null)
                     res.add(fact);
             }
         }
+        if (metrics != null) {
+            metrics.factorAttempts += attempts;
+            metrics.factorSuccesses += res.length();
+        }
         return res;
     }
     
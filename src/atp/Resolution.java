@@ -66,6 +66,15 @@ public class Resolution {
      */
     public static Clause resolution(Clause clause1, int lit1, Clause clause2, int lit2) {
 
+        return resolution(clause1,lit1,clause2,lit2,new Unifier());
+    }
+
+    /** ***************************************************************
+     * As above, but reuse the given unifier, which is reset before
+     * returning.
+     */
+    public static Clause resolution(Clause clause1, int lit1, Clause clause2, int lit2, Unifier unifier) {
+
         //System.out.println("INFO in Resolution.resolution(): resolving (clause1, lit1, clause2, lit2): " + 
         //        clause1 + " " + lit1 + " " + clause2 + " " + lit2);
         Literal l1 = clause1.getLiteral(lit1);
@@ -79,7 +88,9 @@ public class Resolution {
         //System.out.println("INFO in Resolution.resolution():l1 is negative: " + l1.isNegative());
         //System.out.println("INFO in Resolution.resolution():l2 is negative: " + l2.isNegative());
         Substitutions sigma = null;
-       	sigma = Unification.mgu(l1.atom, l2.atom);
+        if (unifier.unify(l1.atom, l2.atom))
+            sigma = unifier.getSubst();
+        unifier.reset();
         //System.out.println("INFO in Resolution.resolution(): sigma " + sigma);
         if (sigma == null)
             return null;
@@ -129,6 +140,15 @@ public class Resolution {
      */
     public static Clause factor(Clause clause, int lit1, int lit2) {
 
+        return factor(clause,lit1,lit2,new Unifier());
+    }
+
+    /** ***************************************************************
+     * As above, but reuse the given unifier, which is reset before
+     * returning.
+     */
+    public static Clause factor(Clause clause, int lit1, int lit2, Unifier unifier) {
+
         //System.out.println("INFO in Resolution.factor(): " + clause + " " + lit1 + " " + lit2);
         //System.out.println("INFO in Resolution.factor(): " + clause.getLiteral(lit1) + " " + clause.getLiteral(lit2));
         Literal l1 = clause.getLiteral(lit1);
@@ -136,7 +156,9 @@ public class Resolution {
         if (l1.isNegative() != l2.isNegative())
             return null;
         Substitutions sigma = null;
-       	sigma = Unification.mgu(l1.atom, l2.atom);
+        if (unifier.unify(l1.atom, l2.atom))
+            sigma = unifier.getSubst();
+        unifier.reset();
         if (sigma == null)
             return null;
         ArrayList<Literal> lits = new ArrayList<Literal>();
@@ -0,0 +1,87 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    The mutable state of a single prover run that used to be kept in
+    static fields: the counters used to generate fresh clause, formula,
+    variable and Skolem names, and the fixpoint flag of the clausifier.
+
+    There is one context per thread, so that several problems can be
+    parsed, clausified and saturated in parallel (see Prover2 --batch).
+    A worker calls reset() before it starts on a new problem, so that
+    names are generated exactly as in a fresh JVM.
+*/
+
+package atp;
+
+public class RunContext {
+
+    public int clauseIDcounter = 0;        // Clause.createName()
+    public int freshVarCounter = 0;        // Substitutions.freshVar()
+    public int clausifierVarCounter = 0;   // Clausifier variables and Skolem functions
+    public int axiomCounter = 0;           // Clausifier clause names
+    public int eqAxCount = 0;              // EqAxioms clause names
+    public int formulaIdCounter = 0;       // Formula names
+    public boolean clausifierChanged = true;
+
+    private static ThreadLocal<RunContext> current = new ThreadLocal<RunContext>() {
+        protected RunContext initialValue() {
+            return new RunContext();
+        }
+    };
+
+    /** ***************************************************************
+     * Return the context of the current thread.
+     */
+    public static RunContext get() {
+
+        return current.get();
+    }
+
+    /** ***************************************************************
+     * Make ctx the context of the current thread.
+     */
+    public static void set(RunContext ctx) {
+
+        current.set(ctx);
+    }
+
+    /** ***************************************************************
+     * Return a copy of this context, e.g. to continue a run that has
+     * been started in another thread.
+     */
+    public RunContext copy() {
+
+        RunContext result = new RunContext();
+        result.clauseIDcounter = clauseIDcounter;
+        result.freshVarCounter = freshVarCounter;
+        result.clausifierVarCounter = clausifierVarCounter;
+        result.axiomCounter = axiomCounter;
+        result.eqAxCount = eqAxCount;
+        result.formulaIdCounter = formulaIdCounter;
+        result.clausifierChanged = clausifierChanged;
+        return result;
+    }
+
+    /** ***************************************************************
+     * Start a new run in the current thread.
+     */
+    public static void reset() {
+
+        current.set(new RunContext());
+    }
+}
@@ -1,7 +1,7 @@
 package atp;
 
 import java.util.*;
-import java.util.regex.*;
+import java.util.concurrent.locks.*;
 
 public class SINE {
     /** This code is copyright Krystof Hoder and Articulate Software
@@ -25,103 +25,312 @@ public class SINE {
      * @author Krystof Hoder - Adaptation by Adam Pease for new ATP system 2012
      */
     
-    /* All the formulas in the knowledge base */
-    private HashSet<Clause> formulas;
-    
+    /* All the formulas in the knowledge base, indexed by their ID.
+     * The ID is the position at which the formula was added, so
+     * selections are returned in the order of the knowledge base.
+     * Retracted formulas leave a null entry. */
+    private ArrayList<Clause> formulas = new ArrayList<Clause>();
+    private IdentityHashMap<Clause, Integer> formulaIDs = new IdentityHashMap<Clause, Integer>();
+    private int numFormulas = 0;
+
+    /* Symbols are numbered, so that sets of symbols and formulas can
+     * be represented as bit sets. */
+    private HashMap<String, Integer> symbolIDs = new HashMap<String, Integer>();
+
+    // The symbol IDs of each formula, with repetitions
+    private ArrayList<int[]> symbols = new ArrayList<int[]>();
+
     /* These formulas will be always selected. The typically tiny 
      * number of formulas which contain no symbols are put here. */
-    private HashSet<Clause> mandatoryFormulas;
+    private BitSet mandatoryFormulas = new BitSet();
     
-    // Number of times each symbol appears in all formulas.
-    private HashMap<String, Integer> degrees;
+    // Number of times each symbol appears in all formulas, by symbol ID
+    private int[] degrees = new int[64];
+
+    // The formulas in which each symbol appears, by symbol ID
+    private ArrayList<BitSet> occurrences = new ArrayList<BitSet>();
     
-    /* A map between symbols and all the formulas in which the
-     * symbol appears as the lowest-degree symbol. */
-    private HashMap<String, ArrayList<Clause>> symbol2form;
+    /** *************************************************************
+     * The trigger relation for one tolerance.
+     */
+    private static class Triggers {
+
+        /* A map between symbols and all the formulas in which the
+         * symbol appears as the lowest-degree symbol, by symbol ID. */
+        public ArrayList<BitSet> symbol2form = new ArrayList<BitSet>();
+
+        // The symbols through which each formula is triggered, by formula ID
+        public ArrayList<int[]> triggers = new ArrayList<int[]>();
+    }
+
+    /* The trigger relations for all tolerances used so far. Each is
+     * built on the first selection with its tolerance, so further
+     * selections with any of them only cost a traversal. */
+    private HashMap<Float, Triggers> triggerTables = new HashMap<Float, Triggers>();
+
+    /* Symbols whose degree changed since the triggers were last
+     * computed. The triggers of all formulas containing them are
+     * recomputed lazily, before the next selection. */
+    private BitSet dirtySymbols = new BitSet();
+
+    /* Additions and retractions take the write lock, selections the
+     * read lock, so that several queries can share one index. */
+    private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     
     /* A parameter that sets how uncommon a symbol must be to place
      * an axiom in the filtered set.  Use a very high number for
      * an "untriggered" behavior, 1 for a "trigger".  1.5 appears
      * optimal for SUMO. */
     public float tolerance = 1.5f;
+
+    /* The maximal number of steps of the transitive closure, where
+     * the formulas triggered by the query symbols are at depth 1.
+     * 0 means no limit. */
+    public int maxDepth = 0;
     
+    /** *************************************************************
+     */
+    public SINE() {
+    }
+
     /** *************************************************************
      */
     public SINE(ClauseSet cs) {
 
-        formulas = new HashSet<Clause>();
-        mandatoryFormulas = new HashSet<Clause>();
-        degrees = new HashMap<String, Integer>();
-        symbol2form = new HashMap<String, ArrayList<Clause>>();
-    
-        String error = null;
         //System.out.println("# INFO in SInE(): initializing"); 
-        loadFormulas(cs);                            
+        addAll(cs);
     }
     
     /** *************************************************************
-     * Loads formulas from given source.
+     * Add the formulas of a clause set to the index.
      * 
      * @param formulaSource contains the formulas.
      */
-    private void loadFormulas(ClauseSet formulaSource) {
+    public void addAll(ClauseSet formulaSource) {
 
-        //System.out.println("# INFO in SINE.loadFormulas(): ");
-        Iterator<Clause> it = formulaSource.clauses.iterator();
-        
-        // First we go through all formulas, and compute degree of each symbol,
-        // which is the number of times it appears in all formulas.
-        while (it.hasNext()) {
-            Clause f = (Clause) it.next();            
-            formulas.add(f);            
-            for (String sym : getSymbols(f)) {
-                Integer prev = degrees.get(sym);
-                if (prev != null) 
-                    degrees.put(sym, prev+1);
-                else 
-                    degrees.put(sym, 1);                
-            }
-        }        
-        //System.out.println("# INFO in SINE.loadFormulas(): degrees: " + degrees);
-        
-        // Now we associate each formula with its lowest-degree symbols.
-        for (Clause form : formulas) {
-            ArrayList<String> symbols = getSymbols(form);
-            if (symbols.size() == 0) {
-                mandatoryFormulas.add(form);
-                continue;
-            }
-            //ArrayList<String> minDegSyms = new ArrayList<String>();      
-            int minDeg=5000000;
-            for (String sym : symbols) {
-                int deg = degrees.get(sym);
-                if (deg < minDeg) 
-                    minDeg = deg;
-                    /*
-                    minDegSyms.clear();
-                    minDegSyms.add(sym);
-                } 
-                else if (deg == minDeg) 
-                    minDegSyms.add(sym); */                    
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < formulaSource.length(); i++)
+                addFormula(formulaSource.get(i));
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** *************************************************************
+     * Add a single formula to the index.
+     */
+    public void add(Clause f) {
+
+        lock.writeLock().lock();
+        try {
+            addFormula(f);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** *************************************************************
+     * Return the ID of a symbol, assigning a new one if necessary.
+     */
+    private int symbolID(String sym) {
+
+        Integer id = symbolIDs.get(sym);
+        if (id != null)
+            return id.intValue();
+        int result = symbolIDs.size();
+        symbolIDs.put(sym, Integer.valueOf(result));
+        if (result >= degrees.length)
+            degrees = Arrays.copyOf(degrees, degrees.length * 2);
+        occurrences.add(new BitSet());
+        for (Triggers t : triggerTables.values())
+            t.symbol2form.add(new BitSet());
+        return result;
+    }
+
+    /** *************************************************************
+     * Add a formula and update the degrees of its symbols. The
+     * triggers are only computed on the next selection. A formula
+     * that is already in the index is ignored.
+     */
+    private void addFormula(Clause f) {
+
+        if (formulaIDs.containsKey(f))
+            return;
+        int id = formulas.size();
+        formulas.add(f);
+        formulaIDs.put(f, Integer.valueOf(id));
+        numFormulas++;
+        ArrayList<String> symList = getSymbols(f);
+        int[] syms = new int[symList.size()];
+        for (int i = 0; i < syms.length; i++)
+            syms[i] = symbolID(symList.get(i));
+        symbols.add(syms);
+        for (Triggers t : triggerTables.values())
+            t.triggers.add(null);
+        if (syms.length == 0)
+            mandatoryFormulas.set(id);
+        for (int sym : syms) {
+            degrees[sym]++;
+            occurrences.get(sym).set(id);
+            dirtySymbols.set(sym);
+        }
+    }
+
+    /** *************************************************************
+     * Retract the formulas of a clause set from the index. Formulas
+     * are identified by identity, not by structural equality.
+     */
+    public void removeAll(ClauseSet cs) {
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < cs.length(); i++)
+                removeFormula(cs.get(i));
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** *************************************************************
+     * Retract a single formula from the index.
+     */
+    public void remove(Clause f) {
+
+        lock.writeLock().lock();
+        try {
+            removeFormula(f);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** *************************************************************
+     */
+    private void removeFormula(Clause f) {
+
+        Integer idObj = formulaIDs.remove(f);
+        if (idObj == null)
+            return;
+        int id = idObj.intValue();
+        for (Triggers t : triggerTables.values())
+            removeTriggers(t, id);
+        for (int sym : symbols.get(id)) {
+            degrees[sym]--;
+            occurrences.get(sym).clear(id);
+            dirtySymbols.set(sym);
+        }
+        mandatoryFormulas.clear(id);
+        formulas.set(id, null);
+        symbols.set(id, null);
+        numFormulas--;
+    }
+
+    /** *************************************************************
+     * Remove a formula from symbol2form.
+     */
+    private void removeTriggers(Triggers t, int id) {
+
+        int[] old = t.triggers.get(id);
+        if (old == null)
+            return;
+        for (int sym : old) 
+            t.symbol2form.get(sym).clear(id);
+        t.triggers.set(id, null);
+    }
+
+    /** *************************************************************
+     * Associate a formula with its lowest-degree symbols, i.e. the
+     * ones with a degree of at most tol times the minimal degree of
+     * its symbols.
+     */
+    private void computeTriggers(Triggers t, float tol, int id) {
+
+        removeTriggers(t, id);
+        int[] syms = symbols.get(id);
+        if (syms == null || syms.length == 0)
+            return;
+        int minDeg = Integer.MAX_VALUE;
+        for (int sym : syms) {
+            if (degrees[sym] < minDeg) 
+                minDeg = degrees[sym];
+        }
+        int[] trig = new int[syms.length];
+        int numTrig = 0;
+        for (int sym : syms) {
+            float deg = (float) degrees[sym];
+            BitSet reqForms = t.symbol2form.get(sym);
+            if (deg <= minDeg * tol && !reqForms.get(id)) {
+                reqForms.set(id);
+                trig[numTrig++] = sym;
             }
+        }
+        t.triggers.set(id, Arrays.copyOf(trig, numTrig));
+    }
 
-            //for (String sym : minDegSyms) {
-            for (String sym : symbols) {
-                float deg = (float) degrees.get(sym);
-                if (deg <= minDeg * tolerance) {
-                    ArrayList<Clause> reqForms = symbol2form.get(sym);
-                    if (reqForms == null) {
-                        reqForms = new ArrayList<Clause>();
-                        reqForms.add(form);
-                        symbol2form.put(sym, reqForms);
-                    } 
-                    else 
-                        reqForms.add(form);    
-                }
+    /** *************************************************************
+     * Recompute the triggers of all formulas that contain a symbol
+     * whose degree changed, and build the trigger relation for tol
+     * if it is new. Must be called with the write lock held.
+     */
+    private void updateTriggers(float tol) {
+
+        if (!dirtySymbols.isEmpty()) {
+            BitSet dirty = new BitSet();
+            for (int sym = dirtySymbols.nextSetBit(0); sym >= 0; sym = dirtySymbols.nextSetBit(sym + 1))
+                dirty.or(occurrences.get(sym));
+            for (Map.Entry<Float, Triggers> e : triggerTables.entrySet())
+                for (int id = dirty.nextSetBit(0); id >= 0; id = dirty.nextSetBit(id + 1))
+                    computeTriggers(e.getValue(), e.getKey().floatValue(), id);
+            dirtySymbols.clear();
+        }
+        if (!triggerTables.containsKey(Float.valueOf(tol))) {
+            Triggers t = new Triggers();
+            for (int i = 0; i < symbolIDs.size(); i++)
+                t.symbol2form.add(new BitSet());
+            for (int i = 0; i < formulas.size(); i++) {
+                t.triggers.add(null);
+                if (formulas.get(i) != null)
+                    computeTriggers(t, tol, i);
             }
+            triggerTables.put(Float.valueOf(tol), t);
         }
-        //System.out.println("# INFO in SINE.loadFormulas(): symbol2form: " + symbol2form);
-        //System.out.println("# INFO in SINE.loadFormulas(): mandatoryFormulas: " + mandatoryFormulas);
+    }
+
+    /** *************************************************************
+     * Take the read lock for a selection, bringing the triggers for
+     * the given tolerances up to date first if necessary.
+     */
+    private void lockForSelection(float[] tols) {
+
+        lock.readLock().lock();
+        boolean current = dirtySymbols.isEmpty();
+        for (int i = 0; current && i < tols.length; i++)
+            current = triggerTables.containsKey(Float.valueOf(tols[i]));
+        if (current)
+            return;
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < tols.length; i++)
+                updateTriggers(tols[i]);
+            lock.readLock().lock();   // downgrade
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** *************************************************************
+     * Return the number of formulas in the index.
+     */
+    public int size() {
+
+        return numFormulas;
     }
       
     /** *************************************************************
@@ -134,137 +343,159 @@ public class SINE {
 
         return form.getConstantStrings();
     }
-    
-    /** *************************************************************
-     * Returns formulas that are directly required by given symbols
-     * (in the sense of requirements map, which keeps pointers only to
-     * the lowest degree symbols in each formula).   
-     * 
-     * @param symbols Symbols whose required formulas will be found.
-     * @return Formulas required by symbols.
-     */
-    private HashSet<Clause> get1RequiredFormulas(HashSet<String> symbols) {
-
-        //System.out.println("INFO in SINE.get1RequiredFormulas(): symbols: " + symbols);
-        HashSet<Clause> reqForms = new HashSet<Clause>();
-        for (String sym : symbols) {
-            //System.out.println("Checking: " + sym);
-            ArrayList<Clause> symReqForms = symbol2form.get(sym);
-            //System.out.println("Found: " + symReqForms);
-            if (symReqForms == null)
-                continue;
-            for (Clause form : symReqForms) 
-                reqForms.add(form);            
-        }
-        //System.out.println("INFO in SINE.get1RequiredFormulas(): formulas: " + reqForms);
-        return reqForms;
-    }
 
     /** *************************************************************
-     * Get all the symbols in the formulas given in reqForms.
+     * Add the symbols of the formulas in forms to syms.
      */
-    private ArrayList<String> getAllSymbols(HashSet<Clause> reqForms) {
-        
-        //System.out.println("# INFO in SInE.getAllSymbols(): ");
-        ArrayList<String> result = new ArrayList<String>();
-        Iterator<Clause> it = reqForms.iterator();
-        while (it.hasNext()) {
-            Clause c = it.next();
-            result.addAll(c.getConstantStrings());
-        }
-        return result;
+    private void addAllSymbols(BitSet forms, BitSet syms) {
+
+        for (int id = forms.nextSetBit(0); id >= 0; id = forms.nextSetBit(id + 1))
+            for (int sym : symbols.get(id))
+                syms.set(sym);
     }
     
     /** *************************************************************
-     * Returns all symbols transitively required by given symbols
+     * Returns formulas that are transitively required by given symbols
      * (in the sense of requirements map, which keeps pointers only to
-     * the lowest degree symbols in each formula).
+     * the lowest degree symbols in each formula). This is a breadth
+     * first traversal, in which each step only looks at the symbols
+     * that were added in the previous step.
      * 
-     * @param symbols Collection of symbols to be closed under requirements relation.
-     * @return Closure of given collection of symbols under requirements relation.
+     * @param reqSyms Symbols whose required formulas will be found.
+     * @param depthLimit the maximal number of steps, 0 for no limit.
+     * @param snapshots if not null, gets a copy of the result after
+     *                  each step.
+     * @return Formulas transitively required by symbols.
      */
-    private HashSet<String> getRequiredSymbols(Collection<String> symbols) {
-
-        //System.out.println("# INFO in SInE.getRequiredSymbols(): ");
-        HashSet<String> reqSyms = new HashSet<String>(symbols);            
-        int prevSize;
-        do {
-            prevSize = reqSyms.size();                    
-            HashSet<Clause> reqForms = get1RequiredFormulas(reqSyms);                    
-            reqSyms.addAll(getAllSymbols(reqForms));
-        } while (reqSyms.size() > prevSize);        // repeat until no more symbols are being added
-        return reqSyms;
+    private BitSet getRequiredFormulas(BitSet reqSyms, Triggers t, int depthLimit,
+                                       ArrayList<BitSet> snapshots) {
+
+        BitSet reqForms = new BitSet();
+        BitSet newSyms = (BitSet) reqSyms.clone();
+        int depth = 0;
+        while (!newSyms.isEmpty() && (depthLimit <= 0 || depth < depthLimit)) {
+            BitSet newForms = new BitSet();
+            for (int sym = newSyms.nextSetBit(0); sym >= 0; sym = newSyms.nextSetBit(sym + 1))
+                newForms.or(t.symbol2form.get(sym));
+            newForms.andNot(reqForms);
+            if (newForms.isEmpty())
+                break;
+            reqForms.or(newForms);
+            depth++;
+            if (snapshots != null)
+                snapshots.add((BitSet) reqForms.clone());
+            newSyms = new BitSet();
+            addAllSymbols(newForms, newSyms);
+            newSyms.andNot(reqSyms);
+            reqSyms.or(newSyms);
+        }
+        return reqForms;
     }
-    
+
     /** *************************************************************
-     * Returns formulas that are transitively required by given symbols
-     * (in the sense of requirements map, which keeps pointers only to
-     * the lowest degree symbols in each formula).
-     * 
-     * @param symbols Symbols whose required formulas will be found.
-     * @return Formulas transitively required by symbols.
+     * Return the IDs of the query symbols that occur in the index and
+     * of the symbols of the mandatory formulas.
      */
-    private HashSet<Clause> getRequiredFormulas(Collection<String> symbols) {
+    private BitSet querySymbols(Collection<String> syms) {
 
-        //System.out.println("# INFO in SInE.getRequiredFormulas(): ");
-        HashSet<String> reqSyms = getRequiredSymbols(symbols);
-        //System.out.println("INFO in SINE.getRequiredFormulas(): required symbols: " + reqSyms);
-        return get1RequiredFormulas(reqSyms);
+        BitSet symbols = new BitSet();
+        for (String sym : syms) {
+            Integer id = symbolIDs.get(sym);
+            if (id != null)
+                symbols.set(id.intValue());
+        }
+        addAllSymbols(mandatoryFormulas, symbols);
+        return symbols;
     }
 
     /** *************************************************************
-     * Performs axiom selection for given query.
+     * Performs axiom selection for given query symbols.
      * 
-     * @param form, according to which axioms will be selected.
+     * @param syms the symbols according to which axioms will be selected.
      * @return Selected formulas.
      */
-    private HashSet<Clause> performSelection(Clause form) {
+    private BitSet performSelection(BitSet syms, Triggers t, int depthLimit,
+                                    ArrayList<BitSet> snapshots) {
 
         //System.out.println("# INFO in SInE.performSelection(): ");
-        HashSet<String> symbols = new HashSet<String>();
-        symbols.addAll(form.getConstantStrings());
-        symbols.addAll(getAllSymbols(mandatoryFormulas));            
-        HashSet<Clause> res = getRequiredFormulas(symbols);            
-        res.addAll(mandatoryFormulas);        
+        BitSet res = getRequiredFormulas((BitSet) syms.clone(), t, depthLimit, snapshots);
+        res.or(mandatoryFormulas);        
+        if (snapshots != null)
+            for (int i = 0; i < snapshots.size(); i++)
+                snapshots.get(i).or(mandatoryFormulas);
         return res;
     }
-    
+
     /** *************************************************************
-     * @return clauses determined to be relevant to the query
+     * Return the formulas with the given IDs in the order in which
+     * they were added. Must be called with a lock held.
      */
-    public ClauseSet filter(Clause query) {
-        
-        //System.out.println("# INFO in filter(): ");
+    private ClauseSet toClauseSet(BitSet ids) {
+
+        ClauseSet cs = new ClauseSet();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1))
+            cs.add(formulas.get(id));
+        return cs;
+    }
+
+    /** *************************************************************
+     * Select the formulas for the given query symbols once for each
+     * tolerance and return them in the order in which they were added.
+     * If byDepth is set, the result instead has one clause set for
+     * each depth of the first tolerance, which holds the formulas
+     * selected up to that depth.
+     */
+    private ArrayList<ClauseSet> select(Collection<String> syms, float[] tols, int depthLimit,
+                                        boolean byDepth) {
+
         long t1 = System.currentTimeMillis();
-        HashSet<Clause> selectedFormulas = performSelection(query);        
+        ArrayList<ClauseSet> result = new ArrayList<ClauseSet>();
+        int total = 0;
+        lockForSelection(tols);
+        try {
+            BitSet querySyms = querySymbols(syms);
+            for (int i = 0; i < tols.length; i++) {
+                Triggers t = triggerTables.get(Float.valueOf(tols[i]));
+                if (byDepth) {
+                    ArrayList<BitSet> snapshots = new ArrayList<BitSet>();
+                    performSelection(querySyms, t, depthLimit, snapshots);
+                    for (int j = 0; j < snapshots.size(); j++)
+                        result.add(toClauseSet(snapshots.get(j)));
+                    break;
+                }
+                result.add(toClauseSet(performSelection(querySyms, t, depthLimit, null)));
+            }
+            total = numFormulas;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
         long t_elapsed = (System.currentTimeMillis() - t1);
 
         System.out.println("# INFO in SInE.submitQuery(): "
                            + (t_elapsed / 1000.0)
                            + " seconds to perform axiom selection");
-        System.out.println("# INFO in SInE.submitQuery(): "
-                           + selectedFormulas.size() + " formula(s) selected out of " + 
-                           formulas.size()); 
-        ClauseSet cs = new ClauseSet();
-        cs.addAll(selectedFormulas);                        
-        return cs;
+        if (result.size() > 0)
+            System.out.println("# INFO in SInE.submitQuery(): "
+                               + result.get(result.size() - 1).length() 
+                               + " formula(s) selected out of " + total); 
+        return result;
     }
 
     /** *************************************************************
-     * Performs axiom selection for given query.
-     * 
-     * @param form, according to which axioms will be selected.
-     * @return Selected formulas.
      */
-    private HashSet<Clause> performSelection(HashSet<String> syms) {
+    private ClauseSet select(Collection<String> syms) {
 
-        //System.out.println("# INFO in SInE.performSelection(): ");
-        HashSet<String> symbols = new HashSet<String>();
-        symbols.addAll(syms);
-        symbols.addAll(getAllSymbols(mandatoryFormulas));            
-        HashSet<Clause> res = getRequiredFormulas(symbols);            
-        res.addAll(mandatoryFormulas);        
-        return res;
+        return select(syms, new float[] { tolerance }, maxDepth, false).get(0);
+    }
+    
+    /** *************************************************************
+     * @return clauses determined to be relevant to the query
+     */
+    public ClauseSet filter(Clause query) {
+        
+        //System.out.println("# INFO in filter(): ");
+        return select(query.getConstantStrings());
     }
     
     /** *************************************************************
@@ -273,19 +504,92 @@ public class SINE {
     public ClauseSet filter(HashSet<String> syms) {
         
         //System.out.println("# INFO in filter(): ");
-        long t1 = System.currentTimeMillis();
-        HashSet<Clause> selectedFormulas = performSelection(syms);        
-        long t_elapsed = (System.currentTimeMillis() - t1);
+        return select(syms);
+    }
 
-        System.out.println("# INFO in SInE.submitQuery(): "
-                           + (t_elapsed / 1000.0)
-                           + " seconds to perform axiom selection");
-        System.out.println("# INFO in SInE.submitQuery(): "
-                           + selectedFormulas.size() + " formula(s) selected out of " + 
-                           formulas.size()); 
-        ClauseSet cs = new ClauseSet();
-        cs.addAll(selectedFormulas);                        
-        return cs;
+    /** *************************************************************
+     * @return for each of the given tolerances, the clauses determined
+     * to be relevant to the query symbols
+     */
+    public ArrayList<ClauseSet> filter(HashSet<String> syms, float[] tols) {
+        
+        return select(syms, tols, maxDepth, false);
+    }
+
+    /** *************************************************************
+     * @return the clauses determined to be relevant to the query
+     * symbols up to each depth, starting with depth 1, up to
+     * maxDepth or the depth at which the selection is complete
+     */
+    public ArrayList<ClauseSet> filterByDepth(HashSet<String> syms) {
+        
+        return select(syms, new float[] { tolerance }, maxDepth, true);
+    }
+
+    /** *************************************************************
+     * ************ UNIT TESTS *****************
+     * Check that adding and retracting formulas gives the same
+     * selection as building the index from scratch.
+     */
+    public static void testIncremental() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in SINE.testIncremental(): all should be true");
+        ClauseSet kb = Formula.string2clauses(
+                "cnf(a1,axiom,p(a)|~q(X)).\n" +
+                "cnf(a2,axiom,q(b)|~r(X)).\n" +
+                "cnf(a3,axiom,r(c)).\n" +
+                "cnf(a4,axiom,s(d)|~p(X)).\n" +
+                "cnf(a5,axiom,t(e)).\n");
+        ClauseSet more = Formula.string2clauses(
+                "cnf(a6,axiom,p(X)|t(X)).\n" +
+                "cnf(a7,axiom,p(f)).\n");
+        Clause query = Formula.string2clauses("cnf(q,negated_conjecture,~p(X)).").get(0);
+
+        SINE sine = new SINE(kb);
+        ClauseSet before = sine.filter(query);
+        sine.addAll(more);
+        ClauseSet all = new ClauseSet();
+        all.addAll(kb);
+        all.addAll(more);
+        String incremental = sine.filter(query).toString();
+        System.out.println(incremental.equals(new SINE(all).filter(query).toString()));
+        System.out.println(sine.size() == 7);
+        sine.removeAll(more);
+        System.out.println(sine.filter(query).toString().equals(before.toString()));
+        System.out.println(sine.size() == 5);
+        sine.tolerance = 100;
+        System.out.println(sine.filter(query).length() == 4);
+    }
+
+    /** *************************************************************
+     * Check depth limits, per-depth results and several tolerances.
+     */
+    public static void testDepth() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in SINE.testDepth(): all should be true");
+        ClauseSet kb = Formula.string2clauses(
+                "cnf(a1,axiom,p(a)|~q(b)).\n" +
+                "cnf(a2,axiom,q(b)|~r(c)).\n" +
+                "cnf(a3,axiom,r(c)|s(c)).\n" +
+                "cnf(a4,axiom,t(e)).\n");
+        HashSet<String> syms = new HashSet<String>();
+        syms.add("a");
+        SINE sine = new SINE(kb);
+        sine.tolerance = 100f;
+        ArrayList<ClauseSet> byDepth = sine.filterByDepth(syms);
+        System.out.println(byDepth.size() == 3);
+        System.out.println(byDepth.get(0).length() == 1 && byDepth.get(2).length() == 3);
+        sine.maxDepth = 2;
+        System.out.println(sine.filter(syms).toString().equals(byDepth.get(1).toString()));
+        sine.maxDepth = 0;
+        ArrayList<ClauseSet> byTol = sine.filter(syms, new float[] { 1.5f, 100f });
+        System.out.println(byTol.size() == 2);
+        sine.tolerance = 100f;
+        System.out.println(byTol.get(1).toString().equals(sine.filter(syms).toString()));
+        sine.tolerance = 1.5f;
+        System.out.println(byTol.get(0).toString().equals(sine.filter(syms).toString()));
     }
 
     /** *************************************************************
@@ -295,6 +599,11 @@ public class SINE {
      */
     public static void main (String[] args) throws Exception {
 
+        if (args.length < 2) {
+            testIncremental();
+            testDepth();
+            return;
+        }
         System.out.println("# INFO in SInE.main(): ");
         String kbFileName = args[0];
         String queryStr = Formula.removeQuotes(args[1]);
@@ -28,6 +28,12 @@ public class Signature {
 	public ArrayList<String> preds  = new ArrayList<String>();
 	public HashMap<String,Integer> arity  = new HashMap<String,Integer>();
 
+	// Symbol precedence and weights for the term orderings, see
+	// TermOrdering. The precedence is computed by computePrecedence()
+	// unless it is set explicitly. Symbols without a weight have weight 1.
+	public HashMap<String,Integer> precedence  = new HashMap<String,Integer>();
+	public HashMap<String,Integer> weights  = new HashMap<String,Integer>();
+
     /** ***************************************************************
      * Return a printable representation of the signature.
      */
@@ -94,6 +100,63 @@ public class Signature {
 			return 0;
 	}
 	
+    /** ***************************************************************
+     * Set the default precedence: predicates are greater than function
+     * symbols, symbols of greater arity are greater, and symbols of the
+     * same arity are greater the later they were added.
+     */
+	public void computePrecedence() {
+
+		ArrayList<String> symbols = new ArrayList<String>(funs);
+		symbols.addAll(preds);
+		Collections.sort(symbols,new Comparator<String>() {
+			public int compare(String s1, String s2) {
+				if (isPred(s1) != isPred(s2))
+					return isPred(s1) ? 1 : -1;
+				if (getArity(s1) != getArity(s2))
+					return getArity(s1) < getArity(s2) ? -1 : 1;
+				int i1 = isPred(s1) ? preds.indexOf(s1) : funs.indexOf(s1);
+				int i2 = isPred(s2) ? preds.indexOf(s2) : funs.indexOf(s2);
+				return i1 < i2 ? -1 : (i1 > i2 ? 1 : 0);
+			}
+		});
+		precedence.clear();
+		for (int i = 0; i < symbols.size(); i++)
+			precedence.put(symbols.get(i),Integer.valueOf(i));
+	}
+
+    /** ***************************************************************
+     * Compare two symbols in the precedence. Return a negative number,
+     * zero or a positive number if f is smaller than, equal to or
+     * greater than g. Symbols without a precedence are smaller than all
+     * others and are compared by name, so that the precedence is total.
+     */
+	public int comparePrecedence(String f, String g) {
+
+		if (f.equals(g))
+			return 0;
+		Integer pf = precedence.get(f);
+		Integer pg = precedence.get(g);
+		if (pf != null && pg != null)
+			return pf.compareTo(pg);
+		if (pf != null)
+			return 1;
+		if (pg != null)
+			return -1;
+		return f.compareTo(g);
+	}
+
+    /** ***************************************************************
+     * Return the weight of a symbol for the Knuth-Bendix ordering.
+     */
+	public int getWeight(String f) {
+
+		Integer w = weights.get(f);
+		if (w == null)
+			return 1;
+		return w.intValue();
+	}
+
     /** ***************************************************************
      * Test signature object.
      */	    
@@ -122,6 +185,14 @@ public class Signature {
 
 	    System.out.println(sig.getArity("a")==0);
 	    System.out.println(sig.getArity("weird")==4);
+
+	    sig.addFun("b", 0);
+	    sig.computePrecedence();
+	    System.out.println(sig.comparePrecedence("mult","a") > 0);
+	    System.out.println(sig.comparePrecedence("b","a") > 0);
+	    System.out.println(sig.comparePrecedence("weird","mult") > 0);
+	    System.out.println(sig.comparePrecedence("a","unknown") > 0);
+	    System.out.println(sig.getWeight("a") == 1);
 	    
 	    
 	}
@@ -42,7 +42,6 @@ import java.util.*;
 public class Substitutions {
 
     public HashMap<Term,Term> subst = new HashMap<Term,Term>();
-    private static int freshVarCounter = 0;
     
     /** ***************************************************************
      */    
@@ -163,11 +162,25 @@ public class Substitutions {
     }
     
     /** ***************************************************************
-     * Apply the substitution to a term. Return the result.
+     * Apply the substitution to a term. Return the result. If the term
+     * is stored in a TermBank, so is the result, and ground subterms
+     * are shared rather than copied.
      */    
     public Term apply(Term term) {
                 
         //System.out.println("INFO in Substitutions.apply(): " + this + " " + term);
+        if (term.bank != null) {
+            if (term.ground)
+                return term;
+            return term.bank.insert(applyUnshared(term));
+        }
+        return applyUnshared(term);
+    }
+
+    /** ***************************************************************
+     */    
+    private Term applyUnshared(Term term) {
+                
         Term res = new Term();
         if (term.isVar()) {
             //System.out.println("term is var");
@@ -180,8 +193,13 @@ public class Substitutions {
         }
         else {
             res.t = term.t;
-            for (int i = 0; i < term.subterms.size(); i++)
-                res.subterms.add(apply(term.subterms.get(i)));
+            for (int i = 0; i < term.subterms.size(); i++) {
+                Term sub = term.subterms.get(i);
+                if (sub.bank != null && sub.ground)
+                    res.subterms.add(sub);
+                else
+                    res.subterms.add(applyUnshared(sub));
+            }
             return res;
         }       
         //System.out.println("INFO in Substitutions.apply(): returning: " + res);
@@ -249,8 +267,9 @@ public class Substitutions {
      */    
     private static Term freshVar() {
 
-        Substitutions.freshVarCounter = Substitutions.freshVarCounter + 1;
-        return Term.string2Term("X" + Integer.toString(Substitutions.freshVarCounter));
+        RunContext rc = RunContext.get();
+        rc.freshVarCounter = rc.freshVarCounter + 1;
+        return Term.string2Term("X" + Integer.toString(rc.freshVarCounter));
     }
     
     /** ***************************************************************
@@ -25,40 +25,149 @@ import java.text.*;
 public class Subsumption {
     
     /** ***************************************************************
-     * Try to extend subst so that subst(subsumer) is a multi-subset of
-     * subsumed. Recursively call this routine, checking the first literal
-     * of subsumer for a match with subsumed, then calling again with 
-     * the first literal removed.
+     * Working storage of subsumes(), kept per thread so that a test
+     * allocates nothing but the bindings of subst. For literal i of
+     * the subsumer, cands[candStart[i]] to cands[candStart[i+1]-1] are
+     * the indices of the literals of the subsumed clause with the same
+     * sign and predicate. order lists the subsumer literals in the
+     * order in which they are matched, and used has a bit set for
+     * each literal of the subsumed clause that is already matched.
+     */
+    private static class Scratch {
+        int[] cands = new int[64];
+        int[] candStart = new int[9];
+        int[] order = new int[8];
+        int[] weight = new int[8];
+        boolean[] ground = new boolean[8];
+        long[] used = new long[1];
+        BacktrackSubstitution subst = new BacktrackSubstitution();
+
+        void ensure(int n, int m) {
+            if (order.length < n) {
+                order = new int[n];
+                weight = new int[n];
+                ground = new boolean[n];
+                candStart = new int[n + 1];
+            }
+            if (cands.length < n * m)
+                cands = new int[n * m];
+            if (used.length < (m + 63) >> 6)
+                used = new long[(m + 63) >> 6];
+        }
+    }
+
+    private static ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    /** ***************************************************************
+     * Return true if the literals can be matched, i.e. if they have
+     * the same sign and predicate symbol with the same arity.
      */ 
-    private static boolean subsumeLitLists(Clause subsumer, 
-            Clause subsumed, BacktrackSubstitution subst) {
+    private static boolean compatible(Literal l1, Literal l2) {
 
-        if (subsumer == null || subsumer.literals.size() < 1)
+        if (l1.isNegative() != l2.isNegative())
+            return false;
+        Term a1 = l1.atom;
+        Term a2 = l2.atom;
+        if (a1.bank == a2.bank && a1.id >= 0 && a2.id >= 0) {
+            if (a1.id != a2.id)
+                return false;
+        }
+        else if (!a1.getFunc().equals(a2.getFunc()))
+            return false;
+        return a1.getArgs().size() == a2.getArgs().size();
+    }
+
+    /** ***************************************************************
+     * Return true if subsumer literal i should be matched before
+     * literal j: it has fewer candidates, or as many but is ground,
+     * or else is heavier.
+     */ 
+    private static boolean before(Scratch s, int i, int j) {
+
+        int ci = s.candStart[i + 1] - s.candStart[i];
+        int cj = s.candStart[j + 1] - s.candStart[j];
+        if (ci != cj)
+            return ci < cj;
+        if (s.ground[i] != s.ground[j])
+            return s.ground[i];
+        return s.weight[i] > s.weight[j];
+    }
+
+    /** ***************************************************************
+     * Try to extend s.subst so that the subsumer literals s.order[k]
+     * and the ones after it match distinct unused literals of subsumed.
+     * On failure, s.subst and s.used are left unchanged.
+     */ 
+    private static boolean subsumeLitLists(Scratch s, Clause subsumer, Clause subsumed, int k, int n) {
+
+        if (k == n)
             return true;
-        for (int i = 0; i < subsumed.literals.size(); i++) {
-            int btstate = subst.getState();
-            if (subsumer.literals.get(0).match(subsumed.literals.get(i), subst)) {
-                Clause rest = new Clause();
-                for (int j = 0; j < subsumer.literals.size(); j++)
-                    if (subsumer.literals.get(j) != subsumed.literals.get(i))
-                        rest.literals.add(subsumer.literals.get(j));
-                if (subsumeLitLists(subsumer.deepCopy(1), rest, subst))
+        int i = s.order[k];
+        Term atom = subsumer.literals.get(i).atom;
+        for (int p = s.candStart[i]; p < s.candStart[i + 1]; p++) {
+            int j = s.cands[p];
+            long bit = 1L << (j & 63);
+            if ((s.used[j >> 6] & bit) != 0)
+                continue;
+            int btstate = s.subst.getState();
+            if (s.subst.match(atom,subsumed.literals.get(j).atom)) {
+                s.used[j >> 6] |= bit;
+                if (subsumeLitLists(s,subsumer,subsumed,k + 1,n))
                     return true;
+                s.used[j >> 6] &= ~bit;
+                s.subst.backtrackToState(btstate);
             }
-            subst.backtrackToState(btstate);
         }
         return false;
     }
     
     /** ***************************************************************
-     * Return True if subsumer subsumes subsumed, False otherwise.
+     * Return True if subsumer subsumes subsumed, False otherwise, i.e.
+     * if there is a substitution under which every literal of subsumer
+     * is equal to a different literal of subsumed. Each subsumer literal
+     * is only tried on the subsumed literals of the same sign and
+     * predicate, and the literals with the fewest such candidates are
+     * matched first.
      */ 
-    private static boolean subsumes(Clause subsumer, Clause subsumed) {
+    public static boolean subsumes(Clause subsumer, Clause subsumed) {
 
-        if (subsumer.literals.size() > subsumed.literals.size())
+        int n = subsumer.literals.size();
+        int m = subsumed.literals.size();
+        if (n > m)
             return false;
-        BacktrackSubstitution subst = new BacktrackSubstitution();
-        return subsumeLitLists(subsumer, subsumed, subst);
+        Scratch s = scratch.get();
+        s.ensure(n,m);
+        int p = 0;
+        for (int i = 0; i < n; i++) {
+            Literal lit = subsumer.literals.get(i);
+            s.candStart[i] = p;
+            for (int j = 0; j < m; j++)
+                if (compatible(lit,subsumed.literals.get(j)))
+                    s.cands[p++] = j;
+            if (p == s.candStart[i])
+                return false;
+        }
+        s.candStart[n] = p;
+        for (int i = 0; i < n; i++) {
+            Literal lit = subsumer.literals.get(i);
+            s.ground[i] = lit.atom.isGround();
+            s.weight[i] = lit.weight(2,1);
+            int k = i;
+            while (k > 0 && before(s,i,s.order[k - 1])) {
+                s.order[k] = s.order[k - 1];
+                k--;
+            }
+            s.order[k] = i;
+        }
+        for (int i = 0; i < (m + 63) >> 6; i++)
+            s.used[i] = 0;
+        boolean result = subsumeLitLists(s,subsumer,subsumed,0,n);
+        s.subst.backtrackToState(0);
+        return result;
     }
 
     /** ***************************************************************
@@ -66,8 +175,20 @@ public class Subsumption {
      */ 
     public static boolean forwardSubsumption(ClauseSet cs, Clause clause) {
 
-        for (int i = 0; i < cs.length(); i++) {
-            Clause c = cs.get(i);
+        return forwardSubsumption(cs,clause,null);
+    }
+
+    /** ***************************************************************
+     * As above, but give up (returning false) if the watchdog cancels
+     * the search.
+     */ 
+    public static boolean forwardSubsumption(ClauseSet cs, Clause clause, Watchdog wd) {
+
+        ArrayList<Clause> candidates = cs.getSubsumingCandidates(clause);
+        for (int i = 0; i < candidates.size(); i++) {
+            if (Watchdog.isCancelled(wd))
+                return false;
+            Clause c = candidates.get(i);
             if (subsumes(c, clause))
                 return true;
         }
@@ -79,9 +200,21 @@ public class Subsumption {
      */ 
     public static int backwardSubsumption(Clause clause, ClauseSet cs) {
 
+        return backwardSubsumption(clause,cs,null);
+    }
+
+    /** ***************************************************************
+     * As above, but only remove the clauses found before the watchdog
+     * cancels the search.
+     */ 
+    public static int backwardSubsumption(Clause clause, ClauseSet cs, Watchdog wd) {
+
         ArrayList<Clause> subsumed_set = new ArrayList<Clause>();
-        for (int i = 0; i < cs.length(); i++) {
-            Clause c = cs.get(i);
+        ArrayList<Clause> candidates = cs.getSubsumedCandidates(clause);
+        for (int i = 0; i < candidates.size(); i++) {
+            if (Watchdog.isCancelled(wd))
+                break;
+            Clause c = candidates.get(i);
             if (subsumes(clause, c))
                 subsumed_set.add(c);        
         }
@@ -144,6 +277,14 @@ public class Subsumption {
         System.out.println(c3 + " subsumes " + c2 + " = " + subsumes(c3,c2));
         System.out.println(c4 + " subsumes " + c5 + " = " + subsumes(c4,c5));        
         System.out.println(c5 + " does not subsume " + c4 + " = " + !subsumes(c5,c4));
+        Clause c6 = Clause.string2Clause("cnf(c6,axiom,p(X)|p(Y)|~q(X,Y)).");
+        Clause c7 = Clause.string2Clause("cnf(c7,axiom,~q(a,b)|p(b)|r(c)|p(a)).");
+        Clause c8 = Clause.string2Clause("cnf(c8,axiom,p(a)|~q(a,b)).");
+        Clause c9 = Clause.string2Clause("cnf(c9,axiom,p(X)|p(X)).");
+        System.out.println(c6 + " subsumes " + c7 + " = " + subsumes(c6,c7));
+        System.out.println(c6 + " does not subsume " + c8 + " = " + !subsumes(c6,c8));
+        System.out.println(c9 + " does not subsume " + c2 + " = " + !subsumes(c9,c2));
+        System.out.println(c9 + " subsumes " + c9 + " = " + subsumes(c9,c9));
     }
     
     /** ***************************************************************
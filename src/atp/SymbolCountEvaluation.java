@@ -42,5 +42,19 @@ public class SymbolCountEvaluation extends ClauseEvaluationFunction {
 
         return clause.weight(fweight, vweight);
     }
-}
 
+    /** ***************************************************************
+     */
+    public ClauseEvaluationFunction freshCopy() {
+
+        return new SymbolCountEvaluation(fweight, vweight);
+    }
+
+    /** ***************************************************************
+     * Weights are small nonnegative integers.
+     */
+    public ClauseQueue createQueue(int index) {
+
+        return new ClauseQueue.Buckets(index);
+    }
+}
@@ -37,6 +37,14 @@ public class Term {
 public String t = "";  // lowercase is a constant, uppercase is a variable
 public ArrayList<Term> subterms = new ArrayList<Term>();    // empty if not composite
 
+// The following are only valid if the term is stored in a TermBank
+public TermBank bank = null;   // the bank that holds this (then immutable) term
+public int id = -1;            // symbol ID of t in bank, -1 for variables, see TermBank.symbolID()
+public int hash = 0;
+public int funCount = 0;       // number of function symbol occurrences
+public int varCount = 0;       // number of variable occurrences
+public boolean ground = false;
+
 	/** ***************************************************************
 	 */
 	public Term() {
@@ -51,6 +59,17 @@ public ArrayList<Term> subterms = new ArrayList<Term>();    // empty if not comp
 		subterms.add(t2);
 	}
 	
+    /** ***************************************************************
+     * Return true if name is one of names, e.g. of an option value.
+     */
+    public static boolean isName(String name, String[] names) {
+
+        for (int i = 0; i < names.length; i++)
+            if (names[i].equals(name))
+                return true;
+        return false;
+    }
+
     /** ***************************************************************
      * @param s An input Object, expected to be a String.
      * @return true if s == null or s is an empty String, else false.
@@ -222,6 +241,8 @@ public ArrayList<Term> subterms = new ArrayList<Term>();    // empty if not comp
      */
     public boolean isGround() { 
         
+        if (bank != null)
+            return ground;
         if (!Term.emptyString(t) && Character.isUpperCase(t.charAt(0)))
             return false;
         for (int i = 0; i < subterms.size(); i++)
@@ -320,6 +341,8 @@ public ArrayList<Term> subterms = new ArrayList<Term>();    // empty if not comp
      */
     public int weight(int fweight, int vweight) {
         
+        if (bank != null)
+            return fweight * funCount + vweight * varCount;
         int total = 0;
         if (Character.isUpperCase(t.charAt(0)))
             total = vweight;
@@ -354,19 +377,19 @@ public ArrayList<Term> subterms = new ArrayList<Term>();    // empty if not comp
     }
     
     /** ***************************************************************
+     * Two terms of the same TermBank are equal only if they are the
+     * same object, so the recursive comparison is only needed for
+     * terms that are not shared.
      */
     @Override public boolean equals(Object other_obj) {
         
-    	//System.out.println("Term.equals(): term: " + this + " other: " + other_obj);
-        //if (other_obj == null) {
-        //	System.out.println("Term.equals() argument is null");
-        //	return false;
-        //}
-       // if (!other_obj.getClass().getName().equals("Term")) {
-       // 	System.out.println("Term.equals() passed object not of type Term");
-       // 	return false;
-       // }
         Term t2 = (Term) other_obj;
+        if (this == t2)
+            return true;
+        if (bank != null && t2.bank != null) {
+            if (bank == t2.bank || hash != t2.hash)
+                return false;
+        }
         //System.out.println("INFO in Term.equals(): term:" + this + " other: " + other_obj);
         if (!t2.t.equals(t))
             return false;
@@ -379,25 +402,27 @@ public ArrayList<Term> subterms = new ArrayList<Term>();    // empty if not comp
     }
     
     /** ***************************************************************
+     * The hash code takes the symbol and all subterms into account. It
+     * is computed only once for terms in a TermBank.
      */
     @Override public int hashCode() {
     
-        int total = 0;
- //       if (negated) 
- //           total = 1;
-        if (subterms.size() < 1)
-            return total + t.hashCode() * 2;
-        else {
-            for (int i = 0; i < subterms.size(); i++)
-                total = total + subterms.get(i).hashCode();
-            return total;
-        }
+        if (bank != null)
+            return hash;
+        int total = t.hashCode();
+        for (int i = 0; i < subterms.size(); i++)
+            total = 31 * total + subterms.get(i).hashCode();
+        return total;
     }
     
     /** ***************************************************************
+     * Return a copy of the term. Terms in a TermBank are immutable and
+     * are therefore returned as they are.
      */
     public Term deepCopy() {
         
+        if (bank != null)
+            return this;
         Term result = new Term();
         result.t = t;
         for (int i = 0; i < subterms.size(); i++)
@@ -0,0 +1,172 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    A term bank stores terms with maximal sharing ("hash consing").
+    Every term inserted into the bank is represented by a single
+    shared instance, so that two terms of the same bank are
+    structurally equal if and only if they are the same object.
+
+    Terms in a bank must not be modified. They carry their symbol ID,
+    hash code, symbol counts and ground flag, which are computed once
+    when the term is inserted. Symbol IDs are numbered per bank, so
+    they can only be compared between terms of the same bank, and the
+    table goes away with the bank, e.g. at the end of a proof search.
+    Variables get no ID. Substitutions.apply() keeps the result
+    of instantiating a banked term in the same bank.
+*/
+
+package atp;
+
+import java.util.*;
+
+public class TermBank {
+
+    public HashMap<Term,Term> terms = new HashMap<Term,Term>();
+    private HashMap<String,Integer> symbolIDs = new HashMap<String,Integer>();
+    private ArrayList<String> symbolNames = new ArrayList<String>();
+
+    /** ***************************************************************
+     * Return the number of distinct terms in the bank.
+     */
+    public int size() {
+
+        return terms.size();
+    }
+
+    /** ***************************************************************
+     * Return the ID of a function or predicate symbol in this bank,
+     * assigning a new one if the symbol has not been seen before.
+     */
+    public int symbolID(String s) {
+
+        Integer id = symbolIDs.get(s);
+        if (id == null) {
+            id = Integer.valueOf(symbolNames.size());
+            symbolIDs.put(s,id);
+            symbolNames.add(s);
+        }
+        return id.intValue();
+    }
+
+    /** ***************************************************************
+     * Return the symbol with the given ID.
+     */
+    public String symbolName(int id) {
+
+        return symbolNames.get(id);
+    }
+
+    /** ***************************************************************
+     * Return the shared instance of a term that is structurally equal
+     * to t, adding it to the bank if necessary. Subterms are shared as
+     * well. If t itself is not yet in the bank a new instance is
+     * created, so t can still be modified by the caller afterwards.
+     */
+    public Term insert(Term t) {
+
+        if (t.bank == this)
+            return t;
+        Term probe = new Term();
+        probe.t = t.t;
+        for (int i = 0; i < t.subterms.size(); i++)
+            probe.subterms.add(insert(t.subterms.get(i)));
+        Term shared = terms.get(probe);
+        if (shared != null)
+            return shared;
+        probe.hash = probe.hashCode();
+        if (probe.isVar()) {
+            probe.varCount = 1;
+            probe.ground = false;
+        }
+        else {
+            probe.id = symbolID(probe.t);
+            probe.funCount = 1;
+            probe.ground = true;
+            for (int i = 0; i < probe.subterms.size(); i++) {
+                Term s = probe.subterms.get(i);
+                probe.funCount = probe.funCount + s.funCount;
+                probe.varCount = probe.varCount + s.varCount;
+                probe.ground = probe.ground && s.ground;
+            }
+        }
+        probe.bank = this;
+        terms.put(probe,probe);
+        return probe;
+    }
+
+    /** ***************************************************************
+     * Replace the atoms of all literals of the clause by their shared
+     * instances.
+     */
+    public void insert(Clause c) {
+
+        for (int i = 0; i < c.literals.size(); i++) {
+            Literal l = c.literals.get(i);
+            l.atom = insert(l.atom);
+        }
+    }
+
+    /** ***************************************************************
+     * Replace the atoms of all clauses in the set by their shared
+     * instances.
+     */
+    public void insert(ClauseSet cs) {
+
+        for (int i = 0; i < cs.length(); i++)
+            insert(cs.get(i));
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     */
+    public static void testSharing() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in TermBank.testSharing(): all should be true");
+        TermBank bank = new TermBank();
+        Term t1 = bank.insert(Term.string2Term("f(X,g(a,b))"));
+        Term t2 = bank.insert(Term.string2Term("f(X,g(a,b))"));
+        Term t3 = bank.insert(Term.string2Term("g(a,b)"));
+        Term t4 = bank.insert(Term.string2Term("h(X,g(a,b))"));
+        System.out.println(t1 == t2);
+        System.out.println(t1.subterms.get(1) == t3);
+        System.out.println(t4.subterms.get(1) == t3);
+        System.out.println(!t1.equals(t4));
+        System.out.println(t1.equals(Term.string2Term("f(X,g(a,b))")));
+        System.out.println(bank.size() == 6);
+        System.out.println(t3.isGround() && !t1.isGround());
+        System.out.println(t1.weight(2,1) == Term.string2Term("f(X,g(a,b))").weight(2,1));
+        System.out.println(t1.deepCopy() == t1);
+
+        Substitutions s = new Substitutions(Term.string2Term("X"),Term.string2Term("a"));
+        Term t5 = s.apply(t1);
+        System.out.println(t5 == bank.insert(Term.string2Term("f(a,g(a,b))")));
+        System.out.println(s.apply(t3) == t3);
+        System.out.println(t1.subterms.get(0).id == -1);
+        System.out.println(bank.symbolName(t1.id).equals("f") && bank.symbolName(t3.id).equals("g"));
+        System.out.println(new TermBank().insert(Term.string2Term("h(X)")).id == 0);  // numbered per bank
+    }
+
+    /** ***************************************************************
+     * Test method for this class.
+     */
+    public static void main(String[] args) {
+
+        testSharing();
+    }
+}
@@ -0,0 +1,299 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    Reduction orderings on terms, for ordered resolution. Both take
+    the symbol precedence, and KBO also the symbol weights, from a
+    Signature:
+
+    - KBO is the Knuth-Bendix ordering. A term is greater than another
+      if it has at least as many occurrences of every variable and
+      either a greater weight, or the same weight and a greater top
+      symbol, or the same top symbol and lexicographically greater
+      arguments. Variables have weight 1, and all symbol weights must
+      be at least 1.
+    - LPO is the lexicographic path ordering. A term is greater than
+      another if one of its arguments is greater or equal, or if it has
+      a greater top symbol, or the same top symbol and lexicographically
+      greater arguments, and it is greater than all arguments of the
+      other term.
+
+    Atoms are compared as terms, with the predicate as top symbol.
+    Literals are compared by their atoms, and a negative literal is
+    greater than a positive literal with the same atom. Both orderings
+    are stable under substitution, so a literal that is smaller than
+    another one in a clause is never maximal in an instance of it.
+*/
+
+package atp;
+
+import java.util.*;
+
+public abstract class TermOrdering {
+
+    public static final int LESS = -1;
+    public static final int EQUAL = 0;
+    public static final int GREATER = 1;
+    public static final int UNCOMPARABLE = 2;
+
+    public static final String[] names = { "none", "kbo", "lpo" };
+
+    protected Signature sig = null;
+
+    /** ***************************************************************
+     * Use the precedence of the signature, computing it if it has not
+     * been set.
+     */
+    public TermOrdering(Signature s) {
+
+        sig = s;
+        if (sig.precedence.size() == 0)
+            sig.computePrecedence();
+    }
+
+    /** ***************************************************************
+     * Return the ordering with the given name for the signature, or
+     * null for "none" or an unknown name.
+     */
+    public static TermOrdering create(String name, Signature sig) {
+
+        if (name.equals("kbo"))
+            return new KBO(sig);
+        if (name.equals("lpo"))
+            return new LPO(sig);
+        return null;
+    }
+
+    /** ***************************************************************
+     * Compare two terms. Return LESS, EQUAL, GREATER or UNCOMPARABLE.
+     */
+    public abstract int compare(Term s, Term t);
+
+    /** ***************************************************************
+     * Compare two literals. Return LESS, EQUAL, GREATER or UNCOMPARABLE.
+     */
+    public int compare(Literal l1, Literal l2) {
+
+        int res = compare(l1.atom,l2.atom);
+        if (res != EQUAL || l1.isNegative() == l2.isNegative())
+            return res;
+        return l1.isNegative() ? GREATER : LESS;
+    }
+
+    /** ***************************************************************
+     * Return true if no literal of the clause is greater than the
+     * literal at the given position.
+     */
+    public boolean isMaximal(Clause c, int lit) {
+
+        Literal l = c.getLiteral(lit);
+        for (int i = 0; i < c.length(); i++)
+            if (i != lit && compare(c.getLiteral(i),l) == GREATER)
+                return false;
+        return true;
+    }
+
+    /** ***************************************************************
+     * Return true if the variable var occurs in t.
+     */
+    protected static boolean occurs(Term var, Term t) {
+
+        if (t.isVar())
+            return t.t.equals(var.t);
+        for (int i = 0; i < t.subterms.size(); i++)
+            if (occurs(var,t.subterms.get(i)))
+                return true;
+        return false;
+    }
+
+    /** ***************************************************************
+     * The Knuth-Bendix ordering.
+     */
+    public static class KBO extends TermOrdering {
+
+        public KBO(Signature s) {
+
+            super(s);
+        }
+
+        /** ***************************************************************
+         * Return the weight of t and add the number of occurrences of
+         * each of its variables, times sign, to vars.
+         */
+        private int weigh(Term t, HashMap<String,Integer> vars, int sign) {
+
+            if (t.isVar()) {
+                Integer n = vars.get(t.t);
+                vars.put(t.t,Integer.valueOf((n == null ? 0 : n.intValue()) + sign));
+                return 1;
+            }
+            int w = sig.getWeight(t.t);
+            for (int i = 0; i < t.subterms.size(); i++)
+                w = w + weigh(t.subterms.get(i),vars,sign);
+            return w;
+        }
+
+        public int compare(Term s, Term t) {
+
+            if (s.equals(t))
+                return EQUAL;
+            if (t.isVar())
+                return occurs(t,s) ? GREATER : UNCOMPARABLE;
+            if (s.isVar())
+                return occurs(s,t) ? LESS : UNCOMPARABLE;
+            HashMap<String,Integer> vars = new HashMap<String,Integer>();
+            int ws = weigh(s,vars,1);
+            int wt = weigh(t,vars,-1);
+            boolean sCovers = true;  // no variable occurs more often in t
+            boolean tCovers = true;
+            for (Integer n:vars.values()) {
+                if (n.intValue() < 0)
+                    sCovers = false;
+                if (n.intValue() > 0)
+                    tCovers = false;
+            }
+            int res = EQUAL;
+            if (ws != wt)
+                res = ws > wt ? GREATER : LESS;
+            else {
+                int prec = sig.comparePrecedence(s.t,t.t);
+                if (prec != 0)
+                    res = prec > 0 ? GREATER : LESS;
+                else if (s.subterms.size() != t.subterms.size())
+                    return UNCOMPARABLE;
+                else {
+                    for (int i = 0; i < s.subterms.size() && res == EQUAL; i++)
+                        res = compare(s.subterms.get(i),t.subterms.get(i));
+                }
+            }
+            if (res == GREATER && sCovers)
+                return GREATER;
+            if (res == LESS && tCovers)
+                return LESS;
+            return UNCOMPARABLE;
+        }
+    }
+
+    /** ***************************************************************
+     * The lexicographic path ordering.
+     */
+    public static class LPO extends TermOrdering {
+
+        public LPO(Signature s) {
+
+            super(s);
+        }
+
+        /** ***************************************************************
+         * Return true if s is greater than t.
+         */
+        private boolean greater(Term s, Term t) {
+
+            if (s.isVar())
+                return false;
+            if (t.isVar())
+                return occurs(t,s);
+            for (int i = 0; i < s.subterms.size(); i++) {
+                Term si = s.subterms.get(i);
+                if (si.equals(t) || greater(si,t))
+                    return true;
+            }
+            int prec = sig.comparePrecedence(s.t,t.t);
+            if (prec < 0)
+                return false;
+            if (prec == 0) {
+                if (s.subterms.size() != t.subterms.size())
+                    return false;
+                int i = 0;
+                while (i < s.subterms.size() && s.subterms.get(i).equals(t.subterms.get(i)))
+                    i++;
+                if (i == s.subterms.size() || !greater(s.subterms.get(i),t.subterms.get(i)))
+                    return false;
+            }
+            for (int j = 0; j < t.subterms.size(); j++)
+                if (!greater(s,t.subterms.get(j)))
+                    return false;
+            return true;
+        }
+
+        public int compare(Term s, Term t) {
+
+            if (s.equals(t))
+                return EQUAL;
+            if (greater(s,t))
+                return GREATER;
+            if (greater(t,s))
+                return LESS;
+            return UNCOMPARABLE;
+        }
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     */
+    public static void testOrderings() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in TermOrdering.testOrderings(): all should be true");
+        Signature sig = new Signature();
+        Clause c = Clause.string2Clause("cnf(c,axiom,p(a,b)|q(f(X),g(X,Y))|~p(f(a),Z)).");
+        c.collectSig(sig);
+        // precedence a < b < f < g < p < q
+        TermOrdering kbo = create("kbo",sig);
+        TermOrdering lpo = create("lpo",sig);
+        Term fa = Term.string2Term("f(a)");
+        Term ffa = Term.string2Term("f(f(a))");
+        Term fx = Term.string2Term("f(X)");
+        Term gxy = Term.string2Term("g(X,Y)");
+        Term gxx = Term.string2Term("g(X,X)");
+        Term gab = Term.string2Term("g(a,b)");
+        Term gba = Term.string2Term("g(b,a)");
+        Term fgxx = Term.string2Term("f(g(X,X))");
+        Term x = Term.string2Term("X");
+        System.out.println(kbo.compare(ffa,fa) == GREATER);
+        System.out.println(kbo.compare(fx,x) == GREATER);
+        System.out.println(kbo.compare(x,fx) == LESS);
+        System.out.println(kbo.compare(gba,gab) == GREATER);
+        System.out.println(kbo.compare(gxy,fx) == GREATER);
+        System.out.println(kbo.compare(Term.string2Term("f(Y)"),gxx) == UNCOMPARABLE);  // Y not in g(X,X)
+        System.out.println(kbo.compare(gxx,fx) == GREATER);
+        System.out.println(kbo.compare(fx,fa) == UNCOMPARABLE);
+        System.out.println(kbo.compare(fgxx,gxx) == GREATER);
+        System.out.println(lpo.compare(ffa,fa) == GREATER);
+        System.out.println(lpo.compare(fx,x) == GREATER);
+        System.out.println(lpo.compare(gba,gab) == GREATER);
+        System.out.println(lpo.compare(gxy,fx) == GREATER);
+        System.out.println(lpo.compare(gxx,ffa) == GREATER);
+        System.out.println(lpo.compare(fx,Term.string2Term("g(a,a)")) == UNCOMPARABLE);
+        System.out.println(lpo.compare(fx,Term.string2Term("f(Y)")) == UNCOMPARABLE);
+        // q(f(X),g(X,Y)) > p(a,b), but ~p(f(a),Z) has Z, which q does not
+        System.out.println(!kbo.isMaximal(c,0));
+        System.out.println(kbo.isMaximal(c,1));
+        System.out.println(kbo.isMaximal(c,2));
+        System.out.println(!lpo.isMaximal(c,0));
+        Clause d = Clause.string2Clause("cnf(d,axiom,p(a,b)|~p(a,b)).");
+        System.out.println(!kbo.isMaximal(d,0) && kbo.isMaximal(d,1));
+    }
+
+    /** ***************************************************************
+     * Test method for this class.
+     */
+    public static void main(String[] args) {
+
+        testOrderings();
+    }
+}
@@ -0,0 +1,252 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    A reusable unification engine. Instead of building and applying a
+    new substitution for every variable binding as
+    Unification.mguTermList() does, the unifier pushes each binding
+    onto a trail of two parallel arrays, dereferences variables by
+    scanning the trail, and resets by popping it. The arrays and the
+    equation queue are kept between unification problems, so binding a
+    variable does not allocate once they have grown to the size of the
+    largest problem. Variables are not numbered in a TermBank (see
+    TermBank.symbolID()), and the trail of a single unification problem
+    is short, so a linear scan is cheaper than hashing the name.
+
+    The equations are processed in the same order as in
+    Unification.mgu(), and variables are bound in the same direction,
+    so getSubst() returns the same most general unifier. A Substitutions
+    object is only created by getSubst(), i.e. only for the
+    (comparatively few) unification problems that succeed and are
+    actually needed.
+
+    Typical use:
+
+    Unifier u = new Unifier();
+    if (u.unify(s,t))
+        sigma = u.getSubst();
+    u.reset();
+*/
+
+package atp;
+
+import java.util.*;
+
+public class Unifier {
+
+    // the trail: vars[i] is bound to vals[i], for i < top, in the
+    // order in which the variables were bound
+    private Term[] vars = new Term[16];
+    private Term[] vals = new Term[16];
+    private int top = 0;
+    // queue of open equations, l1[i] = l2[i] for head <= i
+    private ArrayList<Term> l1 = new ArrayList<Term>();
+    private ArrayList<Term> l2 = new ArrayList<Term>();
+    private int head = 0;
+
+    /** ***************************************************************
+     * Follow the bindings of a variable until reaching an unbound
+     * variable or a compound term.
+     */
+    public Term deref(Term t) {
+
+        while (t.isVar()) {
+            Term b = lookup(t);
+            if (b == null)
+                return t;
+            t = b;
+        }
+        return t;
+    }
+
+    /** ***************************************************************
+     * Return the term the variable is bound to, or null if it is
+     * unbound.
+     */
+    private Term lookup(Term var) {
+
+        for (int i = top - 1; i >= 0; i--)
+            if (vars[i].t.equals(var.t))
+                return vals[i];
+        return null;
+    }
+
+    /** ***************************************************************
+     * Return true if the (unbound) variable x occurs in t under the
+     * current bindings.
+     */
+    private boolean occursCheck(Term x, Term t) {
+
+        t = deref(t);
+        if (t.isVar())
+            return t.t.equals(x.t);
+        if (t.bank != null && t.ground)
+            return false;
+        for (int i = 0; i < t.subterms.size(); i++)
+            if (occursCheck(x,t.subterms.get(i)))
+                return true;
+        return false;
+    }
+
+    /** ***************************************************************
+     */
+    private void bind(Term var, Term t) {
+
+        if (top == vars.length) {
+            vars = Arrays.copyOf(vars,2 * top);
+            vals = Arrays.copyOf(vals,2 * top);
+        }
+        vars[top] = var;
+        vals[top] = t;
+        top++;
+    }
+
+    /** ***************************************************************
+     * Try to unify s and t, extending the current bindings. On failure
+     * the bindings are left in an undefined state and reset() has to
+     * be called before the unifier is used again.
+     */
+    public boolean unify(Term s, Term t) {
+
+        l1.clear();
+        l2.clear();
+        head = 0;
+        l1.add(s);
+        l2.add(t);
+        while (head < l1.size()) {
+            Term t1 = deref(l1.get(head));
+            Term t2 = deref(l2.get(head));
+            head++;
+            if (t1 == t2)
+                continue;
+            if (t1.isVar()) {
+                if (t2.isVar() && t1.t.equals(t2.t))
+                    continue;
+                if (occursCheck(t1,t2))
+                    return false;
+                bind(t1,t2);
+            }
+            else if (t2.isVar()) {
+                if (occursCheck(t2,t1))
+                    return false;
+                bind(t2,t1);
+            }
+            else {
+                if (!t1.t.equals(t2.t) || t1.subterms.size() != t2.subterms.size())
+                    return false;
+                if (t1.bank != null && t1.bank == t2.bank && t1.ground && t2.ground)
+                    return false;  // distinct ground terms of one bank differ
+                l1.addAll(t1.subterms);
+                l2.addAll(t2.subterms);
+            }
+        }
+        return true;
+    }
+
+    /** ***************************************************************
+     * Return t with all bound variables replaced by their values.
+     */
+    public Term resolve(Term t) {
+
+        t = deref(t);
+        if (t.isVar() || t.subterms.size() == 0 || (t.bank != null && t.ground))
+            return t;
+        Term res = new Term();
+        res.t = t.t;
+        for (int i = 0; i < t.subterms.size(); i++)
+            res.subterms.add(resolve(t.subterms.get(i)));
+        return res;
+    }
+
+    /** ***************************************************************
+     * Return the current bindings as a fully expanded substitution.
+     */
+    public Substitutions getSubst() {
+
+        Substitutions result = new Substitutions();
+        for (int i = 0; i < top; i++)
+            result.addSubst(vars[i],resolve(vars[i]));
+        return result;
+    }
+
+    /** ***************************************************************
+     * Undo all bindings.
+     */
+    public void reset() {
+
+        while (top > 0) {
+            top--;
+            vars[top] = null;
+            vals[top] = null;
+        }
+        l1.clear();
+        l2.clear();
+        head = 0;
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     * Compare the results with Unification.mgu()
+     */
+    public static void testUnifier() {
+
+        System.out.println("-----------------------------------");
+        System.out.println("INFO in Unifier.testUnifier(): all should be true");
+        String[][] pairs = {{"X","a"}, {"X","f(X)"}, {"X","f(Y)"}, {"f(X, a)","f(b, Y)"},
+                            {"f(X, g(a))","f(X, Y)"}, {"f(X, g(a))","f(X, X)"},
+                            {"g(X)","g(f(g(X),b))"}, {"f(X,Y,Z)","f(Y,Z,g(a))"},
+                            {"f(X,g(X))","f(Y,Y)"}, {"f(X,a)","f(Y,Y)"}};
+        Unifier u = new Unifier();
+        for (int i = 0; i < pairs.length; i++) {
+            Term s = Term.string2Term(pairs[i][0]);
+            Term t = Term.string2Term(pairs[i][1]);
+            Substitutions expected = Unification.mgu(s,t);
+            Substitutions actual = null;
+            if (u.unify(s,t))
+                actual = u.getSubst();
+            u.reset();
+            if (expected == null)
+                System.out.println((actual == null) + " " + s + " " + t);
+            else
+                System.out.println((actual != null && expected.equals(actual)) + " " + s + " " + t + " " + actual);
+        }
+        // more bindings than the initial size of the trail
+        StringBuffer sb1 = new StringBuffer("f(X0");
+        StringBuffer sb2 = new StringBuffer("f(g(X1)");
+        for (int i = 1; i < 40; i++) {
+            sb1.append(",X" + i);
+            sb2.append(i < 39 ? ",g(X" + (i+1) + ")" : ",a");
+        }
+        Term s = Term.string2Term(sb1.append(")").toString());
+        Term t = Term.string2Term(sb2.append(")").toString());
+        Substitutions expected = Unification.mgu(s,t);
+        boolean ok = u.unify(s,t) && expected.equals(u.getSubst());
+        u.reset();
+        System.out.println(ok);
+        System.out.println(u.unify(Term.string2Term("X0"),Term.string2Term("b")) &&
+                           u.getSubst().equals(Unification.mgu(Term.string2Term("X0"),Term.string2Term("b"))));
+        u.reset();
+    }
+
+    /** ***************************************************************
+     * Test method for this class.
+     */
+    public static void main(String[] args) {
+
+        testUnifier();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    An index of unit clauses, separately for positive and negative
+    units, by predicate symbol and by the top symbol of the first
+    argument. Units whose first argument is a variable, or which have
+    no arguments, are kept under the empty string.
+
+    It supports the three unit inferences that ProofState applies to
+    newly generated clauses:
+
+    - unit conflict: a new unit and an indexed unit of opposite sign
+      unify, which gives the empty clause
+    - unit subsumption: an indexed unit matches a literal of the new
+      clause, which makes the clause redundant
+    - simplify-reflect: an indexed unit matches the negation of a
+      literal of the new clause, which can then be cut from it
+*/
+
+package atp;
+
+import java.util.*;
+
+public class UnitIndex {
+
+    private static final String VAR = "";
+
+    // predicate -> first argument symbol -> units
+    private HashMap<String,HashMap<String,ArrayList<Clause>>> positive =
+        new HashMap<String,HashMap<String,ArrayList<Clause>>>();
+    private HashMap<String,HashMap<String,ArrayList<Clause>>> negative =
+        new HashMap<String,HashMap<String,ArrayList<Clause>>>();
+    private BacktrackSubstitution subst = new BacktrackSubstitution();
+    private Unifier unifier = new Unifier();
+    private int size = 0;
+
+    /** ***************************************************************
+     * Return the first argument symbol of the atom under which it is
+     * indexed.
+     */
+    private static String firstArg(Term atom) {
+
+        if (atom.subterms.size() == 0 || atom.subterms.get(0).isVar())
+            return VAR;
+        return atom.subterms.get(0).t;
+    }
+
+    /** ***************************************************************
+     */
+    private HashMap<String,HashMap<String,ArrayList<Clause>>> side(boolean negated) {
+
+        return negated ? negative : positive;
+    }
+
+    /** ***************************************************************
+     * Add a unit clause to the index.
+     */
+    public void add(Clause unit) {
+
+        Literal lit = unit.literals.get(0);
+        HashMap<String,HashMap<String,ArrayList<Clause>>> preds = side(lit.isNegative());
+        HashMap<String,ArrayList<Clause>> args = preds.get(lit.atom.t);
+        if (args == null) {
+            args = new HashMap<String,ArrayList<Clause>>();
+            preds.put(lit.atom.t,args);
+        }
+        String key = firstArg(lit.atom);
+        ArrayList<Clause> units = args.get(key);
+        if (units == null) {
+            units = new ArrayList<Clause>();
+            args.put(key,units);
+        }
+        units.add(unit);
+        size++;
+    }
+
+    /** ***************************************************************
+     */
+    public int size() {
+
+        return size;
+    }
+
+    /** ***************************************************************
+     * Return the first unit in the list whose atom matches atom, or
+     * null if there is none.
+     */
+    private Clause findMatch(ArrayList<Clause> units, Term atom) {
+
+        if (units == null)
+            return null;
+        for (int i = 0; i < units.size(); i++) {
+            Clause unit = units.get(i);
+            boolean found = subst.match(unit.literals.get(0).atom,atom);
+            subst.backtrackToState(0);
+            if (found)
+                return unit;
+        }
+        return null;
+    }
+
+    /** ***************************************************************
+     * Return an indexed unit that matches the literal, or its negation
+     * if opposite is true, or null if there is none. A unit with a
+     * non-variable first argument can only match a literal with the
+     * same first argument symbol.
+     */
+    public Clause findMatching(Literal lit, boolean opposite) {
+
+        boolean negated = lit.isNegative() != opposite;
+        HashMap<String,ArrayList<Clause>> args = side(negated).get(lit.atom.t);
+        if (args == null)
+            return null;
+        String key = firstArg(lit.atom);
+        Clause unit = null;
+        if (key != VAR)
+            unit = findMatch(args.get(key),lit.atom);
+        if (unit == null)
+            unit = findMatch(args.get(VAR),lit.atom);
+        return unit;
+    }
+
+    /** ***************************************************************
+     * Return the first unit in the list whose atom unifies with atom
+     * (after renaming its variables apart), or null if there is none.
+     */
+    private Clause findUnifiable(ArrayList<Clause> units, Term atom) {
+
+        if (units == null)
+            return null;
+        for (int i = 0; i < units.size(); i++) {
+            Clause unit = units.get(i);
+            Term other = unit.literals.get(0).atom;
+            if (!other.isGround())
+                other = unit.freshVarCopy().literals.get(0).atom;
+            boolean found = unifier.unify(other,atom);
+            unifier.reset();
+            if (found)
+                return unit;
+        }
+        return null;
+    }
+
+    /** ***************************************************************
+     * Return an indexed unit of opposite sign that unifies with the
+     * literal of the given unit clause, or null if there is none.
+     */
+    public Clause findConflict(Clause c) {
+
+        Literal lit = c.literals.get(0);
+        HashMap<String,ArrayList<Clause>> args = side(!lit.isNegative()).get(lit.atom.t);
+        if (args == null)
+            return null;
+        String key = firstArg(lit.atom);
+        if (key == VAR) {
+            for (ArrayList<Clause> units:args.values()) {
+                Clause unit = findUnifiable(units,lit.atom);
+                if (unit != null)
+                    return unit;
+            }
+            return null;
+        }
+        Clause unit = findUnifiable(args.get(key),lit.atom);
+        if (unit == null)
+            unit = findUnifiable(args.get(VAR),lit.atom);
+        return unit;
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     */
+    public static void testUnitIndex() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in UnitIndex.testUnitIndex(): all should be true");
+        UnitIndex index = new UnitIndex();
+        index.add(Clause.string2Clause("cnf(u1,axiom,p(a,X))."));
+        index.add(Clause.string2Clause("cnf(u2,axiom,~q(X,b))."));
+        index.add(Clause.string2Clause("cnf(u3,axiom,r)."));
+        Clause c = Clause.string2Clause("cnf(c,axiom,p(a,f(Y))|q(c,b)|~r).");
+        System.out.println(index.size() == 3);
+        System.out.println(index.findMatching(c.literals.get(0),false).name.equals("u1"));
+        System.out.println(index.findMatching(c.literals.get(0),true) == null);
+        System.out.println(index.findMatching(c.literals.get(1),true).name.equals("u2"));
+        System.out.println(index.findMatching(c.literals.get(2),true).name.equals("u3"));
+        System.out.println(index.findMatching(Literal.string2lit("p(b,c)"),false) == null);
+        System.out.println(index.findConflict(Clause.string2Clause("cnf(n1,axiom,~p(Z,c)).")).name.equals("u1"));
+        System.out.println(index.findConflict(Clause.string2Clause("cnf(n2,axiom,q(Z,Z)).")).name.equals("u2"));
+        System.out.println(index.findConflict(Clause.string2Clause("cnf(n3,axiom,~p(b,c)).")) == null);
+        System.out.println(index.findConflict(Clause.string2Clause("cnf(n4,axiom,q(a,c)).")) == null);
+    }
+
+    /** ***************************************************************
+     * Test method for this class.
+     */
+    public static void main(String[] args) {
+
+        testUnitIndex();
+    }
+}
@@ -0,0 +1,351 @@
+/*
+Copyright 2010-2011 Adam Pease, apease@articulatesoftware.com
+
+This program is free software; you can redistribute it and/or modify
+it under the terms of the GNU General Public License as published by
+the Free Software Foundation; either version 2 of the License, or
+(at your option) any later version.
+
+This program is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+along with this program ; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston,
+MA  02111-1307 USA
+
+    A watchdog that bounds the time and memory of a proof search. A
+    daemon thread wakes up periodically and sets a volatile cancel flag
+    once the time limit has passed. The prover polls the flag inside
+    its inner loops (resolvent computation, subsumption, insertion of
+    new clauses), so that even a single expensive given clause cannot
+    run far past the limit.
+
+    The heap ceiling is a limit on the heap of the whole JVM, since
+    the heap used by one of several concurrent searches (in a batch, a
+    portfolio or the ProverServer) cannot be measured. It is checked by
+    a single monitor thread shared by all running watchdogs. When the
+    used heap exceeds the ceiling of a watchdog, the monitor requests
+    a garbage collection (at most once every gcInterval milliseconds;
+    no other code of the prover calls System.gc()) and compares the
+    usage of the heap memory pools after the most recent collection
+    with the ceilings. Of the searches whose ceiling is still exceeded
+    it only cancels the one with the largest footprint, i.e. the most
+    clauses, and it cancels no other search before that one has
+    stopped and the heap has been collected again.
+
+    The reason for the cancellation is given as an SZS status, i.e.
+    "Timeout" or "ResourceOut". A watchdog may have a parent, e.g. the
+    one of a portfolio of proof searches, and is then also cancelled
+    (with the same reason) when its parent is cancelled.
+*/
+
+package atp;
+
+import java.lang.management.*;
+import java.util.*;
+
+public class Watchdog implements Runnable {
+
+    public static final String Timeout = "Timeout";
+    public static final String ResourceOut = "ResourceOut";
+
+    // Fraction of the maximal heap that may be used if no explicit
+    // limit is given
+    public static double defaultHeapFraction = 0.9;
+    // How often the limits are checked, in milliseconds
+    public static long interval = 50;
+    // Minimal time between two garbage collections requested by checkHeap()
+    public static long gcInterval = 1000;
+    // A heap ceiling that is never reached, for a watchdog of the time only
+    public static final long NoHeapLimit = Long.MAX_VALUE;
+
+    public volatile boolean cancelled = false;
+    public volatile String reason = "";
+    public Watchdog parent = null;
+    // Size of the search, e.g. its number of clauses, see checkHeap()
+    public volatile long footprint = 0;
+
+    private long deadline = 0;   // System.currentTimeMillis() value
+    private long maxHeap = 0;    // bytes
+    private Thread thread = null;
+    private volatile boolean stopped = false;
+
+    // The running watchdogs with a heap ceiling, and the heap monitor
+    private static final ArrayList<Watchdog> running = new ArrayList<Watchdog>();
+    private static Thread monitor = null;
+    private static long lastGC = 0;         // System.currentTimeMillis() value
+    private static Watchdog victim = null;  // cancelled by checkHeap(), until it stops
+
+    /** ***************************************************************
+     * @param millis the time limit, in milliseconds
+     * @param maxHeapBytes the heap ceiling in bytes. If zero or
+     * negative, defaultHeapFraction of the maximal heap is used.
+     */
+    public Watchdog(long millis, long maxHeapBytes) {
+
+        deadline = System.currentTimeMillis() + millis;
+        if (maxHeapBytes > 0)
+            maxHeap = maxHeapBytes;
+        else
+            maxHeap = (long) (Runtime.getRuntime().maxMemory() * defaultHeapFraction);
+    }
+
+    /** ***************************************************************
+     */
+    public Watchdog(long millis) {
+
+        this(millis,0);
+    }
+
+    /** ***************************************************************
+     */
+    public Watchdog(long millis, long maxHeapBytes, Watchdog parent) {
+
+        this(millis,maxHeapBytes);
+        this.parent = parent;
+    }
+
+    /** ***************************************************************
+     * Start monitoring the limits.
+     */
+    public Watchdog start() {
+
+        thread = new Thread(this,"atp-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+        if (maxHeap != NoHeapLimit)
+            register(this);
+        return this;
+    }
+
+    /** ***************************************************************
+     * Stop monitoring. The cancel flag keeps its value.
+     */
+    public void stop() {
+
+        stopped = true;
+        if (thread != null)
+            thread.interrupt();
+        synchronized (running) {
+            running.remove(this);
+        }
+    }
+
+    /** ***************************************************************
+     * Add a watchdog to those checked by the heap monitor, starting
+     * the monitor thread if necessary.
+     */
+    private static void register(Watchdog wd) {
+
+        synchronized (running) {
+            running.add(wd);
+            if (monitor != null)
+                return;
+            monitor = new Thread("atp-heap-monitor") {
+                public void run() {
+                    while (true) {
+                        checkHeap();
+                        try {
+                            Thread.sleep(interval);
+                        }
+                        catch (InterruptedException ie) {
+                            return;
+                        }
+                    }
+                }
+            };
+            monitor.setDaemon(true);
+            monitor.start();
+        }
+    }
+
+    /** ***************************************************************
+     * Cancel the search for the given reason. Only the first reason
+     * is recorded.
+     */
+    public synchronized void cancel(String why) {
+
+        if (!cancelled) {
+            reason = why;
+            cancelled = true;
+        }
+    }
+
+    /** ***************************************************************
+     * Null-safe test of the cancel flag.
+     */
+    public static boolean isCancelled(Watchdog wd) {
+
+        if (wd == null)
+            return false;
+        if (!wd.cancelled && wd.parent != null && isCancelled(wd.parent))
+            wd.cancel(wd.parent.reason);
+        return wd.cancelled;
+    }
+
+    /** ***************************************************************
+     * Return the number of bytes currently used on the heap.
+     */
+    public static long usedHeap() {
+
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /** ***************************************************************
+     * Return the number of bytes used on the heap after the most recent
+     * garbage collection, as reported by the heap memory pools.
+     */
+    public static long collectedHeap() {
+
+        long total = 0;
+        for (MemoryPoolMXBean pool:ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP)
+                continue;
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null)
+                total = total + usage.getUsed();
+        }
+        return total;
+    }
+
+    /** ***************************************************************
+     * Check the heap ceilings of all running watchdogs once. If the
+     * heap that is still used after garbage collection exceeds the
+     * ceiling of some of them, cancel the one with the largest
+     * footprint. A collection is requested first unless one was
+     * requested less than gcInterval milliseconds ago.
+     */
+    public static synchronized void checkHeap() {
+
+        ArrayList<Watchdog> wds = null;
+        synchronized (running) {
+            if (victim != null && running.contains(victim))
+                return;   // wait until the cancelled search has stopped
+            if (victim != null) {
+                victim = null;
+                lastGC = 0;
+            }
+            wds = new ArrayList<Watchdog>(running);
+        }
+        long ceiling = NoHeapLimit;
+        for (Watchdog wd:wds)
+            if (!wd.cancelled && wd.maxHeap < ceiling)
+                ceiling = wd.maxHeap;
+        if (ceiling == NoHeapLimit || usedHeap() <= ceiling)
+            return;
+        long now = System.currentTimeMillis();
+        if (now - lastGC >= gcInterval) {
+            lastGC = now;
+            System.gc();
+        }
+        long used = collectedHeap();
+        Watchdog biggest = null;
+        for (Watchdog wd:wds)
+            if (!wd.cancelled && used > wd.maxHeap &&
+                (biggest == null || wd.footprint > biggest.footprint))
+                biggest = wd;
+        if (biggest != null) {
+            biggest.cancel(ResourceOut);
+            victim = biggest;
+        }
+    }
+
+    /** ***************************************************************
+     * Check the time limit once.
+     */
+    public void check() {
+
+        if (parent != null && isCancelled(parent))
+            cancel(parent.reason);
+        else if (System.currentTimeMillis() > deadline)
+            cancel(Timeout);
+    }
+
+    /** ***************************************************************
+     */
+    public void run() {
+
+        while (!stopped && !cancelled) {
+            check();
+            try {
+                Thread.sleep(interval);
+            }
+            catch (InterruptedException ie) {
+                return;
+            }
+        }
+    }
+
+    /** ***************************************************************
+     * ************ UNIT TESTS *****************
+     */
+    public static void testWatchdog() {
+
+        System.out.println("---------------------");
+        System.out.println("INFO in Watchdog.testWatchdog(): all should be true");
+        Watchdog wd = new Watchdog(100).start();
+        System.out.println(!isCancelled(wd));
+        long t1 = System.currentTimeMillis();
+        while (!isCancelled(wd) && System.currentTimeMillis() - t1 < 5000)
+            Thread.yield();
+        System.out.println(isCancelled(wd) && wd.reason.equals(Timeout));
+        wd.stop();
+
+        wd = new Watchdog(10000,1).start();
+        t1 = System.currentTimeMillis();
+        while (!isCancelled(wd) && System.currentTimeMillis() - t1 < 5000)
+            Thread.yield();
+        System.out.println(isCancelled(wd) && wd.reason.equals(ResourceOut));
+        wd.stop();
+        System.out.println(!isCancelled(null));
+
+        // live data counts against the ceiling, and only the largest
+        // search is cancelled, the next one only after it has stopped
+        long chunk = 16L * 1024 * 1024;
+        System.gc();
+        long base = collectedHeap();
+        byte[][] data = new byte[4][];
+        for (int i = 0; i < data.length; i++)
+            data[i] = new byte[(int) chunk];
+        Watchdog small = new Watchdog(10000,base + 2 * chunk);
+        small.footprint = 10;
+        Watchdog large = new Watchdog(10000,base + 2 * chunk);
+        large.footprint = 1000;
+        small.start();
+        large.start();
+        checkHeap();
+        System.out.println(isCancelled(large) && large.reason.equals(ResourceOut) && !isCancelled(small));
+        checkHeap();
+        System.out.println(!isCancelled(small));
+        large.stop();
+        checkHeap();
+        System.out.println(isCancelled(small) && data[3].length == chunk);
+        small.stop();
+
+        // garbage does not count against the ceiling
+        data = null;
+        lastGC = 0;
+        wd = new Watchdog(10000,base + 2 * chunk).start();
+        checkHeap();
+        System.out.println(!isCancelled(wd));
+        wd.stop();
+
+        Watchdog master = new Watchdog(10000);
+        wd = new Watchdog(10000,0,master);
+        System.out.println(!isCancelled(wd));
+        master.cancel("GaveUp");
+        System.out.println(isCancelled(wd) && wd.reason.equals("GaveUp"));
+    }
+
+    /** ***************************************************************
+     * Test method for this class.
+     */
+    public static void main(String[] args) {
+
+        testWatchdog();
+    }
+}